@@ -1,6 +1,7 @@
 package com.sensum.backend;
 
 import com.sensum.backend.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -48,6 +49,8 @@ public class SecurityConfig {
      *   <li>CSRF disabled because this API is used as a stateless JSON backend in development.</li>
      *   <li>Stateless session policy because JWT is used instead of server-side sessions.</li>
      *   <li>Custom JWT filter placed before username/password auth filter.</li>
+     *   <li>Async dispatches (e.g. a Server-Sent Events stream completing) are permitted: the original
+     *       request was already authorized, and the JWT filter does not run again for them.</li>
      * </ul>
      */
     SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -56,6 +59,7 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/health", "/error").permitAll()
                     .requestMatchers("/auth/signup", "/auth/login", "/auth/logout").permitAll()
                         .requestMatchers("/metrics", "/metrics/**").permitAll()
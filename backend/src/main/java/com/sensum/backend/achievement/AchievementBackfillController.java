@@ -0,0 +1,108 @@
+package com.sensum.backend.achievement;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Admin endpoints for {@link AchievementBackfillJob}.
+ *
+ * <h2>Authorization</h2>
+ * There are no roles yet: admins are the user ids listed in {@code sensum.admin.user-ids}
+ * (comma-separated; empty by default, which disables these endpoints).
+ */
+@RestController
+@RequestMapping("/admin/achievements/backfill")
+public class AchievementBackfillController {
+
+    private final AchievementBackfillJob backfill;
+    private final Set<Long> adminUserIds;
+
+    public AchievementBackfillController(
+            AchievementBackfillJob backfill,
+            @Value("${sensum.admin.user-ids:}") Set<Long> adminUserIds
+    ) {
+        this.backfill = backfill;
+        this.adminUserIds = adminUserIds;
+    }
+
+    // POST /admin/achievements/backfill - Start a backfill over all current users
+    @PostMapping
+    public ResponseEntity<?> start(HttpServletRequest request) {
+        ResponseEntity<?> denied = denyUnlessAdmin(request);
+        if (denied != null) {
+            return denied;
+        }
+        return ResponseEntity.accepted().body(progress(backfill.start((Long) request.getAttribute("userId"))));
+    }
+
+    // GET /admin/achievements/backfill/{id} - Progress
+    @GetMapping("/{id}")
+    public ResponseEntity<?> get(@PathVariable long id, HttpServletRequest request) {
+        ResponseEntity<?> denied = denyUnlessAdmin(request);
+        if (denied != null) {
+            return denied;
+        }
+        return backfill.find(id)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(progress(job)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // POST /admin/achievements/backfill/{id}/pause - Stop after the current chunk
+    @PostMapping("/{id}/pause")
+    public ResponseEntity<?> pause(@PathVariable long id, HttpServletRequest request) {
+        ResponseEntity<?> denied = denyUnlessAdmin(request);
+        if (denied != null) {
+            return denied;
+        }
+        return ResponseEntity.ok(progress(backfill.pause(id)));
+    }
+
+    // POST /admin/achievements/backfill/{id}/resume - Continue from the checkpoint
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<?> resume(@PathVariable long id, HttpServletRequest request) {
+        ResponseEntity<?> denied = denyUnlessAdmin(request);
+        if (denied != null) {
+            return denied;
+        }
+        return ResponseEntity.accepted().body(progress(backfill.resume(id)));
+    }
+
+    /**
+     * @return 401 without a user, 403 for non-admins, or null if the caller is an admin
+     */
+    private ResponseEntity<?> denyUnlessAdmin(HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        if (userId == null) {
+            return ResponseEntity.status(401).build();
+        }
+        if (!adminUserIds.contains(userId)) {
+            return ResponseEntity.status(403).build();
+        }
+        return null;
+    }
+
+    private static Map<String, Object> progress(AchievementBackfillJob.Job job) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("id", job.id());
+        out.put("status", job.status());
+        out.put("percent", job.percent());
+        out.put("lastUserId", job.lastUserId());
+        out.put("maxUserId", job.maxUserId());
+        out.put("usersProcessed", job.usersProcessed());
+        out.put("unlocksInserted", job.unlocksInserted());
+        out.put("lastError", job.lastError());
+        out.put("createdAt", job.createdAt());
+        out.put("finishedAt", job.finishedAt());
+        return out;
+    }
+}
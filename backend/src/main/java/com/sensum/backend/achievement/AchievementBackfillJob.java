@@ -0,0 +1,379 @@
+package com.sensum.backend.achievement;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Admin-triggered job that unlocks achievements for existing users, e.g. after a new {@link Achievement}
+ * row is added (otherwise users only get it on their next evaluation).
+ *
+ * <h2>Pipeline (per chunk)</h2>
+ * <ol>
+ *   <li>Take the next {@value #USERS_PER_CHUNK} user ids after the checkpoint.</li>
+ *   <li>Read the whole chunk's stats with one set-based query, and its existing unlocks with another.</li>
+ *   <li>Evaluate the compiled triggers ({@link AchievementDefinitions}) in parallel, {@value #USERS_PER_TASK}
+ *       users per task.</li>
+ *   <li>Batch-insert the new unlocks ({@code ON CONFLICT DO NOTHING}) and advance the checkpoint in the
+ *       same transaction.</li>
+ * </ol>
+ *
+ * <h2>Resuming</h2>
+ * Progress lives in {@code achievement_backfill_jobs}. The checkpoint only moves together with the chunk's
+ * inserts, and only if nobody else moved it (compare-and-set), so a job interrupted by a restart or a
+ * failure continues exactly where it stopped. Running jobs are picked up again at startup.
+ *
+ * <h2>Throttling</h2>
+ * One chunk at a time on one connection, followed by a pause at least as long as the chunk took, so the
+ * job uses at most about half of one connection's time on the primary.
+ */
+@Component
+public class AchievementBackfillJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(AchievementBackfillJob.class);
+
+    /** Users per chunk (one stats query, one insert batch, one checkpoint). */
+    static final int USERS_PER_CHUNK = 1_000;
+
+    /** Users per parallel evaluation task. */
+    static final int USERS_PER_TASK = 128;
+
+    /** Lower bound on the pause between chunks. */
+    static final long MIN_PAUSE_MS = 50;
+
+    private static final String SELECT_JOB =
+            "SELECT id, status, last_user_id, max_user_id, users_processed, unlocks_inserted, last_error, " +
+                    "created_at, finished_at FROM achievement_backfill_jobs";
+
+    private static final String CHUNK_STATS_SQL =
+            "SELECT u.id, u.level, u.streak, COALESCE(qc.n, 0) AS quest_count, COALESCE(f.n, 0) AS friend_count, " +
+                    "  COALESCE(b.n, 0) AS buddy_session_count " +
+                    "FROM users u " +
+                    "LEFT JOIN (SELECT user_id, COUNT(*) AS n FROM quest_completions " +
+                    "           WHERE user_id > ? AND user_id <= ? GROUP BY user_id) qc ON qc.user_id = u.id " +
+                    "LEFT JOIN (SELECT user_id, COUNT(*) AS n FROM friendships " +
+                    "           WHERE status = 'accepted' AND user_id > ? AND user_id <= ? GROUP BY user_id) f " +
+                    "  ON f.user_id = u.id " +
+                    "LEFT JOIN (SELECT user_id, COUNT(*) AS n FROM buddy_session_participants " +
+                    "           WHERE status = 'completed' AND user_id > ? AND user_id <= ? GROUP BY user_id) b " +
+                    "  ON b.user_id = u.id " +
+                    "WHERE u.id > ? AND u.id <= ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO user_achievements (user_id, achievement_id, unlocked_at) VALUES (?, ?, ?) " +
+                    "ON CONFLICT (user_id, achievement_id) DO NOTHING";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final AchievementDefinitions definitions;
+    private final UnlockedAchievementCache unlockedCache;
+
+    /** Runs jobs one at a time, so at most one backfill touches the database per instance. */
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "achievement-backfill");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
+    /** Jobs queued or running on this instance. */
+    private final Set<Long> active = ConcurrentHashMap.newKeySet();
+
+    public AchievementBackfillJob(
+            JdbcTemplate jdbc,
+            PlatformTransactionManager txManager,
+            AchievementDefinitions definitions,
+            UnlockedAchievementCache unlockedCache
+    ) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.definitions = definitions;
+        this.unlockedCache = unlockedCache;
+    }
+
+    /**
+     * Progress of a backfill job.
+     *
+     * @param lastUserId checkpoint: users with id up to this one are done
+     * @param maxUserId highest user id covered by the job
+     */
+    public record Job(
+            long id,
+            String status,
+            long lastUserId,
+            long maxUserId,
+            long usersProcessed,
+            long unlocksInserted,
+            String lastError,
+            Instant createdAt,
+            Instant finishedAt
+    ) {
+        /**
+         * @return share of the id range done, 0-100
+         */
+        public int percent() {
+            if (maxUserId <= 0) {
+                return 100;
+            }
+            return (int) Math.min(100, lastUserId * 100 / maxUserId);
+        }
+    }
+
+    /**
+     * Creates a job covering every current user and starts it in the background.
+     *
+     * @param requestedBy admin user id (recorded on the job)
+     */
+    public Job start(Long requestedBy) {
+        definitions.reload(); // Pick up just-added achievements now rather than on the next refresh.
+        Long maxUserId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Long.class);
+        Long id = jdbc.queryForObject(
+                "INSERT INTO achievement_backfill_jobs (max_user_id, created_by) VALUES (?, ?) RETURNING id",
+                Long.class, maxUserId, requestedBy);
+        submit(id);
+        return find(id).orElseThrow();
+    }
+
+    public Optional<Job> find(long id) {
+        return jdbc.query(SELECT_JOB + " WHERE id = ?", (rs, i) -> new Job(
+                rs.getLong("id"),
+                rs.getString("status"),
+                rs.getLong("last_user_id"),
+                rs.getLong("max_user_id"),
+                rs.getLong("users_processed"),
+                rs.getLong("unlocks_inserted"),
+                rs.getString("last_error"),
+                rs.getTimestamp("created_at").toInstant(),
+                Optional.ofNullable(rs.getTimestamp("finished_at")).map(Timestamp::toInstant).orElse(null)
+        ), id).stream().findFirst();
+    }
+
+    /**
+     * Stops a running job after its current chunk.
+     */
+    public Job pause(long id) {
+        jdbc.update("UPDATE achievement_backfill_jobs SET status = 'paused', updated_at = NOW() " +
+                "WHERE id = ? AND status = 'running'", id);
+        return find(id).orElseThrow(() -> new IllegalArgumentException("Unknown backfill job"));
+    }
+
+    /**
+     * Continues a paused or failed job from its checkpoint.
+     */
+    public Job resume(long id) {
+        Job job = find(id).orElseThrow(() -> new IllegalArgumentException("Unknown backfill job"));
+        if ("done".equals(job.status())) {
+            throw new IllegalArgumentException("Backfill job already finished");
+        }
+        jdbc.update("UPDATE achievement_backfill_jobs SET status = 'running', last_error = NULL, updated_at = NOW() " +
+                "WHERE id = ? AND status IN ('paused', 'failed', 'running')", id);
+        submit(id);
+        return find(id).orElseThrow();
+    }
+
+    /**
+     * Restarts jobs that were running when the application last stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        for (Long id : jdbc.queryForList(
+                "SELECT id FROM achievement_backfill_jobs WHERE status = 'running' ORDER BY id", Long.class)) {
+            logger.info("Resuming achievement backfill job {}", id);
+            submit(id);
+        }
+    }
+
+    private void submit(long id) {
+        if (active.add(id)) {
+            runner.execute(() -> {
+                try {
+                    run(id);
+                } finally {
+                    active.remove(id);
+                }
+            });
+        }
+    }
+
+    void run(long jobId) {
+        try {
+            while (true) {
+                Job job = find(jobId).orElse(null);
+                if (job == null || !"running".equals(job.status())) {
+                    return;
+                }
+                if (job.lastUserId() >= job.maxUserId()) {
+                    jdbc.update("UPDATE achievement_backfill_jobs SET status = 'done', finished_at = NOW(), " +
+                            "updated_at = NOW() WHERE id = ? AND status = 'running'", jobId);
+                    logger.info("Achievement backfill job {} done: {} users, {} unlocks",
+                            jobId, job.usersProcessed(), job.unlocksInserted());
+                    return;
+                }
+
+                long started = System.currentTimeMillis();
+                if (!runChunk(job)) {
+                    return; // Checkpoint moved underneath us (paused, or run elsewhere).
+                }
+                Thread.sleep(Math.max(MIN_PAUSE_MS, System.currentTimeMillis() - started));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt(); // Shutdown: the job stays 'running' and resumes on restart.
+        } catch (RuntimeException ex) {
+            jdbc.update("UPDATE achievement_backfill_jobs SET status = 'failed', last_error = ?, updated_at = NOW() " +
+                    "WHERE id = ? AND status = 'running'", String.valueOf(ex.getMessage()), jobId);
+            logger.error("Achievement backfill job {} failed", jobId, ex);
+        }
+    }
+
+    /**
+     * Processes the users after the job's checkpoint and advances it.
+     *
+     * @return false if the checkpoint was no longer ours to advance (nothing was written)
+     */
+    private boolean runChunk(Job job) throws InterruptedException {
+        long after = job.lastUserId();
+        Long last = jdbc.queryForObject(
+                "SELECT MAX(id) FROM (SELECT id FROM users WHERE id > ? AND id <= ? ORDER BY id LIMIT ?) chunk",
+                Long.class, after, job.maxUserId(), USERS_PER_CHUNK);
+        long upTo = last == null ? job.maxUserId() : last;
+
+        List<UserStats> users = jdbc.query(CHUNK_STATS_SQL,
+                (rs, i) -> new UserStats(rs.getLong("id"), AchievementService.statsOf(rs)),
+                after, upTo, after, upTo, after, upTo, after, upTo);
+
+        Map<Long, BitSet> unlocked = new HashMap<>();
+        jdbc.query("SELECT user_id, achievement_id FROM user_achievements WHERE user_id > ? AND user_id <= ?",
+                rs -> {
+                    unlocked.computeIfAbsent(rs.getLong(1), id -> new BitSet())
+                            .set(Math.toIntExact(rs.getLong(2)));
+                },
+                after, upTo);
+
+        List<long[]> unlocks = evaluateInParallel(definitions.current(), users, unlocked);
+
+        Boolean advanced = tx.execute(status -> {
+            int inserted = insert(unlocks);
+            int updated = jdbc.update(
+                    "UPDATE achievement_backfill_jobs SET last_user_id = ?, users_processed = users_processed + ?, " +
+                            "unlocks_inserted = unlocks_inserted + ?, updated_at = NOW() " +
+                            "WHERE id = ? AND status = 'running' AND last_user_id = ?",
+                    upTo, users.size(), inserted, job.id(), after);
+            if (updated == 0) {
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        });
+        if (!Boolean.TRUE.equals(advanced)) {
+            return false;
+        }
+
+        // Committed: only now may the cache treat these as unlocked (a failed commit must not hide them).
+        Map<Long, List<Long>> byUser = new HashMap<>();
+        for (long[] unlock : unlocks) {
+            byUser.computeIfAbsent(unlock[0], id -> new ArrayList<>()).add(unlock[1]);
+        }
+        byUser.forEach(unlockedCache::markUnlocked);
+        return true;
+    }
+
+    private List<long[]> evaluateInParallel(
+            AchievementDefinitions.Snapshot snapshot,
+            List<UserStats> users,
+            Map<Long, BitSet> unlocked
+    ) throws InterruptedException {
+        List<Callable<List<long[]>>> tasks = new ArrayList<>();
+        for (int from = 0; from < users.size(); from += USERS_PER_TASK) {
+            List<UserStats> slice = users.subList(from, Math.min(users.size(), from + USERS_PER_TASK));
+            tasks.add(() -> evaluate(snapshot, slice, unlocked));
+        }
+
+        List<long[]> unlocks = new ArrayList<>();
+        for (Future<List<long[]>> result : pool.invokeAll(tasks)) {
+            try {
+                unlocks.addAll(result.get());
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Achievement evaluation failed", ex.getCause());
+            }
+        }
+        return unlocks;
+    }
+
+    /**
+     * @return {@code [userId, achievementId]} for every achievement a user qualifies for but does not have
+     */
+    static List<long[]> evaluate(
+            AchievementDefinitions.Snapshot snapshot,
+            List<UserStats> users,
+            Map<Long, BitSet> unlocked
+    ) {
+        List<long[]> unlocks = new ArrayList<>();
+        for (UserStats user : users) {
+            BitSet has = unlocked.getOrDefault(user.userId(), new BitSet());
+            BitSet added = new BitSet();
+            for (Map.Entry<String, Integer> stat : user.stats().entrySet()) {
+                for (Achievement a : snapshot.reached(stat.getKey(), stat.getValue())) {
+                    int bit = Math.toIntExact(a.getId());
+                    if (!has.get(bit) && !added.get(bit)) {
+                        added.set(bit);
+                        unlocks.add(new long[]{user.userId(), a.getId()});
+                    }
+                }
+            }
+        }
+        return unlocks;
+    }
+
+    private int insert(List<long[]> unlocks) {
+        if (unlocks.isEmpty()) {
+            return 0;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        int inserted = 0;
+        for (int[] batch : jdbc.batchUpdate(INSERT_SQL, unlocks, 500, (ps, unlock) -> {
+            ps.setLong(1, unlock[0]);
+            ps.setLong(2, unlock[1]);
+            ps.setTimestamp(3, now);
+        })) {
+            for (int count : batch) {
+                if (count != 0) {
+                    inserted++;
+                }
+            }
+        }
+        return inserted;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    /** One user's trigger stats, keyed like {@link AchievementService#statsOf}. */
+    record UserStats(long userId, Map<String, Integer> stats) {}
+}
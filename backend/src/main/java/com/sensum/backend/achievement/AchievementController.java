@@ -3,6 +3,7 @@ package com.sensum.backend.achievement;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.time.Instant;
 import java.util.*;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -45,6 +46,24 @@ public class AchievementController {
         ));
     }
 
+    // GET /achievements/recent?since=2026-01-05T10:00:00Z - Badges unlocked after a point in time
+    @GetMapping("/recent")
+    /**
+     * Returns achievements the authenticated user unlocked after {@code since}.
+     *
+     * <p>Quest completions evaluate achievements asynchronously; clients call this with the
+     * {@code unlockedSince} value from the completion response to show new badges.</p>
+     */
+    public ResponseEntity<?> getRecentAchievements(@RequestParam Instant since, HttpServletRequest request) {
+        Long authedUserId = (Long) request.getAttribute("userId");
+        if (authedUserId == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok(Map.of(
+                "achievements", achievementService.getAchievementsUnlockedSince(authedUserId, since)
+        ));
+    }
+
     // GET /achievements/all?userId=1 - Get all badges (shows which are locked)
     @GetMapping("/all")
     /**
@@ -0,0 +1,237 @@
+package com.sensum.backend.achievement;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compiled, in-memory index of achievement definitions.
+ *
+ * <h2>Why?</h2>
+ * Triggers are stored as JSON strings ({@code {"type": "quest_count", "value": 10}}). Parsing them on every
+ * evaluation is wasted work: definitions change rarely, evaluations happen on every completion.
+ *
+ * <h2>Layout</h2>
+ * Each trigger is compiled once into a {@link Trigger} (stat key + threshold). Achievements are grouped by
+ * stat and sorted by threshold, so "which achievements does value v reach" is a binary search plus a slice
+ * of an array. Callers only know the current stat value (it is read from the database, not tracked), and
+ * already-unlocked achievements are filtered with {@link UnlockedAchievementCache}.
+ *
+ * <h2>Listing</h2>
+ * The snapshot also serves the achievements pages: definitions by id, with their static fields
+ * (id, name, description, icon) as an immutable map built once per compile.
+ *
+ * <h2>Freshness</h2>
+ * The snapshot is compiled on first use. Once a minute a cheap fingerprint query (a hash over the full rows,
+ * so trigger and name/description/icon edits alike) checks whether definitions changed; only then
+ * are they reloaded and recompiled.
+ */
+@Component
+public class AchievementDefinitions {
+
+    private static final Logger logger = LoggerFactory.getLogger(AchievementDefinitions.class);
+
+    /** Trigger type (as stored) -> stat key (as passed by callers). */
+    static final Map<String, String> STAT_KEYS = Map.of(
+            "quest_count", "questCount",
+            "streak", "streak",
+            "level", "level",
+            "friend_count", "friendCount",
+            "buddy_session_count", "buddySessionCount"
+    );
+
+    /** Hash over the full text of every row, so any column change (trigger or static fields) is noticed. */
+    static final String FINGERPRINT_SQL =
+            "SELECT md5(COALESCE(string_agg(a::text, ',' ORDER BY a.id), '')) FROM achievements a";
+
+    private final AchievementRepository achievementRepository;
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper objectMapper;
+
+    private volatile Snapshot snapshot;
+    private volatile String fingerprint;
+
+    public AchievementDefinitions(AchievementRepository achievementRepository, JdbcTemplate jdbc, ObjectMapper objectMapper) {
+        this.achievementRepository = achievementRepository;
+        this.jdbc = jdbc;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return the current compiled snapshot (compiled on first call)
+     */
+    public Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                s = snapshot;
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Recompiles if the definitions' fingerprint changed since the last compile. Runs every minute.
+     */
+    @Scheduled(fixedDelay = 60_000, initialDelay = 60_000)
+    public void refreshIfChanged() {
+        String latest = jdbc.queryForObject(FINGERPRINT_SQL, String.class);
+        if (!Objects.equals(latest, fingerprint)) {
+            reload();
+        }
+    }
+
+    /**
+     * Loads and compiles all definitions unconditionally.
+     */
+    public synchronized void reload() {
+        String latest = jdbc.queryForObject(FINGERPRINT_SQL, String.class);
+        snapshot = compile(achievementRepository.findAll(), objectMapper);
+        fingerprint = latest;
+        logger.info("Compiled {} achievement definitions", snapshot.all().size());
+    }
+
+    /**
+     * Compiles definitions into a snapshot. Achievements with unknown or malformed triggers are kept in
+     * {@link Snapshot#all()} but can never be unlocked (same as before compilation).
+     */
+    static Snapshot compile(List<Achievement> achievements, ObjectMapper objectMapper) {
+        Map<String, List<Compiled>> grouped = new HashMap<>();
+        for (Achievement a : achievements) {
+            Trigger trigger = parse(a, objectMapper);
+            if (trigger != null) {
+                grouped.computeIfAbsent(trigger.statKey(), k -> new ArrayList<>()).add(new Compiled(trigger, a));
+            }
+        }
+
+        Map<String, StatIndex> byStat = new HashMap<>();
+        for (Map.Entry<String, List<Compiled>> e : grouped.entrySet()) {
+            Compiled[] sorted = e.getValue().toArray(new Compiled[0]);
+            Arrays.sort(sorted, Comparator.comparingInt((Compiled c) -> c.trigger().threshold())
+                    .thenComparing(c -> c.achievement().getId(), Comparator.nullsLast(Comparator.naturalOrder())));
+            int[] thresholds = new int[sorted.length];
+            Achievement[] ordered = new Achievement[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                thresholds[i] = sorted[i].trigger().threshold();
+                ordered[i] = sorted[i].achievement();
+            }
+            byStat.put(e.getKey(), new StatIndex(thresholds, List.of(ordered)));
+        }
+
+        Map<Long, Achievement> byId = new HashMap<>();
+        Map<Long, Map<String, Object>> fields = new HashMap<>();
+        for (Achievement a : achievements) {
+            if (a.getId() != null) {
+                byId.put(a.getId(), a);
+                fields.put(a.getId(), staticFields(a));
+            }
+        }
+        return new Snapshot(List.copyOf(achievements), Map.copyOf(byStat), Map.copyOf(byId), Map.copyOf(fields));
+    }
+
+    /**
+     * The fields that never vary per user, in response order. Values may be null, so this is an unmodifiable
+     * {@link LinkedHashMap} rather than {@code Map.of}.
+     */
+    private static Map<String, Object> staticFields(Achievement a) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("id", a.getId());
+        fields.put("name", a.getName());
+        fields.put("description", a.getDescription());
+        fields.put("icon", a.getIcon());
+        return Collections.unmodifiableMap(fields);
+    }
+
+    private static Trigger parse(Achievement a, ObjectMapper objectMapper) {
+        try {
+            JsonNode node = objectMapper.readTree(a.getTrigger());
+            String statKey = STAT_KEYS.get(node.path("type").asString());
+            JsonNode value = node.get("value");
+            if (statKey == null || value == null || !value.canConvertToInt()) {
+                logger.warn("Ignoring achievement {} with unsupported trigger {}", a.getId(), a.getTrigger());
+                return null;
+            }
+            return new Trigger(statKey, value.asInt());
+        } catch (RuntimeException ex) {
+            logger.warn("Ignoring achievement {} with malformed trigger {}", a.getId(), a.getTrigger());
+            return null;
+        }
+    }
+
+    /**
+     * A compiled trigger: "stat {@code statKey} is at least {@code threshold}".
+     */
+    public record Trigger(String statKey, int threshold) {
+        public boolean matches(Map<String, Integer> stats) {
+            return stats.getOrDefault(statKey, 0) >= threshold;
+        }
+    }
+
+    private record Compiled(Trigger trigger, Achievement achievement) {}
+
+    /**
+     * Achievements for one stat, sorted by threshold.
+     */
+    record StatIndex(int[] thresholds, List<Achievement> achievements) {
+
+        /** Achievements with {@code threshold <= value}, lowest threshold first. */
+        List<Achievement> atOrBelow(int value) {
+            return achievements.subList(0, firstAbove(thresholds, value));
+        }
+
+        /** Index of the first threshold {@code > key} (or length). */
+        private static int firstAbove(int[] sorted, int key) {
+            int lo = 0;
+            int hi = sorted.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sorted[mid] <= key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * Immutable compiled view of all definitions.
+     *
+     * @param all every definition, in repository order
+     * @param byId definitions by id
+     * @param fields static fields by id (see {@link #staticFields}); callers copy before adding to them
+     */
+    public record Snapshot(
+            List<Achievement> all,
+            Map<String, StatIndex> byStat,
+            Map<Long, Achievement> byId,
+            Map<Long, Map<String, Object>> fields
+    ) {
+
+        /**
+         * @return every achievement on {@code statKey} with threshold {@code <= value}
+         */
+        public List<Achievement> reached(String statKey, int value) {
+            StatIndex index = byStat.get(statKey);
+            return index == null ? List.of() : index.atOrBelow(value);
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.sensum.backend.achievement;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
 import java.util.*;
 
 @Service
@@ -14,143 +18,219 @@ import java.util.*;
  */
 public class AchievementService {
 
-    @Autowired
-    private AchievementRepository achievementRepository;
+    private static final String INSERT_SQL =
+            "INSERT INTO user_achievements (user_id, achievement_id, unlocked_at) VALUES (?, ?, NOW()) " +
+                    "ON CONFLICT (user_id, achievement_id) DO NOTHING";
+
+    /**
+     * SQL expression per stat key (evaluated against {@code users u}). Fixed fragments only; requested keys
+     * are looked up here, never concatenated from input.
+     */
+    static final Map<String, String> STAT_COLUMNS;
+    static {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("questCount", "(SELECT COUNT(*) FROM quest_completions WHERE user_id = u.id)");
+        columns.put("streak", "u.streak");
+        columns.put("level", "u.level");
+        columns.put("friendCount", "(SELECT COUNT(*) FROM friendships WHERE user_id = u.id AND status = 'accepted')");
+        columns.put("buddySessionCount", "(SELECT COUNT(*) FROM buddy_session_participants " +
+                "WHERE user_id = u.id AND status = 'completed')");
+        STAT_COLUMNS = Collections.unmodifiableMap(columns);
+    }
 
     @Autowired
     private UserAchievementRepository userAchievementRepository;
 
+    @Autowired
+    private AchievementDefinitions achievementDefinitions;
+
+    @Autowired
+    private UnlockedAchievementCache unlockedCache;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+
+    /**
+     * Reads the user's current stats (one query) and unlocks every achievement they now qualify for.
+     *
+     * @return achievements newly unlocked during this call
+     */
+    public List<Achievement> evaluate(Long userId) {
+        return evaluate(userId, STAT_COLUMNS.keySet());
+    }
+
+    /**
+     * Incremental variant of {@link #evaluate(Long)}: reads only the given stats and only checks the
+     * achievements triggered by them.
+     *
+     * @param statKeys stat keys that changed (see {@link #STAT_COLUMNS})
+     * @return achievements newly unlocked during this call
+     */
+    public List<Achievement> evaluate(Long userId, Collection<String> statKeys) {
+        List<String> keys = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (String key : statKeys) {
+            String column = STAT_COLUMNS.get(key);
+            if (column == null) {
+                throw new IllegalArgumentException("Unknown stat: " + key);
+            }
+            if (!keys.isEmpty()) {
+                sql.append(", ");
+            }
+            sql.append(column);
+            keys.add(key);
+        }
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        sql.append(" FROM users u WHERE u.id = ?");
+
+        Map<String, Integer> userStats = jdbc.queryForObject(sql.toString(), (rs, i) -> {
+            Map<String, Integer> stats = new HashMap<>();
+            for (int c = 0; c < keys.size(); c++) {
+                stats.put(keys.get(c), rs.getInt(c + 1));
+            }
+            return stats;
+        }, userId);
+        return unlockAchievementsForUser(userId, userStats);
+    }
+
+    /**
+     * Maps a row with {@code level}, {@code streak}, {@code quest_count}, {@code friend_count} and
+     * {@code buddy_session_count} columns to
+     * the stat keys triggers are compiled against (see {@link AchievementDefinitions}).
+     */
+    static Map<String, Integer> statsOf(ResultSet rs) throws SQLException {
+        Map<String, Integer> stats = new HashMap<>();
+        stats.put("questCount", rs.getInt("quest_count"));
+        stats.put("streak", rs.getInt("streak"));
+        stats.put("level", rs.getInt("level"));
+        stats.put("friendCount", rs.getInt("friend_count"));
+        stats.put("buddySessionCount", rs.getInt("buddy_session_count"));
+        return stats;
+    }
+
     /**
         * Checks all defined achievements and unlocks those the user newly qualifies for.
         *
         * <p>Callers provide the current user stats snapshot. The method persists any newly unlocked
         * {@link UserAchievement} records and returns the corresponding {@link Achievement}s.
         *
+        * <p>Triggers are not parsed here: {@link AchievementDefinitions} keeps them compiled and sorted by
+        * threshold per stat, so each stat is a binary search over its thresholds. Already-unlocked
+        * achievements are filtered with {@link UnlockedAchievementCache} instead of a query per call.
+        *
         * @param userId id of the user being evaluated
         * @param userStats map of stat keys to values (e.g. questCount, streak, level, friendCount)
         * @return list of achievements newly unlocked during this call
      */
     public List<Achievement> unlockAchievementsForUser(Long userId, Map<String, Integer> userStats) {
-        List<Achievement> newAchievements = new ArrayList<>();
-        List<Achievement> allAchievements = achievementRepository.findAll();
+        AchievementDefinitions.Snapshot definitions = achievementDefinitions.current();
+        BitSet unlocked = unlockedCache.get(userId);
 
-        for (Achievement achievement : allAchievements) {
-            // Check if user already has this achievement
-            Optional<UserAchievement> existing = userAchievementRepository.findByUserIdAndAchievementId(userId, achievement.getId());
-            if (existing.isPresent()) {
-                continue; // Already unlocked
+        List<Achievement> candidates = new ArrayList<>();
+        for (Map.Entry<String, Integer> stat : userStats.entrySet()) {
+            if (stat.getValue() == null) {
+                continue;
             }
-
-            // Check if user meets the trigger condition
-            if (meetsTrigger(achievement.getTrigger(), userStats)) {
-                // Create the user achievement record
-                UserAchievement ua = new UserAchievement(userId, achievement.getId());
-                userAchievementRepository.save(ua);
-                newAchievements.add(achievement);
+            for (Achievement achievement : definitions.reached(stat.getKey(), stat.getValue())) {
+                int bit = Math.toIntExact(achievement.getId());
+                if (!unlocked.get(bit)) {
+                    unlocked.set(bit);
+                    candidates.add(achievement);
+                }
             }
         }
 
-        return newAchievements;
-    }
+        if (candidates.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-    /**
-        * Evaluates whether the given stats satisfy a stored trigger expression.
-        *
-        * <p>The trigger is currently stored as a small JSON string like:
-        * {@code {"type": "quest_count", "value": 3}}.
-     */
-    private boolean meetsTrigger(String triggerJson, Map<String, Integer> userStats) {
-        try {
-            // Simple string parsing instead of JsonNode
-            // Extract type and value from JSON string
-            // Format: {"type": "quest_count", "value": 1}
-            
-            String type = extractJsonValue(triggerJson, "type");
-            int requiredValue = Integer.parseInt(extractJsonValue(triggerJson, "value"));
-
-            switch (type) {
-                case "quest_count":
-                    return userStats.getOrDefault("questCount", 0) >= requiredValue;
-                case "streak":
-                    return userStats.getOrDefault("streak", 0) >= requiredValue;
-                case "level":
-                    return userStats.getOrDefault("level", 0) >= requiredValue;
-                case "friend_count":
-                    return userStats.getOrDefault("friendCount", 0) >= requiredValue;
-                default:
-                    return false;
+        // No read-before-write: the unique (user_id, achievement_id) constraint makes concurrent unlocks
+        // no-ops, and only rows this call actually inserted are reported as new.
+        int[][] counts = jdbc.batchUpdate(INSERT_SQL, candidates, candidates.size(), (ps, achievement) -> {
+            ps.setLong(1, userId);
+            ps.setLong(2, achievement.getId());
+        });
+
+        List<Achievement> newAchievements = new ArrayList<>();
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count != 0) {
+                    newAchievements.add(candidates.get(i));
+                }
+                i++;
             }
-        } catch (Exception e) {
-            return false;
         }
+
+        unlockedCache.markUnlocked(userId, candidates.stream().map(Achievement::getId).toList());
+        return newAchievements;
     }
 
     /**
-     * Extracts a simple value from a small JSON object string.
+     * Returns achievements unlocked by the user (most recent first) as
+     * {@code {id, name, description, icon, unlockedAt}}.
      *
-     * <p>This is intentionally lightweight (no JSON parser dependency here). It is not a general
-     * JSON parser and assumes the known trigger format.
+     * <p>One query for the unlocks; definitions come from the {@link AchievementDefinitions} snapshot.
      */
-    private String extractJsonValue(String json, String key) {
-        String searchStr = "\"" + key + "\":";
-        int start = json.indexOf(searchStr);
-        if (start == -1) return "";
-        
-        start = json.indexOf(":", start) + 1;
-        int end = json.indexOf(",", start);
-        if (end == -1) end = json.indexOf("}", start);
-        
-        String value = json.substring(start, end).trim();
-        return value.replaceAll("[\"\\s]", "");
+    public List<Map<String, Object>> getUserAchievements(Long userId) {
+        return withDefinitions(achievementDefinitions.current(), userAchievementRepository.findUnlocks(userId));
     }
 
     /**
-        * Returns achievements unlocked by the user.
+     * Returns achievements the user unlocked after {@code since} (oldest first).
+     *
+     * <p>Used by clients to pick up unlocks after a quest completion, since achievements are evaluated
+     * asynchronously.</p>
      */
-    public List<Map<String, Object>> getUserAchievements(Long userId) {
-        List<UserAchievement> userAchievements = userAchievementRepository.findByUserId(userId);
-        List<Map<String, Object>> result = new ArrayList<>();
-
-        for (UserAchievement ua : userAchievements) {
-            Optional<Achievement> achievement = achievementRepository.findById(ua.getAchievementId());
-            if (achievement.isPresent()) {
-                Achievement a = achievement.get();
-                Map<String, Object> map = new HashMap<>();
-                map.put("id", a.getId());
-                map.put("name", a.getName());
-                map.put("description", a.getDescription());
-                map.put("icon", a.getIcon());
-                map.put("unlockedAt", ua.getUnlockedAt());
-                result.add(map);
-            }
-        }
-
-        return result;
+    public List<Map<String, Object>> getAchievementsUnlockedSince(Long userId, Instant since) {
+        return withDefinitions(achievementDefinitions.current(),
+                userAchievementRepository.findUnlockedSince(userId, since));
     }
 
     /**
         * Returns all achievements and a boolean flag indicating whether the user has unlocked each.
      */
     public List<Map<String, Object>> getAllAchievements(Long userId) {
-        List<Achievement> all = achievementRepository.findAll();
-        List<UserAchievement> userAchievements = userAchievementRepository.findByUserId(userId);
+        AchievementDefinitions.Snapshot definitions = achievementDefinitions.current();
         Set<Long> unlockedIds = new HashSet<>();
-
-        for (UserAchievement ua : userAchievements) {
-            unlockedIds.add(ua.getAchievementId());
+        for (UserAchievementRepository.UnlockProjection unlock : userAchievementRepository.findUnlocks(userId)) {
+            unlockedIds.add(unlock.getAchievementId());
         }
 
         List<Map<String, Object>> result = new ArrayList<>();
-        for (Achievement a : all) {
-            Map<String, Object> map = new HashMap<>();
-            map.put("id", a.getId());
-            map.put("name", a.getName());
-            map.put("description", a.getDescription());
-            map.put("icon", a.getIcon());
+        for (Achievement a : definitions.all()) {
+            Map<String, Object> fields = definitions.fields().get(a.getId());
+            if (fields == null) {
+                continue;
+            }
+            Map<String, Object> map = new LinkedHashMap<>(fields);
             map.put("unlocked", unlockedIds.contains(a.getId()));
             result.add(map);
         }
+        return result;
+    }
 
+    /**
+     * Joins unlocks with their definitions' static fields; unlocks whose definition no longer exists are
+     * left out.
+     */
+    private static List<Map<String, Object>> withDefinitions(
+            AchievementDefinitions.Snapshot definitions,
+            List<UserAchievementRepository.UnlockProjection> unlocks
+    ) {
+        List<Map<String, Object>> result = new ArrayList<>(unlocks.size());
+        for (UserAchievementRepository.UnlockProjection unlock : unlocks) {
+            Map<String, Object> fields = definitions.fields().get(unlock.getAchievementId());
+            if (fields == null) {
+                continue;
+            }
+            Map<String, Object> map = new LinkedHashMap<>(fields);
+            map.put("unlockedAt", unlock.getUnlockedAt());
+            result.add(map);
+        }
         return result;
     }
-}
\ No newline at end of file
+}
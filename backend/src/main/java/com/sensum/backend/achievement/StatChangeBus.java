@@ -0,0 +1,108 @@
+package com.sensum.backend.achievement;
+
+import com.sensum.backend.observability.MetricsService;
+import com.sensum.backend.scheduling.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process bus for "a stat that achievements depend on changed" notifications.
+ *
+ * <h2>Why?</h2>
+ * Social endpoints (friend accept, buddy session end) change achievement stats but should not pay for an
+ * evaluation on the request path. They {@link #publish} the changed stat and return.
+ *
+ * <h2>Debouncing</h2>
+ * The first change for a user opens a {@link #WINDOW_MS}ms window (tracked in a {@link TimingWheel});
+ * further changes inside the window only add their stat key. When the window closes, one incremental
+ * evaluation runs for the user that reads and checks only the changed stats
+ * ({@link AchievementService#evaluate(Long, java.util.Collection)}).
+ *
+ * <h2>Delivery</h2>
+ * Best effort: pending changes are lost if the instance stops inside the window. Unlocks are never
+ * revoked, so a lost change is picked up by the user's next evaluation or by an
+ * {@link AchievementBackfillJob}. /metrics shows {@code achievements.pendingEvaluations}.
+ */
+@Component
+public class StatChangeBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatChangeBus.class);
+
+    /** Coalescing window per user. */
+    static final long WINDOW_MS = 2_000;
+
+    private final AchievementService achievementService;
+
+    /** userId -> stat keys changed in the open window. */
+    private final Map<Long, Set<String>> pending = new ConcurrentHashMap<>();
+
+    private final TimingWheel<Long> wheel = new TimingWheel<>(250, 64, System.currentTimeMillis());
+
+    public StatChangeBus(AchievementService achievementService) {
+        this.achievementService = achievementService;
+        MetricsService.registerGauge("achievements.pendingEvaluations", pending::size);
+    }
+
+    /**
+     * Records that {@code statKey} changed for the user. Inside a transaction, the change is published
+     * after commit, so evaluation sees the committed data.
+     *
+     * @param statKey stat key as used by triggers (e.g. {@code friendCount})
+     */
+    public void publish(Long userId, String statKey) {
+        if (!AchievementService.STAT_COLUMNS.containsKey(statKey)) {
+            throw new IllegalArgumentException("Unknown stat: " + statKey);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(userId, statKey);
+                }
+            });
+        } else {
+            add(userId, statKey);
+        }
+    }
+
+    private void add(Long userId, String statKey) {
+        pending.compute(userId, (id, stats) -> {
+            if (stats == null) {
+                stats = ConcurrentHashMap.newKeySet();
+                wheel.schedule(id, System.currentTimeMillis() + WINDOW_MS);
+            }
+            stats.add(statKey);
+            return stats;
+        });
+    }
+
+    /**
+     * Evaluates users whose window closed. Runs every 250ms; each run only touches the elapsed wheel buckets.
+     */
+    @Scheduled(fixedDelay = 250)
+    public void flush() {
+        flush(System.currentTimeMillis());
+    }
+
+    void flush(long nowMillis) {
+        for (Long userId : wheel.advance(nowMillis)) {
+            Set<String> stats = pending.remove(userId);
+            if (stats == null) {
+                continue;
+            }
+            try {
+                achievementService.evaluate(userId, stats);
+            } catch (RuntimeException ex) {
+                logger.warn("Achievement evaluation for user {} ({}) failed", userId, stats, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.sensum.backend.achievement;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-user set of unlocked achievement ids, kept as a {@link BitSet} indexed by achievement id.
+ *
+ * <h2>Why?</h2>
+ * Achievement evaluation runs after every quest completion. Loading the user's unlocked achievements from
+ * {@code user_achievements} each time costs a query (and a row per unlock) just to filter candidates. Ids
+ * are small sequential numbers, so a bitset holds a user's whole unlock history in a few words.
+ *
+ * <h2>Consistency</h2>
+ * The cache is only a filter. The unique constraint on {@code (user_id, achievement_id)} decides what is
+ * actually unlocked: inserts use {@code ON CONFLICT DO NOTHING}, so a stale cache (another instance, a
+ * concurrent completion) costs at most a no-op insert, never a duplicate unlock. Bits are added only after
+ * the inserting transaction commits, so a rollback cannot hide an achievement.
+ *
+ * <h2>Eviction</h2>
+ * Bounded LRU of {@value #CACHE_SIZE} users; evicted users are reloaded with one query on next use.
+ */
+@Component
+public class UnlockedAchievementCache {
+
+    /** Maximum number of users kept in memory. */
+    static final int CACHE_SIZE = 10_000;
+
+    private final JdbcTemplate jdbc;
+
+    /** Access-ordered LRU; guarded by {@code this}. */
+    private final LinkedHashMap<Long, BitSet> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BitSet> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    public UnlockedAchievementCache(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * @return a private copy of the user's unlocked achievement ids (loaded on a cache miss)
+     */
+    public BitSet get(Long userId) {
+        synchronized (this) {
+            BitSet cached = cache.get(userId);
+            if (cached != null) {
+                return (BitSet) cached.clone();
+            }
+        }
+
+        BitSet loaded = new BitSet();
+        jdbc.query("SELECT achievement_id FROM user_achievements WHERE user_id = ?",
+                rs -> {
+                    loaded.set(Math.toIntExact(rs.getLong(1)));
+                },
+                userId);
+
+        synchronized (this) {
+            BitSet existing = cache.putIfAbsent(userId, loaded);
+            return (BitSet) (existing != null ? existing : loaded).clone();
+        }
+    }
+
+    /**
+     * Records new unlocks for a cached user. Deferred until commit when called inside a transaction.
+     */
+    public void markUnlocked(Long userId, Collection<Long> achievementIds) {
+        if (achievementIds.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(userId, achievementIds);
+                }
+            });
+        } else {
+            apply(userId, achievementIds);
+        }
+    }
+
+    /**
+     * Drops a user's cached set (e.g. after achievements were removed).
+     */
+    public synchronized void invalidate(Long userId) {
+        cache.remove(userId);
+    }
+
+    private synchronized void apply(Long userId, Collection<Long> achievementIds) {
+        BitSet cached = cache.get(userId);
+        if (cached == null) {
+            return; // Not cached: the next get() loads it from the database.
+        }
+        for (Long id : achievementIds) {
+            cached.set(Math.toIntExact(id));
+        }
+    }
+}
@@ -3,8 +3,8 @@ package com.sensum.backend.achievement;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.time.Instant;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * Repository for {@link UserAchievement} rows.
@@ -18,14 +18,33 @@ public interface UserAchievementRepository extends JpaRepository<UserAchievement
     List<UserAchievement> findByUserId(@Param("userId") Long userId);
     
     /**
-     * Looks up whether the user has already unlocked an achievement.
+     * Returns the ids and unlock times of a user's achievements, most recent first.
+     *
+     * <p>Definitions are joined in memory from {@link AchievementDefinitions}, so this is the only query
+     * the achievements pages need.</p>
      */
-    @Query("SELECT ua FROM UserAchievement ua WHERE ua.userId = :userId AND ua.achievementId = :achievementId")
-    Optional<UserAchievement> findByUserIdAndAchievementId(@Param("userId") Long userId, @Param("achievementId") Long achievementId);
-    
+    @Query("SELECT ua.achievementId AS achievementId, ua.unlockedAt AS unlockedAt FROM UserAchievement ua " +
+            "WHERE ua.userId = :userId ORDER BY ua.unlockedAt DESC")
+    List<UnlockProjection> findUnlocks(@Param("userId") Long userId);
+
+    /**
+     * Returns a user's achievements unlocked after {@code since}, oldest first.
+     */
+    @Query("SELECT ua.achievementId AS achievementId, ua.unlockedAt AS unlockedAt FROM UserAchievement ua " +
+            "WHERE ua.userId = :userId AND ua.unlockedAt > :since ORDER BY ua.unlockedAt")
+    List<UnlockProjection> findUnlockedSince(@Param("userId") Long userId, @Param("since") Instant since);
+
     /**
      * Counts unlocked achievements for a user.
      */
     @Query("SELECT COUNT(ua) FROM UserAchievement ua WHERE ua.userId = :userId")
     int countByUserId(@Param("userId") Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Projection interface for {@link #findUnlocks(Long)} and {@link #findUnlockedSince(Long, Instant)}.
+     */
+    interface UnlockProjection {
+        Long getAchievementId();
+        Instant getUnlockedAt();
+    }
+}
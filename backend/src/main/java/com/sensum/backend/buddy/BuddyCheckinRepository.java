@@ -15,10 +15,4 @@ public interface BuddyCheckinRepository extends JpaRepository<BuddyCheckin, Long
      */
     @Query("SELECT b FROM BuddyCheckin b WHERE b.sessionId = :sessionId ORDER BY b.createdAt DESC")
     List<BuddyCheckin> findBySessionId(@Param("sessionId") Long sessionId);
-
-    /**
-     * Returns check-ins for a specific user within a session (most recent first).
-     */
-    @Query("SELECT b FROM BuddyCheckin b WHERE b.sessionId = :sessionId AND b.userId = :userId ORDER BY b.createdAt DESC")
-    List<BuddyCheckin> findBySessionIdAndUserId(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
 }
\ No newline at end of file
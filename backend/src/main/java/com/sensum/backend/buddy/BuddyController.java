@@ -1,11 +1,15 @@
 package com.sensum.backend.buddy;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import com.sensum.backend.achievement.StatChangeBus;
+import com.sensum.backend.pagination.CursorPage;
+import com.sensum.backend.pagination.KeysetCursor;
 import com.sensum.backend.user.UserRepository;
 
-import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,8 +23,10 @@ import jakarta.servlet.http.HttpServletRequest;
 /**
  * Accountability buddy endpoints for starting and managing a focused session with a friend.
  *
- * <p>Sessions are persisted via {@link BuddySessionRepository} and status updates are stored as
- * {@link BuddyCheckin} rows.
+ * <p>Session lifecycle changes go through {@link BuddySessionService} (which also maintains the
+ * per-participant rows used for listing) and status updates are stored as {@link BuddyCheckin} rows.
+ * Participants can follow a session live through {@code GET /buddy/session/{id}/events}
+ * (see {@link BuddySessionEvents}).
  *
  * <h2>Authentication</h2>
  * Requires the JWT cookie; requests are authorized by verifying that the requested user id
@@ -34,9 +40,21 @@ public class BuddyController {
     @Autowired
     private BuddyCheckinRepository checkinRepository;
 
+    @Autowired
+    private BuddySessionService sessionService;
+
+    @Autowired
+    private BuddySessionList sessionList;
+
+    @Autowired
+    private BuddySessionEvents sessionEvents;
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private StatChangeBus statChanges;
+
     // Request DTOs (data classes for receiving JSON from frontend)
     public static class StartSessionRequest {
         public Long userId;
@@ -82,8 +100,7 @@ public class BuddyController {
             return ResponseEntity.badRequest().body(Map.of("error", "User not found"));
         }
 
-        BuddySession session = new BuddySession(req.userId, req.friendId, req.mode, req.durationMinutes);
-        BuddySession saved = sessionRepository.save(session);
+        BuddySession saved = sessionService.start(req.userId, req.friendId, req.mode, req.durationMinutes);
 
         return ResponseEntity.ok(Map.of(
                 "id", saved.getId(),
@@ -124,11 +141,7 @@ public class BuddyController {
         }
 
         // If pending, make it active
-        if ("pending".equals(session.getStatus())) {
-            session.setStatus("active");
-            session.setStartedAt(Instant.now());
-            sessionRepository.save(session);
-        }
+        session = sessionService.join(session);
 
         return ResponseEntity.ok(Map.of(
                 "id", session.getId(),
@@ -166,6 +179,7 @@ public class BuddyController {
 
         BuddyCheckin checkin = new BuddyCheckin(req.sessionId, req.userId, req.status);
         BuddyCheckin saved = checkinRepository.save(checkin);
+        sessionEvents.checkin(saved);
 
         return ResponseEntity.ok(Map.of(
                 "id", saved.getId(),
@@ -174,12 +188,20 @@ public class BuddyController {
         ));
     }
 
-    // GET /buddy/list?userId=1 - Get all sessions for a user
+    // GET /buddy/list?userId=1 - Get a user's sessions, one page at a time
     @GetMapping("/list")
     /**
-     * Lists sessions for the authenticated user.
+     * Lists sessions for the authenticated user, newest first, with each participant's latest check-in:
+     * {@code {items, nextCursor}}. {@code open=true} leaves out completed sessions. One query per page
+     * (see {@link BuddySessionList}).
      */
-    public ResponseEntity<?> listSessions(@RequestParam Long userId, HttpServletRequest request) {
+    public ResponseEntity<?> listSessions(
+            @RequestParam Long userId,
+            @RequestParam(name = "open", defaultValue = "false") boolean openOnly,
+            @RequestParam(name = "limit", defaultValue = "20") int limit,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            HttpServletRequest request
+    ) {
         Long authedUserId = (Long) request.getAttribute("userId");
         if (authedUserId == null) {
             return ResponseEntity.status(401).build();
@@ -187,37 +209,8 @@ public class BuddyController {
         if (!authedUserId.equals(userId)) {
             return ResponseEntity.status(403).build();
         }
-        List<BuddySession> sessions = sessionRepository.findByUserId(userId);
-
-        List<Map<String, Object>> result = sessions.stream().map(session -> {
-            Map<String, Object> sessionMap = new HashMap<>();
-            sessionMap.put("id", session.getId());
-            sessionMap.put("userAId", session.getUserAId());
-            sessionMap.put("userBId", session.getUserBId());
-            sessionMap.put("mode", session.getMode());
-            sessionMap.put("durationMinutes", session.getDurationMinutes());
-            sessionMap.put("status", session.getStatus());
-            sessionMap.put("startedAt", session.getStartedAt());
-            sessionMap.put("endedAt", session.getEndedAt());
-            sessionMap.put("createdAt", session.getCreatedAt());
-
-            // Get latest check-in from each user
-            List<BuddyCheckin> checkinsA = checkinRepository.findBySessionIdAndUserId(session.getId(), session.getUserAId());
-            List<BuddyCheckin> checkinsB = checkinRepository.findBySessionIdAndUserId(session.getId(), session.getUserBId());
-
-            sessionMap.put("latestCheckinUserA", !checkinsA.isEmpty() ? Map.of(
-                    "status", checkinsA.get(0).getStatus(),
-                    "createdAt", checkinsA.get(0).getCreatedAt()
-            ) : null);
-            sessionMap.put("latestCheckinUserB", !checkinsB.isEmpty() ? Map.of(
-                    "status", checkinsB.get(0).getStatus(),
-                    "createdAt", checkinsB.get(0).getCreatedAt()
-            ) : null);
-
-            return sessionMap;
-        }).toList();
-
-        return ResponseEntity.ok(result);
+        int safeLimit = CursorPage.clampLimit(limit, 100);
+        return ResponseEntity.ok(sessionList.page(userId, openOnly, KeysetCursor.decode(cursor), safeLimit));
     }
 
     // GET /buddy/session/{id} - Get session with all check-ins
@@ -259,6 +252,43 @@ public class BuddyController {
         return ResponseEntity.ok(result);
     }
 
+    // GET /buddy/session/{id}/events - Live check-ins and status changes (Server-Sent Events)
+    @GetMapping(value = "/session/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    /**
+     * Streams the session's {@code checkin} and {@code status} events to a participant. Returns 410 for a
+     * completed session (nothing more will be sent) and 429 when the user already has too many streams
+     * open.
+     */
+    public ResponseEntity<SseEmitter> sessionEvents(@PathVariable Long id, HttpServletRequest request) {
+        Long authedUserId = (Long) request.getAttribute("userId");
+        if (authedUserId == null) {
+            return ResponseEntity.status(401).build();
+        }
+        Optional<BuddySession> optSession = sessionRepository.findById(id);
+        if (optSession.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        BuddySession session = optSession.get();
+        if (!session.getUserAId().equals(authedUserId) && !session.getUserBId().equals(authedUserId)) {
+            return ResponseEntity.status(403).build();
+        }
+        if (BuddySessionService.STATUS_COMPLETED.equals(session.getStatus())) {
+            return ResponseEntity.status(410).build();
+        }
+        SseEmitter emitter = sessionEvents.subscribe(id, authedUserId);
+        if (emitter == null) {
+            return ResponseEntity.status(429).build();
+        }
+        // The session may have ended after the check above but before subscribe(), so its last event
+        // missed this stream.
+        if (BuddySessionService.STATUS_COMPLETED.equals(sessionRepository.findStatusById(id))) {
+            sessionEvents.unsubscribe(id, emitter);
+            return ResponseEntity.status(410).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
     // POST /buddy/end - Mark session as completed
     @PostMapping("/end")
     /**
@@ -285,9 +315,11 @@ public class BuddyController {
         if (!session.getUserAId().equals(req.userId) && !session.getUserBId().equals(req.userId)) {
             return ResponseEntity.status(403).build();
         }
-        session.setStatus("completed");
-        session.setEndedAt(Instant.now());
-        sessionRepository.save(session);
+        session = sessionService.end(session);
+
+        // Completed-session counts changed for both participants (debounced, async).
+        statChanges.publish(session.getUserAId(), "buddySessionCount");
+        statChanges.publish(session.getUserBId(), "buddySessionCount");
 
         return ResponseEntity.ok(Map.of(
                 "id", session.getId(),
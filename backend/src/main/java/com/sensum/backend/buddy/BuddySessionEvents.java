@@ -0,0 +1,320 @@
+package com.sensum.backend.buddy;
+
+import com.sensum.backend.observability.MetricsService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process pub/sub for live buddy session updates, delivered as Server-Sent Events.
+ *
+ * <h2>Why?</h2>
+ * The buddy page used to poll for new check-ins. Participants now {@link #subscribe} to a session and
+ * are pushed {@code checkin} events (new {@link BuddyCheckin} rows) and {@code status} events (join, end)
+ * as they happen. Streams of a session are closed after its {@code completed} status is sent.
+ *
+ * <h2>Threads</h2>
+ * Streams use servlet async support: once the endpoint returns its {@link SseEmitter}, the request
+ * thread goes back to the pool and an idle connection holds no thread. Events and heartbeats are only
+ * queued by the publishing thread (after commit) or the scheduler; {@value #SENDER_THREADS} sender
+ * threads write them, one stream at a time and in order, so a slow client never blocks a request or a
+ * scheduled job.
+ *
+ * <h2>Limits</h2>
+ * At most {@value #MAX_CONNECTIONS_PER_USER} open streams per user (further subscribes are refused). A
+ * comment line is sent every {@value #HEARTBEAT_MS}ms so proxies keep idle streams open and dead clients
+ * are noticed; streams time out after {@value #TIMEOUT_MS}ms and the browser reconnects. A stream with
+ * more than {@value #MAX_PENDING_EVENTS} unsent events is closed instead of buffering for a client that
+ * cannot keep up.
+ *
+ * <h2>Delivery</h2>
+ * Best effort and local to this instance: clients connected to another instance, or reconnecting, miss
+ * events and should reload the session when the stream (re)opens. /metrics shows
+ * {@code buddy.sseConnections}.
+ */
+@Component
+public class BuddySessionEvents {
+
+    static final int MAX_CONNECTIONS_PER_USER = 5;
+    static final long HEARTBEAT_MS = 15_000;
+    static final long TIMEOUT_MS = 30 * 60 * 1000;
+
+    /** Reconnect delay suggested to the browser. */
+    static final long RETRY_MS = 5_000;
+
+    static final int SENDER_THREADS = 4;
+    static final int MAX_PENDING_EVENTS = 100;
+
+    /** Streams waiting for a sender thread. */
+    private static final int MAX_QUEUED_STREAMS = 10_000;
+
+    private record Outgoing(SseEmitter.SseEventBuilder event, boolean last) {}
+
+    private static final class Subscriber {
+        final long sessionId;
+        final long userId;
+        final SseEmitter emitter;
+        final AtomicBoolean closed = new AtomicBoolean();
+
+        /** Unsent events, oldest first; written by at most one sender task at a time. */
+        final Queue<Outgoing> outbox = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pending = new AtomicInteger();
+        final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(long sessionId, long userId, SseEmitter emitter) {
+            this.sessionId = sessionId;
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+    }
+
+    /** sessionId -> open streams. */
+    private final Map<Long, Set<Subscriber>> bySession = new ConcurrentHashMap<>();
+
+    /** userId -> number of open streams. */
+    private final Map<Long, Integer> perUser = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final Executor sender;
+
+    public BuddySessionEvents() {
+        this(newSender());
+    }
+
+    BuddySessionEvents(Executor sender) {
+        this.sender = sender;
+        MetricsService.registerGauge("buddy.sseConnections", connections::get);
+    }
+
+    private static ExecutorService newSender() {
+        AtomicInteger threads = new AtomicInteger();
+        return new ThreadPoolExecutor(SENDER_THREADS, SENDER_THREADS, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(MAX_QUEUED_STREAMS), r -> {
+                    Thread t = new Thread(r, "buddy-sse-" + threads.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Opens a stream of the session's events for one of its participants (the caller checks that).
+     *
+     * @return the stream, or null if the user already has {@value #MAX_CONNECTIONS_PER_USER} open
+     */
+    public SseEmitter subscribe(long sessionId, long userId) {
+        boolean[] admitted = {false};
+        perUser.compute(userId, (id, open) -> {
+            int n = open == null ? 0 : open;
+            if (n >= MAX_CONNECTIONS_PER_USER) {
+                return open;
+            }
+            admitted[0] = true;
+            return n + 1;
+        });
+        if (!admitted[0]) {
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(TIMEOUT_MS);
+        Subscriber sub = new Subscriber(sessionId, userId, emitter);
+        bySession.compute(sessionId, (id, subs) -> {
+            if (subs == null) {
+                subs = ConcurrentHashMap.newKeySet();
+            }
+            subs.add(sub);
+            return subs;
+        });
+        connections.incrementAndGet();
+
+        emitter.onCompletion(() -> remove(sub));
+        emitter.onTimeout(() -> remove(sub));
+        emitter.onError(ex -> remove(sub));
+        send(sub, SseEmitter.event().reconnectTime(RETRY_MS).comment("connected"));
+        return emitter;
+    }
+
+    /**
+     * Closes a stream returned by {@link #subscribe} that is not handed to the client after all.
+     */
+    public void unsubscribe(long sessionId, SseEmitter emitter) {
+        Set<Subscriber> subs = bySession.get(sessionId);
+        if (subs == null) {
+            return;
+        }
+        for (Subscriber sub : subs) {
+            if (sub.emitter == emitter) {
+                close(sub);
+            }
+        }
+    }
+
+    /**
+     * Pushes a new check-in to the session's streams (after commit inside a transaction).
+     */
+    public void checkin(BuddyCheckin checkin) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", checkin.getId());
+        data.put("userId", checkin.getUserId());
+        data.put("status", checkin.getStatus());
+        data.put("createdAt", checkin.getCreatedAt());
+        publish(checkin.getSessionId(), "checkin", data, false);
+    }
+
+    /**
+     * Pushes the session's current status to its streams (after commit inside a transaction). A
+     * {@code completed} status is the last event; the streams are closed after it.
+     */
+    public void statusChanged(BuddySession session) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", session.getId());
+        data.put("status", session.getStatus());
+        data.put("startedAt", session.getStartedAt());
+        data.put("endedAt", session.getEndedAt());
+        publish(session.getId(), "status", data,
+                BuddySessionService.STATUS_COMPLETED.equals(session.getStatus()));
+    }
+
+    private void publish(long sessionId, String name, Object data, boolean last) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(sessionId, name, data, last);
+                }
+            });
+        } else {
+            deliver(sessionId, name, data, last);
+        }
+    }
+
+    private void deliver(long sessionId, String name, Object data, boolean last) {
+        Set<Subscriber> subs = bySession.get(sessionId);
+        if (subs == null) {
+            return;
+        }
+        for (Subscriber sub : subs) {
+            enqueue(sub, SseEmitter.event().name(name).data(data), last);
+        }
+    }
+
+    /**
+     * Queues a comment line on every open stream that has nothing else to send. Runs every
+     * {@value #HEARTBEAT_MS}ms.
+     */
+    @Scheduled(fixedDelay = HEARTBEAT_MS, initialDelay = HEARTBEAT_MS)
+    public void heartbeat() {
+        for (Set<Subscriber> subs : bySession.values()) {
+            for (Subscriber sub : subs) {
+                if (sub.outbox.isEmpty()) {
+                    enqueue(sub, SseEmitter.event().comment("ping"), false);
+                }
+            }
+        }
+    }
+
+    private void enqueue(Subscriber sub, SseEmitter.SseEventBuilder event, boolean last) {
+        if (sub.closed.get()) {
+            return;
+        }
+        if (sub.pending.incrementAndGet() > MAX_PENDING_EVENTS) {
+            close(sub);
+            return;
+        }
+        sub.outbox.add(new Outgoing(event, last));
+        startDraining(sub);
+    }
+
+    private void startDraining(Subscriber sub) {
+        if (!sub.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sender.execute(() -> drain(sub));
+        } catch (RejectedExecutionException ex) {
+            sub.draining.set(false);
+            close(sub);
+        }
+    }
+
+    /**
+     * Writes the stream's queued events on a sender thread.
+     */
+    private void drain(Subscriber sub) {
+        Outgoing next;
+        while ((next = sub.outbox.poll()) != null) {
+            sub.pending.decrementAndGet();
+            if (!sub.closed.get() && send(sub, next.event()) && next.last()) {
+                close(sub);
+            }
+        }
+        sub.draining.set(false);
+        // An event queued after the last poll but before the flag was cleared found a drain running.
+        if (!sub.outbox.isEmpty()) {
+            startDraining(sub);
+        }
+    }
+
+    /**
+     * @return number of open streams
+     */
+    int connectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * @return false (and drops the subscriber) if the client is gone
+     */
+    private boolean send(Subscriber sub, SseEmitter.SseEventBuilder event) {
+        try {
+            sub.emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            remove(sub);
+            return false;
+        }
+    }
+
+    private void close(Subscriber sub) {
+        remove(sub);
+        sub.emitter.complete();
+    }
+
+    private void remove(Subscriber sub) {
+        if (!sub.closed.compareAndSet(false, true)) {
+            return;
+        }
+        bySession.computeIfPresent(sub.sessionId, (id, subs) -> {
+            subs.remove(sub);
+            return subs.isEmpty() ? null : subs;
+        });
+        perUser.computeIfPresent(sub.userId, (id, open) -> open <= 1 ? null : open - 1);
+        connections.decrementAndGet();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (sender instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.sensum.backend.buddy;
+
+import com.sensum.backend.achievement.StatChangeBus;
+import com.sensum.backend.observability.MetricsService;
+import com.sensum.backend.scheduling.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ends active buddy sessions once their {@code durationMinutes} (plus a grace period) have passed, so
+ * abandoned sessions do not stay {@code active} forever.
+ *
+ * <h2>Deadlines</h2>
+ * When a session is joined ({@link BuddySessionService#join}) its deadline is registered in a
+ * {@link TimingWheel}. A scheduled tick collects the elapsed deadlines and completes those sessions with
+ * one {@code UPDATE} per batch of up to {@value #BATCH_SIZE}, which also syncs the participant rows. No
+ * periodic scan of {@code buddy_sessions} is needed.
+ *
+ * <h2>Correctness</h2>
+ * The wheel decides when a session is due; the UPDATE only re-checks that it is still {@code active}, so
+ * wheel entries for sessions that were ended by hand (or expired by another instance) are harmless. The
+ * deadline is deliberately not re-checked in SQL: the entry has already left the wheel, and a database
+ * clock that runs behind this instance's would otherwise leave the session active for good. On startup
+ * the wheel is rebuilt from the active sessions; deadlines that passed while the instance was down
+ * expire on the first tick.
+ *
+ * <h2>Side effects</h2>
+ * Like {@code /buddy/end}: participants' {@code buddySessionCount} changes are published to the
+ * {@link StatChangeBus} and a {@code completed} status is pushed to live streams
+ * ({@link BuddySessionEvents}). /metrics shows {@code buddy.scheduledExpiries} and
+ * {@code buddy.sessionsExpired}.
+ */
+@Component
+public class BuddySessionExpiry {
+
+    private static final Logger logger = LoggerFactory.getLogger(BuddySessionExpiry.class);
+
+    /** Time after the planned end before a session is expired, so participants can still wrap up. */
+    static final long GRACE_MS = 5 * 60 * 1000;
+
+    /** Sessions completed per UPDATE. */
+    static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbc;
+    private final BuddySessionEvents events;
+    private final StatChangeBus statChanges;
+
+    private final TimingWheel<Long> wheel = new TimingWheel<>(1000, 512, System.currentTimeMillis());
+    private final AtomicLong expired = new AtomicLong();
+
+    public BuddySessionExpiry(JdbcTemplate jdbc, BuddySessionEvents events, StatChangeBus statChanges) {
+        this.jdbc = jdbc;
+        this.events = events;
+        this.statChanges = statChanges;
+        MetricsService.registerGauge("buddy.scheduledExpiries", wheel::size);
+        MetricsService.registerGauge("buddy.sessionsExpired", expired::get);
+    }
+
+    /**
+     * Registers the deadline of an active session (after commit inside a transaction). Sessions without
+     * a start time or duration never expire.
+     */
+    public void schedule(BuddySession session) {
+        if (session.getStartedAt() == null || session.getDurationMinutes() == null) {
+            return;
+        }
+        Long id = session.getId();
+        long deadline = session.getStartedAt().toEpochMilli() + session.getDurationMinutes() * 60_000L + GRACE_MS;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wheel.schedule(id, deadline);
+                }
+            });
+        } else {
+            wheel.schedule(id, deadline);
+        }
+    }
+
+    /**
+     * Reloads the deadlines of active sessions once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        int[] loaded = {0};
+        jdbc.query("SELECT id, started_at, duration_minutes FROM buddy_sessions " +
+                        "WHERE status = '" + BuddySessionService.STATUS_ACTIVE + "' " +
+                        "AND started_at IS NOT NULL AND duration_minutes IS NOT NULL",
+                rs -> {
+                    long deadline = rs.getTimestamp("started_at").getTime()
+                            + rs.getInt("duration_minutes") * 60_000L + GRACE_MS;
+                    wheel.schedule(rs.getLong("id"), deadline);
+                    loaded[0]++;
+                });
+        logger.info("Scheduled expiry for {} active buddy sessions", loaded[0]);
+    }
+
+    /**
+     * Completes sessions whose deadline passed. Runs every second; each run only touches the elapsed
+     * wheel buckets.
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void expire() {
+        expire(System.currentTimeMillis());
+    }
+
+    void expire(long nowMillis) {
+        List<Long> due = wheel.advance(nowMillis);
+        for (int from = 0; from < due.size(); from += BATCH_SIZE) {
+            List<Long> batch = due.subList(from, Math.min(from + BATCH_SIZE, due.size()));
+            try {
+                for (BuddySession session : complete(batch)) {
+                    expired.incrementAndGet();
+                    statChanges.publish(session.getUserAId(), "buddySessionCount");
+                    statChanges.publish(session.getUserBId(), "buddySessionCount");
+                    events.statusChanged(session);
+                }
+            } catch (RuntimeException ex) {
+                logger.warn("Expiring {} buddy sessions failed", batch.size(), ex);
+            }
+        }
+    }
+
+    /**
+     * Completes the given sessions that are still active, in one statement.
+     *
+     * @return the sessions that were completed
+     */
+    private List<BuddySession> complete(List<Long> ids) {
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        String sql = "WITH done AS (" +
+                "  UPDATE buddy_sessions SET status = '" + BuddySessionService.STATUS_COMPLETED + "', ended_at = NOW() " +
+                "  WHERE id IN (" + placeholders + ") AND status = '" + BuddySessionService.STATUS_ACTIVE + "' " +
+                "  RETURNING id, user_a_id, user_b_id, started_at, ended_at" +
+                "), participants AS (" +
+                "  UPDATE buddy_session_participants p SET status = '" + BuddySessionService.STATUS_COMPLETED + "' " +
+                "  FROM done WHERE p.session_id = done.id" +
+                ") " +
+                "SELECT id, user_a_id, user_b_id, started_at, ended_at FROM done";
+
+        List<BuddySession> done = new ArrayList<>();
+        jdbc.query(sql, rs -> {
+            BuddySession session = new BuddySession();
+            session.setId(rs.getLong("id"));
+            session.setUserAId(rs.getLong("user_a_id"));
+            session.setUserBId(rs.getLong("user_b_id"));
+            session.setStatus(BuddySessionService.STATUS_COMPLETED);
+            session.setStartedAt(rs.getTimestamp("started_at").toInstant());
+            session.setEndedAt(rs.getTimestamp("ended_at").toInstant());
+            done.add(session);
+        }, ids.toArray());
+        return done;
+    }
+}
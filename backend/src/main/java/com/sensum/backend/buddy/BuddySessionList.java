@@ -0,0 +1,113 @@
+package com.sensum.backend.buddy;
+
+import com.sensum.backend.pagination.CursorPage;
+import com.sensum.backend.pagination.KeysetCursor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a page of a user's buddy sessions with each participant's latest check-in, in one query.
+ *
+ * <p>The user's sessions are one index range scan on {@code buddy_session_participants
+ * (user_id, created_at DESC, session_id DESC)} (a partial index when only open sessions are requested),
+ * cut to the page size before the sessions are joined. Each participant's latest check-in is a
+ * {@code LATERAL ... LIMIT 1} seek on {@code (session_id, user_id, created_at DESC)}. The cost depends on
+ * the page size only, not on how many sessions or check-ins the user has.
+ */
+@Component
+public class BuddySessionList {
+
+    private static final String LATEST_CHECKIN =
+            "LEFT JOIN LATERAL (" +
+                    "  SELECT c.status, c.created_at FROM buddy_checkins c " +
+                    "  WHERE c.session_id = s.id AND c.user_id = s.%1$s " +
+                    "  ORDER BY c.created_at DESC, c.id DESC LIMIT 1" +
+                    ") %2$s ON TRUE ";
+
+    public record LatestCheckin(String status, Instant createdAt) {
+    }
+
+    public record SessionSummary(
+            Long id,
+            Long userAId,
+            Long userBId,
+            String mode,
+            Integer durationMinutes,
+            String status,
+            Instant startedAt,
+            Instant endedAt,
+            Instant createdAt,
+            LatestCheckin latestCheckinUserA,
+            LatestCheckin latestCheckinUserB
+    ) {
+    }
+
+    private final JdbcTemplate jdbc;
+
+    public BuddySessionList(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Returns one page of the user's sessions, newest first.
+     *
+     * @param openOnly only sessions that are not completed
+     * @param after position of the last session of the previous page, or null for the first page
+     */
+    public CursorPage<SessionSummary> page(long userId, boolean openOnly, KeysetCursor after, int limit) {
+        String sql = "SELECT s.id, s.user_a_id, s.user_b_id, s.mode, s.duration_minutes, s.status, " +
+                "  s.started_at, s.ended_at, p.created_at, " +
+                "  ca.status AS a_status, ca.created_at AS a_at, cb.status AS b_status, cb.created_at AS b_at " +
+                "FROM (" +
+                "  SELECT session_id, created_at FROM buddy_session_participants " +
+                "  WHERE user_id = ? " +
+                (openOnly ? "AND status <> 'completed' " : "") +
+                (after == null ? "" : "AND (created_at, session_id) < (?, ?) ") +
+                "  ORDER BY created_at DESC, session_id DESC LIMIT ?" +
+                ") p " +
+                "JOIN buddy_sessions s ON s.id = p.session_id " +
+                String.format(LATEST_CHECKIN, "user_a_id", "ca") +
+                String.format(LATEST_CHECKIN, "user_b_id", "cb") +
+                "ORDER BY p.created_at DESC, p.session_id DESC";
+
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+        if (after != null) {
+            args.add(Timestamp.from(after.at()));
+            args.add(after.id());
+        }
+        args.add(limit + 1);
+
+        List<SessionSummary> rows = jdbc.query(sql, (rs, i) -> new SessionSummary(
+                rs.getLong("id"),
+                rs.getLong("user_a_id"),
+                rs.getLong("user_b_id"),
+                rs.getString("mode"),
+                rs.getObject("duration_minutes", Integer.class),
+                rs.getString("status"),
+                instant(rs, "started_at"),
+                instant(rs, "ended_at"),
+                instant(rs, "created_at"),
+                checkin(rs, "a_status", "a_at"),
+                checkin(rs, "b_status", "b_at")
+        ), args.toArray());
+        return CursorPage.of(rows, limit, s -> new KeysetCursor(s.createdAt(), s.id()));
+    }
+
+    private static LatestCheckin checkin(ResultSet rs, String statusColumn, String atColumn) throws SQLException {
+        String status = rs.getString(statusColumn);
+        return status == null ? null : new LatestCheckin(status, instant(rs, atColumn));
+    }
+
+    private static Instant instant(ResultSet rs, String column) throws SQLException {
+        Timestamp ts = rs.getTimestamp(column);
+        return ts == null ? null : ts.toInstant();
+    }
+}
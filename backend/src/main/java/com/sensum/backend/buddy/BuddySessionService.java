@@ -0,0 +1,88 @@
+package com.sensum.backend.buddy;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Session lifecycle (start, join, end) together with the {@code buddy_session_participants} rows.
+ *
+ * <p>Each session has one participant row per user carrying a copy of the session's status and creation
+ * time. Listing a user's sessions ({@link BuddySessionList}) is then a range scan on
+ * {@code (user_id, created_at DESC)} instead of an {@code user_a_id = ? OR user_b_id = ?} filter. The
+ * session and its participant rows are always written in the same transaction.
+ *
+ * <p>Status changes are pushed to the session's live streams after commit ({@link BuddySessionEvents}).
+ * Joined sessions are scheduled to expire after their duration ({@link BuddySessionExpiry}).
+ */
+@Service
+public class BuddySessionService {
+
+    public static final String STATUS_PENDING = "pending";
+    public static final String STATUS_ACTIVE = "active";
+    public static final String STATUS_COMPLETED = "completed";
+
+    private final BuddySessionRepository sessions;
+    private final JdbcTemplate jdbc;
+    private final BuddySessionEvents events;
+    private final BuddySessionExpiry expiry;
+
+    public BuddySessionService(BuddySessionRepository sessions, JdbcTemplate jdbc, BuddySessionEvents events,
+                               BuddySessionExpiry expiry) {
+        this.sessions = sessions;
+        this.jdbc = jdbc;
+        this.events = events;
+        this.expiry = expiry;
+    }
+
+    /**
+     * Creates a pending session between the two users.
+     */
+    @Transactional
+    public BuddySession start(Long userAId, Long userBId, String mode, Integer durationMinutes) {
+        BuddySession saved = sessions.save(new BuddySession(userAId, userBId, mode, durationMinutes));
+        Timestamp createdAt = Timestamp.from(saved.getCreatedAt());
+        jdbc.update("INSERT INTO buddy_session_participants (user_id, session_id, status, created_at) " +
+                        "VALUES (?, ?, ?, ?), (?, ?, ?, ?) ON CONFLICT (user_id, session_id) DO NOTHING",
+                userAId, saved.getId(), saved.getStatus(), createdAt,
+                userBId, saved.getId(), saved.getStatus(), createdAt);
+        return saved;
+    }
+
+    /**
+     * Activates a pending session and schedules its expiry; sessions in any other state are returned
+     * unchanged.
+     */
+    @Transactional
+    public BuddySession join(BuddySession session) {
+        if (STATUS_PENDING.equals(session.getStatus())) {
+            session.setStatus(STATUS_ACTIVE);
+            session.setStartedAt(Instant.now());
+            session = sessions.save(session);
+            syncStatus(session);
+            expiry.schedule(session);
+        }
+        return session;
+    }
+
+    /**
+     * Marks a session completed.
+     */
+    @Transactional
+    public BuddySession end(BuddySession session) {
+        session.setStatus(STATUS_COMPLETED);
+        session.setEndedAt(Instant.now());
+        BuddySession saved = sessions.save(session);
+        syncStatus(saved);
+        return saved;
+    }
+
+    private void syncStatus(BuddySession session) {
+        jdbc.update("UPDATE buddy_session_participants SET status = ? WHERE session_id = ?",
+                session.getStatus(), session.getId());
+        events.statusChanged(session);
+    }
+}
@@ -0,0 +1,32 @@
+package com.sensum.backend.friends;
+
+import com.sensum.backend.outbox.OutboxEvent;
+import com.sensum.backend.outbox.OutboxHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds a user's items in their friends' timelines after the user's sharing flags changed.
+ *
+ * <p>Enqueued by {@link FeedTimeline#sharingChanged} as a {@value #TYPE} event for the author (empty payload).</p>
+ */
+@Component
+public class FeedAuthorChangedHandler implements OutboxHandler {
+
+    static final String TYPE = "feed.author_changed";
+
+    private final FeedTimeline timeline;
+
+    public FeedAuthorChangedHandler(FeedTimeline timeline) {
+        this.timeline = timeline;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        timeline.rebuildAuthor(event.userId());
+    }
+}
@@ -0,0 +1,37 @@
+package com.sensum.backend.friends;
+
+import com.sensum.backend.outbox.Outbox;
+import com.sensum.backend.outbox.OutboxEvent;
+import com.sensum.backend.outbox.OutboxHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fixes up two users' timelines after their friendship was accepted, removed or blocked.
+ *
+ * <p>Enqueued by {@link FeedTimeline#friendshipChanged} as a {@value #TYPE} event for one user with payload
+ * {@code {"friendId": 2}}.</p>
+ */
+@Component
+public class FeedFriendshipChangedHandler implements OutboxHandler {
+
+    static final String TYPE = "feed.friendship_changed";
+
+    private final Outbox outbox;
+    private final FeedTimeline timeline;
+
+    public FeedFriendshipChangedHandler(Outbox outbox, FeedTimeline timeline) {
+        this.outbox = outbox;
+        this.timeline = timeline;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        long friendId = outbox.read(event).get("friendId").asLong();
+        timeline.rebuildPair(event.userId(), friendId);
+    }
+}
@@ -0,0 +1,82 @@
+package com.sensum.backend.friends;
+
+import com.sensum.backend.pagination.CursorPage;
+import com.sensum.backend.pagination.KeysetCursor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Friend activity feed computed on read (pull model) with one set-based query.
+ *
+ * <p>For each accepted friend a {@code LATERAL} subquery reads that friend's newest {@code limit + 1}
+ * completions with one bounded seek on the {@code (user_id, completed_at DESC, id DESC)} index, so the work
+ * is O(friends &times; limit) no matter how much history friends have; only those rows are merged and
+ * sorted. Sharing flags come from the friend's current {@code user_settings}, and level/XP/streak are the
+ * friend's current values.
+ *
+ * <p>Alternative to {@link FeedTimeline}; {@link FriendsController} picks one via {@code sensum.feed.strategy}.
+ */
+@Component
+public class FeedQuery {
+
+    private static final String FEED_SQL =
+            "SELECT c.id, c.user_id, u.email, c.completed_at, " +
+                    "  CASE WHEN s.share_level THEN u.xp END AS xp, " +
+                    "  CASE WHEN s.share_level THEN u.level END AS level, " +
+                    "  CASE WHEN s.share_streak THEN u.streak END AS streak, " +
+                    "  CASE WHEN s.share_categories THEN q.category END AS category, " +
+                    "  CASE WHEN s.share_moments THEN c.moment_text END AS moment_text " +
+                    "FROM friendships f " +
+                    "JOIN LATERAL (" +
+                    "  SELECT qc.* FROM quest_completions qc " +
+                    "  WHERE qc.user_id = f.friend_id %s" +
+                    "  ORDER BY qc.completed_at DESC, qc.id DESC LIMIT ?" +
+                    ") c ON TRUE " +
+                    "JOIN users u ON u.id = c.user_id " +
+                    "JOIN user_settings s ON s.user_id = c.user_id " +
+                    "LEFT JOIN quests q ON q.id = c.quest_id " +
+                    "WHERE f.user_id = ? AND f.status = 'accepted' " +
+                    "  AND (s.share_level OR s.share_streak OR s.share_categories OR s.share_moments) " +
+                    "ORDER BY c.completed_at DESC, c.id DESC " +
+                    "LIMIT ?";
+
+    private final JdbcTemplate jdbc;
+
+    public FeedQuery(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Returns one page of the shared completions of the user's accepted friends, newest first.
+     *
+     * <p>With a cursor, completions at or above it are excluded inside each friend's seek, so each friend
+     * still contributes at most {@code limit + 1} rows.
+     *
+     * @param after position of the last item of the previous page, or null for the first page
+     */
+    public CursorPage<FriendsController.FeedItem> read(long userId, KeysetCursor after, int limit) {
+        String sql = String.format(FEED_SQL, after == null ? "" : "AND (qc.completed_at, qc.id) < (?, ?) ");
+        Object[] args = after == null
+                ? new Object[]{limit + 1, userId, limit + 1}
+                : new Object[]{Timestamp.from(after.at()), after.id(), limit + 1, userId, limit + 1};
+
+        List<FeedRow> rows = jdbc.query(sql,
+                (rs, i) -> {
+                    FriendsController.FeedItem item = new FriendsController.FeedItem();
+                    item.friendId = rs.getLong("user_id");
+                    item.friendEmail = rs.getString("email");
+                    item.at = rs.getTimestamp("completed_at").toInstant();
+                    item.xp = rs.getObject("xp", Integer.class);
+                    item.level = rs.getObject("level", Integer.class);
+                    item.streak = rs.getObject("streak", Integer.class);
+                    item.category = rs.getString("category");
+                    item.momentText = rs.getString("moment_text");
+                    return new FeedRow(rs.getLong("id"), item);
+                },
+                args);
+        return FeedRow.page(rows, limit);
+    }
+}
@@ -0,0 +1,16 @@
+package com.sensum.backend.friends;
+
+import com.sensum.backend.pagination.CursorPage;
+import com.sensum.backend.pagination.KeysetCursor;
+
+import java.util.List;
+
+/**
+ * A feed item together with the row id its cursor is built from (not part of the response).
+ */
+record FeedRow(long id, FriendsController.FeedItem item) {
+
+    static CursorPage<FriendsController.FeedItem> page(List<FeedRow> rows, int limit) {
+        return CursorPage.of(rows, limit, r -> new KeysetCursor(r.item().at, r.id())).map(FeedRow::item);
+    }
+}
@@ -0,0 +1,213 @@
+package com.sensum.backend.friends;
+
+import com.sensum.backend.outbox.Outbox;
+import com.sensum.backend.pagination.CursorPage;
+import com.sensum.backend.pagination.KeysetCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user friend activity timelines ({@code feed_items}), built by fan-out on write.
+ *
+ * <h2>Write path</h2>
+ * When a user completes a quest, {@link #fanOut(long)} copies the completion into the timeline of every
+ * accepted friend with one {@code INSERT ... SELECT}. The author's {@code user_settings} sharing flags are
+ * applied at that point: unshared fields are stored as NULL, and authors who share nothing are skipped.
+ *
+ * <p>Level, XP and streak are the author's {@code users} values when the item is written, since
+ * {@code quest_completions} keeps no per-completion copy. For fan-out that is just after the completion
+ * (the outbox runs it shortly after commit); for rebuilt and backfilled items it is the time of the
+ * rebuild, so all of an author's rebuilt items show the same values.</p>
+ *
+ * <h2>Read path</h2>
+ * {@link #read} is one index seek on {@code (owner_id, at DESC, id DESC)} per page.
+ *
+ * <h2>Fix-ups</h2>
+ * Changes that invalidate stored items are queued through the outbox and applied asynchronously:
+ * <ul>
+ *   <li>Sharing settings changed ({@link #sharingChanged}): the author's items are rebuilt with the new
+ *       flags for all readers.</li>
+ *   <li>Friendship accepted, removed or blocked ({@link #friendshipChanged}): items between the two users
+ *       are dropped and, if they are (still) friends, refilled from recent completions.</li>
+ * </ul>
+ * Rebuilds copy each author's last {@value #REBUILD_COMPLETIONS} completions, like the feed always showed,
+ * with the author's current level, XP and streak. V19 backfills every existing timeline the same way.
+ *
+ * <h2>Trimming</h2>
+ * Timelines are trimmed to {@value #MAX_ITEMS_PER_OWNER} items per reader by an hourly sweep over readers
+ * in id order, {@value #TRIM_OWNERS_PER_BATCH} readers per statement (one index seek each) and at most
+ * {@value #MAX_TRIM_BATCHES} statements per run; a sweep that does not finish continues on the next run.
+ */
+@Component
+public class FeedTimeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedTimeline.class);
+
+    /** Recent completions per author copied when a timeline is rebuilt. */
+    static final int REBUILD_COMPLETIONS = 10;
+
+    /** Items kept per reader by {@link #trim()}. */
+    static final int MAX_ITEMS_PER_OWNER = 100;
+
+    static final int TRIM_OWNERS_PER_BATCH = 1_000;
+    static final int MAX_TRIM_BATCHES = 50;
+
+    /**
+     * Trims the next batch of readers after a given id: deletes everything past each reader's newest
+     * {@value #MAX_ITEMS_PER_OWNER} items and returns the last reader id in the batch (NULL when there are
+     * no more readers) and the number of rows deleted.
+     */
+    static final String TRIM_SQL =
+            "WITH owners AS (" +
+                    "  SELECT id FROM users WHERE id > ? ORDER BY id LIMIT ?" +
+                    "), removed AS (" +
+                    "  DELETE FROM feed_items WHERE id IN (" +
+                    "    SELECT old.id FROM owners o JOIN LATERAL (" +
+                    "      SELECT fi.id FROM feed_items fi WHERE fi.owner_id = o.id " +
+                    "      ORDER BY fi.at DESC, fi.id DESC OFFSET ?" +
+                    "    ) old ON TRUE" +
+                    "  ) RETURNING 1" +
+                    ") " +
+                    "SELECT (SELECT MAX(id) FROM owners) AS last_owner, (SELECT COUNT(*) FROM removed) AS deleted";
+
+    /**
+     * Copies completions from source {@code c} to the timelines of the author's accepted friends ({@code f}),
+     * applying the author's sharing flags.
+     */
+    private static final String FAN_OUT_PREFIX =
+            "INSERT INTO feed_items (owner_id, author_id, completion_id, at, xp, level, streak, category, moment_text) " +
+                    "SELECT f.user_id, c.user_id, c.id, c.completed_at, " +
+                    "  CASE WHEN s.share_level THEN u.xp END, " +
+                    "  CASE WHEN s.share_level THEN u.level END, " +
+                    "  CASE WHEN s.share_streak THEN u.streak END, " +
+                    "  CASE WHEN s.share_categories THEN q.category END, " +
+                    "  CASE WHEN s.share_moments THEN c.moment_text END " +
+                    "FROM ";
+
+    private static final String FAN_OUT_JOINS =
+            " c " +
+                    "JOIN users u ON u.id = c.user_id " +
+                    "JOIN user_settings s ON s.user_id = c.user_id " +
+                    "LEFT JOIN quests q ON q.id = c.quest_id " +
+                    "JOIN friendships f ON f.friend_id = c.user_id AND f.status = 'accepted' " +
+                    "WHERE (s.share_level OR s.share_streak OR s.share_categories OR s.share_moments) ";
+
+    private static final String FAN_OUT_SUFFIX = "ON CONFLICT (owner_id, completion_id) DO NOTHING";
+
+    private static final String RECENT_BY_AUTHOR =
+            "(SELECT * FROM quest_completions WHERE user_id = ? ORDER BY completed_at DESC LIMIT " +
+                    REBUILD_COMPLETIONS + ")";
+
+    private final JdbcTemplate jdbc;
+    private final Outbox outbox;
+
+    /** Last reader trimmed by the current sweep (0 = start over); only touched by {@link #trim()}. */
+    private long trimAfterOwnerId;
+
+    public FeedTimeline(JdbcTemplate jdbc, Outbox outbox) {
+        this.jdbc = jdbc;
+        this.outbox = outbox;
+    }
+
+    /**
+     * Returns one page of the user's timeline, newest first.
+     *
+     * @param after position of the last item of the previous page, or null for the first page
+     */
+    public CursorPage<FriendsController.FeedItem> read(long ownerId, KeysetCursor after, int limit) {
+        String sql = "SELECT fi.id, fi.author_id, u.email, fi.at, fi.xp, fi.level, fi.streak, fi.category, fi.moment_text " +
+                "FROM feed_items fi JOIN users u ON u.id = fi.author_id " +
+                "WHERE fi.owner_id = ? " +
+                (after == null ? "" : "AND (fi.at, fi.id) < (?, ?) ") +
+                "ORDER BY fi.at DESC, fi.id DESC LIMIT ?";
+        Object[] args = after == null
+                ? new Object[]{ownerId, limit + 1}
+                : new Object[]{ownerId, Timestamp.from(after.at()), after.id(), limit + 1};
+
+        List<FeedRow> rows = jdbc.query(sql, (rs, i) -> {
+            FriendsController.FeedItem item = new FriendsController.FeedItem();
+            item.friendId = rs.getLong("author_id");
+            item.friendEmail = rs.getString("email");
+            item.at = rs.getTimestamp("at").toInstant();
+            item.xp = rs.getObject("xp", Integer.class);
+            item.level = rs.getObject("level", Integer.class);
+            item.streak = rs.getObject("streak", Integer.class);
+            item.category = rs.getString("category");
+            item.momentText = rs.getString("moment_text");
+            return new FeedRow(rs.getLong("id"), item);
+        }, args);
+        return FeedRow.page(rows, limit);
+    }
+
+    /**
+     * Copies one completion into the author's friends' timelines.
+     *
+     * @return number of items written
+     */
+    public int fanOut(long completionId) {
+        return jdbc.update(FAN_OUT_PREFIX + "(SELECT * FROM quest_completions WHERE id = ?)" + FAN_OUT_JOINS +
+                FAN_OUT_SUFFIX, completionId);
+    }
+
+    /**
+     * Queues a rebuild of the user's items in their friends' timelines (call after sharing flags change).
+     */
+    public void sharingChanged(long authorId) {
+        outbox.enqueue(FeedAuthorChangedHandler.TYPE, authorId, Map.of());
+    }
+
+    /**
+     * Queues a fix-up of the two users' timelines (call after a friendship is accepted, removed or blocked).
+     */
+    public void friendshipChanged(long userId, long friendId) {
+        outbox.enqueue(FeedFriendshipChangedHandler.TYPE, userId, Map.of("friendId", friendId));
+    }
+
+    /**
+     * Re-applies the author's current sharing flags to every reader's copy of their recent completions.
+     */
+    void rebuildAuthor(long authorId) {
+        jdbc.update("DELETE FROM feed_items WHERE author_id = ?", authorId);
+        jdbc.update(FAN_OUT_PREFIX + RECENT_BY_AUTHOR + FAN_OUT_JOINS + FAN_OUT_SUFFIX, authorId);
+    }
+
+    /**
+     * Drops the items the two users have of each other and refills them if they are friends.
+     */
+    void rebuildPair(long userId, long friendId) {
+        jdbc.update("DELETE FROM feed_items WHERE (owner_id = ? AND author_id = ?) OR (owner_id = ? AND author_id = ?)",
+                userId, friendId, friendId, userId);
+        String refill = FAN_OUT_PREFIX + RECENT_BY_AUTHOR + FAN_OUT_JOINS + "AND f.user_id = ? " + FAN_OUT_SUFFIX;
+        jdbc.update(refill, friendId, userId);
+        jdbc.update(refill, userId, friendId);
+    }
+
+    /**
+     * Keeps the newest {@value #MAX_ITEMS_PER_OWNER} items per reader. Runs hourly, in bounded batches.
+     */
+    @Scheduled(fixedDelay = 60 * 60 * 1000, initialDelay = 10 * 60 * 1000)
+    public synchronized void trim() {
+        long deleted = 0;
+        for (int batch = 0; batch < MAX_TRIM_BATCHES; batch++) {
+            Map<String, Object> row = jdbc.queryForMap(TRIM_SQL, trimAfterOwnerId, TRIM_OWNERS_PER_BATCH,
+                    MAX_ITEMS_PER_OWNER);
+            deleted += ((Number) row.get("deleted")).longValue();
+            Number lastOwner = (Number) row.get("last_owner");
+            if (lastOwner == null) {
+                trimAfterOwnerId = 0;
+                break;
+            }
+            trimAfterOwnerId = lastOwner.longValue();
+        }
+        if (deleted > 0) {
+            logger.info("Trimmed {} old feed items", deleted);
+        }
+    }
+}
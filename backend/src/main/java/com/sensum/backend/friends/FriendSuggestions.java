@@ -0,0 +1,269 @@
+package com.sensum.backend.friends;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * "People you may know": second-degree connections ranked by number of mutual friends.
+ *
+ * <h2>Traversal</h2>
+ * A two-level BFS over {@link SocialGraph} adjacency arrays (no queries for cached users). Mutual-friend
+ * counts are kept in a primitive open-addressing map. Candidates who are the user, already friends, or
+ * blocked are skipped. Blocks are stored in both directions, so checking the user's own list is enough.
+ *
+ * <h2>Bounds</h2>
+ * Work is capped regardless of network size: at most {@value #MAX_FRIENDS_EXPANDED} friends are expanded
+ * (the adjacency load per friend is the expensive part), each contributing at most
+ * {@value #MAX_NEIGHBORS_PER_FRIEND} neighbours, and the walk stops once {@value #MAX_CANDIDATES}
+ * distinct candidates are being counted. Adjacency arrays are sorted by id, so a capped list is read as
+ * a window starting at a random offset (wrapping around) rather than from the front, which would always
+ * favour the oldest accounts. Beyond those limits counts are approximate, which is fine for a suggestion
+ * list.
+ *
+ * <h2>Privacy</h2>
+ * Candidates are not the caller's friends, so a suggestion only carries the user id and the number of
+ * mutual friends, not the candidate's email.
+ *
+ * <h2>Caching</h2>
+ * Results are cached per user for {@value #TTL_MS}ms (LRU of {@value #CACHE_SIZE} users) and dropped when
+ * the user's friendships change ({@link #invalidate}, after commit inside a transaction). As in
+ * {@link SocialGraph}, a computation that overlapped an invalidation of its user is returned but not
+ * cached, so a just-blocked user is not served from the cache.
+ */
+@Component
+public class FriendSuggestions {
+
+    static final int MAX_FRIENDS_EXPANDED = 200;
+    static final int MAX_NEIGHBORS_PER_FRIEND = 500;
+    static final int MAX_CANDIDATES = 20_000;
+
+    /** Suggestions computed (and cached) per user; requests take a prefix. */
+    static final int MAX_SUGGESTIONS = 50;
+
+    static final long TTL_MS = 5 * 60 * 1000;
+    static final int CACHE_SIZE = 10_000;
+
+    /** Number of invalidation generation counters (a power of two). */
+    static final int GENERATION_STRIPES = 256;
+
+    public record Suggestion(Long userId, int mutualFriends) {
+    }
+
+    private record Cached(List<Suggestion> suggestions, long computedAtMs) {
+    }
+
+    private final SocialGraph graph;
+
+    /** Access-ordered LRU; guarded by {@code this}. */
+    private final LinkedHashMap<Long, Cached> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Cached> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /** Invalidation count per stripe of user ids; guarded by {@code this}. */
+    private final long[] generations = new long[GENERATION_STRIPES];
+
+    public FriendSuggestions(SocialGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * @return up to {@code limit} suggestions, most mutual friends first
+     */
+    public List<Suggestion> suggest(long userId, int limit) {
+        long now = System.currentTimeMillis();
+        Cached cached;
+        long generation;
+        synchronized (this) {
+            cached = cache.get(userId);
+            generation = generations[stripe(userId)];
+        }
+        if (cached == null || now - cached.computedAtMs() >= TTL_MS) {
+            cached = new Cached(compute(userId), now);
+            synchronized (this) {
+                // An invalidation during compute() means it may have read the old friendships.
+                if (generations[stripe(userId)] == generation) {
+                    cache.put(userId, cached);
+                }
+            }
+        }
+        List<Suggestion> all = cached.suggestions();
+        return all.subList(0, Math.min(limit, all.size()));
+    }
+
+    /**
+     * Drops cached suggestions of the given users (call after their friendships change). Deferred until
+     * commit when called inside a transaction.
+     */
+    public void invalidate(long... userIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userIds);
+                }
+            });
+        } else {
+            evict(userIds);
+        }
+    }
+
+    private synchronized void evict(long[] userIds) {
+        for (long id : userIds) {
+            cache.remove(id);
+            generations[stripe(id)]++;
+        }
+    }
+
+    private static int stripe(long userId) {
+        return Long.hashCode(userId) & (GENERATION_STRIPES - 1);
+    }
+
+    private List<Suggestion> compute(long userId) {
+        long[][] ranked = rank(userId);
+        List<Suggestion> out = new ArrayList<>(ranked.length);
+        for (long[] r : ranked) {
+            out.add(new Suggestion(r[0], (int) r[1]));
+        }
+        return List.copyOf(out);
+    }
+
+    long[][] rank(long userId) {
+        return rank(userId, ThreadLocalRandom.current());
+    }
+
+    /**
+     * @param random picks the start of the window read from lists longer than their cap
+     * @return up to {@value #MAX_SUGGESTIONS} {@code {candidateId, mutualFriends}} pairs, best first
+     */
+    long[][] rank(long userId, RandomGenerator random) {
+        SocialGraph.Adjacency self = graph.adjacency(userId);
+        long[] friends = self.friends();
+        long[] blocked = self.blocked();
+
+        LongIntCounter mutuals = new LongIntCounter();
+        int expanded = Math.min(friends.length, MAX_FRIENDS_EXPANDED);
+        int friendStart = windowStart(friends.length, expanded, random);
+        walk:
+        for (int i = 0; i < expanded; i++) {
+            long[] fof = graph.adjacency(friends[(friendStart + i) % friends.length]).friends();
+            int n = Math.min(fof.length, MAX_NEIGHBORS_PER_FRIEND);
+            int start = windowStart(fof.length, n, random);
+            for (int j = 0; j < n; j++) {
+                long candidate = fof[(start + j) % fof.length];
+                if (candidate == userId
+                        || Arrays.binarySearch(friends, candidate) >= 0
+                        || Arrays.binarySearch(blocked, candidate) >= 0) {
+                    continue;
+                }
+                if (!mutuals.increment(candidate) && mutuals.size() >= MAX_CANDIDATES) {
+                    break walk;
+                }
+            }
+        }
+
+        // Top-N by (mutual friends desc, id asc) with a bounded min-heap.
+        PriorityQueue<long[]> top = new PriorityQueue<>(MAX_SUGGESTIONS + 1, (a, b) ->
+                a[1] != b[1] ? Long.compare(a[1], b[1]) : Long.compare(b[0], a[0]));
+        mutuals.forEach((candidate, count) -> {
+            top.add(new long[]{candidate, count});
+            if (top.size() > MAX_SUGGESTIONS) {
+                top.poll();
+            }
+        });
+
+        long[][] ranked = new long[top.size()][];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = top.poll();
+        }
+        return ranked;
+    }
+
+    private static int windowStart(int length, int window, RandomGenerator random) {
+        return window < length ? random.nextInt(length) : 0;
+    }
+
+    /**
+     * Open-addressing {@code long -> int} counter (linear probing, no boxing).
+     */
+    static final class LongIntCounter {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys = newKeys(64);
+        private int[] counts = new int[64];
+        private int size;
+
+        interface Visitor {
+            void accept(long key, int count);
+        }
+
+        /**
+         * @return true if the key was already present
+         */
+        boolean increment(long key) {
+            int mask = keys.length - 1;
+            int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    counts[slot]++;
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            counts[slot] = 1;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+            return false;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void forEach(Visitor visitor) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) {
+                    visitor.accept(keys[i], counts[i]);
+                }
+            }
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = newKeys(oldKeys.length * 2);
+            counts = new int[keys.length];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = Long.hashCode(oldKeys[i] * 0x9E3779B97F4A7C15L) & mask;
+                    while (keys[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+
+        private static long[] newKeys(int capacity) {
+            long[] k = new long[capacity];
+            Arrays.fill(k, EMPTY);
+            return k;
+        }
+    }
+}
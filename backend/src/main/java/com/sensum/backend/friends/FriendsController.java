@@ -1,19 +1,17 @@
 package com.sensum.backend.friends;
 
-import com.sensum.backend.quest.Quest;
-import com.sensum.backend.quest.QuestCompletion;
-import com.sensum.backend.quest.QuestCompletionRepository;
-import com.sensum.backend.quest.QuestRepository;
+import com.sensum.backend.achievement.StatChangeBus;
+import com.sensum.backend.observability.MetricsService;
+import com.sensum.backend.pagination.CursorPage;
+import com.sensum.backend.pagination.KeysetCursor;
 import com.sensum.backend.settings.UserSettings;
-import com.sensum.backend.settings.UserSettingsRepository;
 import com.sensum.backend.user.User;
 import com.sensum.backend.user.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.web.bind.annotation.*;
 
-import java.security.SecureRandom;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
 import java.util.List;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -30,29 +28,53 @@ import org.springframework.http.ResponseEntity;
  */
 public class FriendsController {
 
+    /** Feed read from precomputed per-user timelines ({@link FeedTimeline}). */
+    static final String FEED_STRATEGY_TIMELINE = "timeline";
+
+    /** Feed computed on read with one ranked query ({@link FeedQuery}). */
+    static final String FEED_STRATEGY_QUERY = "query";
+
     private final FriendshipRepository friendships;
     private final InviteRepository invites;
+    private final InviteService inviteService;
     private final UserRepository users;
-    private final UserSettingsRepository settingsRepo;
-    private final QuestCompletionRepository completionRepo;
-    private final QuestRepository questRepo;
+    private final SocialGraph socialGraph;
+    private final FriendSuggestions suggestions;
+    private final FeedTimeline feedTimeline;
+    private final FeedQuery feedQuery;
+    private final String feedStrategy;
+    private final StatChangeBus statChanges;
 
     public FriendsController(
             FriendshipRepository friendships,
             InviteRepository invites,
+            InviteService inviteService,
             UserRepository users,
-            UserSettingsRepository settingsRepo,
-            QuestCompletionRepository completionRepo,
-            QuestRepository questRepo
+            SocialGraph socialGraph,
+            FriendSuggestions suggestions,
+            FeedTimeline feedTimeline,
+            FeedQuery feedQuery,
+            @Value("${sensum.feed.strategy:query}") String feedStrategy,
+            StatChangeBus statChanges
     ) {
+        if (!FEED_STRATEGY_TIMELINE.equals(feedStrategy) && !FEED_STRATEGY_QUERY.equals(feedStrategy)) {
+            throw new IllegalArgumentException("Unknown sensum.feed.strategy: " + feedStrategy);
+        }
         this.friendships = friendships;
         this.invites = invites;
+        this.inviteService = inviteService;
         this.users = users;
-        this.settingsRepo = settingsRepo;
-        this.completionRepo = completionRepo;
-        this.questRepo = questRepo;
+        this.socialGraph = socialGraph;
+        this.suggestions = suggestions;
+        this.feedTimeline = feedTimeline;
+        this.feedQuery = feedQuery;
+        this.feedStrategy = feedStrategy;
+        this.statChanges = statChanges;
     }
 
+    /** Values allowed in {@code friendships.status}. */
+    private static final List<String> FRIENDSHIP_STATUSES = List.of("accepted", "blocked", "pending");
+
     // ---- DTOs ----
     public static class InviteRequest { public Long userId; }
     public static class InviteResponse { public String code; public String link;
@@ -84,22 +106,8 @@ public class FriendsController {
 
         User inviter = users.findById(req.userId).orElseThrow();
 
-        // generate code (retry a few times in case of collision)
-        String code = null;
-        for (int i = 0; i < 5; i++) {
-            String candidate = randomCode(8);
-            if (invites.findByCode(candidate).isEmpty()) {
-                code = candidate;
-                break;
-            }
-        }
-        if (code == null) throw new RuntimeException("Could not generate invite code");
-
-        Invite inv = new Invite();
-        inv.setCode(code);
-        inv.setInviterId(inviter.getId());
-        inv.setExpiresAt(Instant.now().plus(7, ChronoUnit.DAYS));
-        invites.save(inv);
+        // Insert-first: the unique constraint on code resolves collisions (see InviteService).
+        String code = inviteService.create(inviter.getId());
 
         String link = "http://localhost:3000/friends?code=" + code;
         return ResponseEntity.ok(new InviteResponse(code, link));
@@ -138,15 +146,32 @@ public class FriendsController {
         inv.setUsedAt(Instant.now());
         invites.save(inv);
 
+        socialGraph.invalidate(inv.getInviterId(), accepter.getId());
+        suggestions.invalidate(inv.getInviterId(), accepter.getId());
+        feedTimeline.friendshipChanged(inv.getInviterId(), accepter.getId());
+
+        // Friend counts changed for both users: re-evaluate friend_count achievements (debounced, async).
+        statChanges.publish(inv.getInviterId(), "friendCount");
+        statChanges.publish(accepter.getId(), "friendCount");
+
         return ResponseEntity.ok("ok");
     }
 
     // ---- 3) GET /friends?userId= ----
     @GetMapping
     /**
-     * Lists friends for the authenticated user.
+     * Lists friends for the authenticated user, newest first, one page at a time:
+     * {@code {items, nextCursor}}. Pass {@code nextCursor} back as {@code cursor} for the next page.
+     *
+     * @param status optional filter ({@code accepted}, {@code blocked} or {@code pending})
      */
-    public ResponseEntity<List<FriendRow>> list(@RequestParam Long userId, HttpServletRequest request) {
+    public ResponseEntity<CursorPage<FriendRow>> list(
+            @RequestParam Long userId,
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "limit", defaultValue = "50") int limit,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            HttpServletRequest request
+    ) {
         Long authedUserId = (Long) request.getAttribute("userId");
         if (authedUserId == null) {
             return ResponseEntity.status(401).build();
@@ -154,17 +179,51 @@ public class FriendsController {
         if (!authedUserId.equals(userId)) {
             return ResponseEntity.status(403).build();
         }
-        users.findById(userId).orElseThrow();
+        if (status != null && !FRIENDSHIP_STATUSES.contains(status)) {
+            throw new IllegalArgumentException("status must be one of " + FRIENDSHIP_STATUSES);
+        }
 
-        List<Friendship> rows = friendships.findByUserId(userId);
-        List<FriendRow> out = new ArrayList<>();
+        int safeLimit = CursorPage.clampLimit(limit, 200);
+        KeysetCursor after = KeysetCursor.decode(cursor);
 
-        for (Friendship f : rows) {
-            User friend = users.findById(f.getFriendId()).orElse(null);
-            out.add(new FriendRow(f.getFriendId(), friend == null ? "(deleted)" : friend.getEmail(), f.getStatus()));
+        // One query with the emails joined in; one extra row tells us whether there is a next page.
+        PageRequest page = PageRequest.of(0, safeLimit + 1);
+        List<FriendshipRepository.FriendRowProjection> rows;
+        if (status == null) {
+            rows = after == null
+                    ? friendships.findRows(userId, page)
+                    : friendships.findRowsBefore(userId, after.at(), after.id(), page);
+        } else {
+            rows = after == null
+                    ? friendships.findRowsWithStatus(userId, status, page)
+                    : friendships.findRowsWithStatusBefore(userId, status, after.at(), after.id(), page);
         }
 
-        return ResponseEntity.ok(out);
+        return ResponseEntity.ok(
+                CursorPage.of(rows, safeLimit, r -> new KeysetCursor(r.getCreatedAt(), r.getId()))
+                        .map(r -> new FriendRow(r.getFriendId(), r.getEmail(), r.getStatus()))
+        );
+    }
+
+    // ---- GET /friends/suggestions?userId= ----
+    @GetMapping("/suggestions")
+    /**
+     * Suggests friends of friends, ranked by number of mutual friends (see {@link FriendSuggestions}).
+     */
+    public ResponseEntity<List<FriendSuggestions.Suggestion>> suggestions(
+            @RequestParam Long userId,
+            @RequestParam(name = "limit", defaultValue = "10") int limit,
+            HttpServletRequest request
+    ) {
+        Long authedUserId = (Long) request.getAttribute("userId");
+        if (authedUserId == null) {
+            return ResponseEntity.status(401).build();
+        }
+        if (!authedUserId.equals(userId)) {
+            return ResponseEntity.status(403).build();
+        }
+        int safeLimit = CursorPage.clampLimit(limit, FriendSuggestions.MAX_SUGGESTIONS);
+        return ResponseEntity.ok(suggestions.suggest(userId, safeLimit));
     }
 
     // ---- 4) DELETE /friends/{friendId}?userId= ----
@@ -184,6 +243,9 @@ public class FriendsController {
 
         friendships.deletePair(userId, friendId);
         friendships.deletePair(friendId, userId);
+        socialGraph.invalidate(userId, friendId);
+        suggestions.invalidate(userId, friendId);
+        feedTimeline.friendshipChanged(userId, friendId);
 
         return ResponseEntity.ok("ok");
     }
@@ -206,6 +268,9 @@ public class FriendsController {
 
         upsertFriendship(userId, friendId, "blocked");
         upsertFriendship(friendId, userId, "blocked");
+        socialGraph.invalidate(userId, friendId);
+        suggestions.invalidate(userId, friendId);
+        feedTimeline.friendshipChanged(userId, friendId);
         return ResponseEntity.ok("ok");
     }
 
@@ -229,37 +294,24 @@ public class FriendsController {
         }
     }
 
-    /**
-     * Secure RNG for invite codes.
-     */
-    private static final SecureRandom RNG = new SecureRandom();
-
-    /**
-     * Alphabet chosen to avoid ambiguous characters (0/O/1/I).
-     */
-    private static final String ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789"; // no 0/O/1/I
-
-    /**
-     * Generates a short invite code.
-     *
-     * @param len desired length
-     */
-    private static String randomCode(int len) {
-        StringBuilder sb = new StringBuilder(len);
-        for (int i = 0; i < len; i++) {
-            sb.append(ALPHABET.charAt(RNG.nextInt(ALPHABET.length())));
-        }
-        return sb.toString();
-    }
-
 
     @GetMapping("/feed")
     /**
-     * Builds a small friend activity feed from recent quest completions.
+     * Returns the user's friend activity feed (friend quest completions), newest first, one page at a time:
+     * {@code {items, nextCursor}}. Pass {@code nextCursor} back as {@code cursor} for the next page.
      *
-     * <p>Visibility is controlled by the friend's sharing flags in {@link UserSettings}.
+     * <p>{@code sensum.feed.strategy} selects the implementation:
+     * {@code query} (default) computes it on read ({@link FeedQuery}) from current flags and stats;
+     * {@code timeline} reads the user's timeline ({@link FeedTimeline}), where visibility was applied from
+     * the friend's sharing flags in {@link UserSettings} when each item was written.
+     * Latency is recorded per strategy ({@code friends.feed.<strategy>} in /metrics).
      */
-    public ResponseEntity<List<FeedItem>> feed(@RequestParam Long userId, HttpServletRequest request) {
+    public ResponseEntity<CursorPage<FeedItem>> feed(
+            @RequestParam Long userId,
+            @RequestParam(name = "limit", defaultValue = "10") int limit,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            HttpServletRequest request
+    ) {
         Long authedUserId = (Long) request.getAttribute("userId");
         if (authedUserId == null) {
             return ResponseEntity.status(401).build();
@@ -269,51 +321,14 @@ public class FriendsController {
         }
         users.findById(userId).orElseThrow();
 
-        // 1) Get accepted friends
-        List<Friendship> rows = friendships.findByUserId(userId);
-        List<Long> acceptedFriendIds = new ArrayList<>();
-        for (Friendship f : rows) {
-            if ("accepted".equals(f.getStatus())) acceptedFriendIds.add(f.getFriendId());
-        }
-
-        // 2) Build items
-        List<FeedItem> items = new ArrayList<>();
-
-        for (Long friendId : acceptedFriendIds) {
-            User friend = users.findById(friendId).orElse(null);
-            if (friend == null) continue;
-
-            UserSettings s = settingsRepo.findById(friendId).orElse(null);
-            boolean shareLevel = s != null && s.shareLevel;
-            boolean shareStreak = s != null && s.shareStreak;
-            boolean shareCategories = s != null && s.shareCategories;
-            boolean shareMoments = s != null && s.shareMoments;
-
-            // If they share nothing, skip them
-            if (!shareLevel && !shareStreak && !shareCategories && !shareMoments) continue;
-
-            List<QuestCompletion> completions = completionRepo.findTop10ByUserIdOrderByCompletedAtDesc(friendId);
-
-            for (QuestCompletion c : completions) {
-                Quest q = questRepo.findById(c.getQuestId()).orElse(null);
-
-                FeedItem item = new FeedItem();
-                item.friendId = friendId;
-                item.friendEmail = friend.getEmail();
-                item.at = c.getCompletedAt();
-
-                if (shareLevel) { item.level = friend.getLevel(); item.xp = friend.getXp(); }
-                if (shareStreak) { item.streak = friend.getStreak(); }
-                if (shareCategories) { item.category = q == null ? null : q.getCategory(); }
-                if (shareMoments) { item.momentText = c.getMomentText(); }
-
-                items.add(item);
-            }
-        }
-
-        // 3) Sort by time desc and limit 10
-        items.sort((a, b) -> b.at.compareTo(a.at));
-        return ResponseEntity.ok(items.stream().limit(10).toList());
+        long started = System.nanoTime();
+        int safeLimit = CursorPage.clampLimit(limit, 50);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        CursorPage<FeedItem> items = FEED_STRATEGY_QUERY.equals(feedStrategy)
+                ? feedQuery.read(userId, after, safeLimit)
+                : feedTimeline.read(userId, after, safeLimit);
+        MetricsService.recordTiming("friends.feed." + feedStrategy, System.nanoTime() - started);
+        return ResponseEntity.ok(items);
     }
 
     // DTO returned by /friends/feed
@@ -1,10 +1,12 @@
 package com.sensum.backend.friends;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,11 +15,6 @@ import java.util.Optional;
  */
 public interface FriendshipRepository extends JpaRepository<Friendship, Long> {
 
-    /**
-     * Lists all friendship edges for a user.
-     */
-    List<Friendship> findByUserId(Long userId);
-
     /**
      * Looks up a single directional edge.
      */
@@ -32,8 +29,56 @@ public interface FriendshipRepository extends JpaRepository<Friendship, Long> {
     void deletePair(@Param("userId") Long userId, @Param("friendId") Long friendId);
 
     /**
-     * Counts edges for a user with a given status.
+     * Lists a user's edges joined with the other user's email, newest first (first page of the friends list).
+     */
+    @Query("SELECT f.id AS id, f.friendId AS friendId, u.email AS email, f.status AS status, " +
+            "f.createdAt AS createdAt FROM Friendship f JOIN User u ON u.id = f.friendId " +
+            "WHERE f.userId = :userId " +
+            "ORDER BY f.createdAt DESC, f.id DESC")
+    List<FriendRowProjection> findRows(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Like {@link #findRows} but strictly after the keyset position {@code (at, id)}.
+     */
+    @Query("SELECT f.id AS id, f.friendId AS friendId, u.email AS email, f.status AS status, " +
+            "f.createdAt AS createdAt FROM Friendship f JOIN User u ON u.id = f.friendId " +
+            "WHERE f.userId = :userId " +
+            "AND (f.createdAt < :at OR (f.createdAt = :at AND f.id < :id)) " +
+            "ORDER BY f.createdAt DESC, f.id DESC")
+    List<FriendRowProjection> findRowsBefore(@Param("userId") Long userId, @Param("at") Instant at,
+                                             @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Like {@link #findRows}, only edges with the given status. Kept separate from the unfiltered query
+     * so each can be served by its own index in order.
+     */
+    @Query("SELECT f.id AS id, f.friendId AS friendId, u.email AS email, f.status AS status, " +
+            "f.createdAt AS createdAt FROM Friendship f JOIN User u ON u.id = f.friendId " +
+            "WHERE f.userId = :userId AND f.status = :status " +
+            "ORDER BY f.createdAt DESC, f.id DESC")
+    List<FriendRowProjection> findRowsWithStatus(@Param("userId") Long userId, @Param("status") String status,
+                                                 Pageable pageable);
+
+    /**
+     * Like {@link #findRowsWithStatus} but strictly after the keyset position {@code (at, id)}.
+     */
+    @Query("SELECT f.id AS id, f.friendId AS friendId, u.email AS email, f.status AS status, " +
+            "f.createdAt AS createdAt FROM Friendship f JOIN User u ON u.id = f.friendId " +
+            "WHERE f.userId = :userId AND f.status = :status " +
+            "AND (f.createdAt < :at OR (f.createdAt = :at AND f.id < :id)) " +
+            "ORDER BY f.createdAt DESC, f.id DESC")
+    List<FriendRowProjection> findRowsWithStatusBefore(@Param("userId") Long userId, @Param("status") String status,
+                                                       @Param("at") Instant at, @Param("id") Long id,
+                                                       Pageable pageable);
+
+    /**
+     * Projection for the {@code findRows*} queries.
      */
-    @Query("SELECT COUNT(f) FROM Friendship f WHERE f.userId = :userId AND f.status = :status")
-    long countByUserIdAndStatus(@Param("userId") Long userId, @Param("status") String status);
-}
\ No newline at end of file
+    interface FriendRowProjection {
+        Long getId();
+        Long getFriendId();
+        String getEmail();
+        String getStatus();
+        Instant getCreatedAt();
+    }
+}
@@ -0,0 +1,122 @@
+package com.sensum.backend.friends;
+
+import com.sensum.backend.observability.MetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates invite codes and purges invites that can no longer be accepted.
+ *
+ * <h2>Code generation</h2>
+ * Insert-first: a random code is inserted with {@code ON CONFLICT (code) DO NOTHING}, and the unique
+ * constraint decides. Zero rows inserted means a collision, so a new code is tried. There is no
+ * check-then-insert round trip, and two concurrent requests can never end up with the same code.
+ *
+ * <h2>Reaper</h2>
+ * Invites that expired, or were used, more than {@link #GRACE} ago are deleted in batches of
+ * {@value #PURGE_BATCH_SIZE} rows (each batch its own statement, at most {@value #MAX_PURGE_BATCHES} per run)
+ * so the table and its code index stay small without long-running deletes. The grace period lets a late
+ * accept still report "Invite expired" or "already used" instead of "Invalid code".
+ *
+ * <p>/metrics shows {@code invites.purged} and {@code invites.codeCollisions} (totals since start).
+ */
+@Service
+public class InviteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InviteService.class);
+
+    static final Duration TTL = Duration.ofDays(7);
+    static final Duration GRACE = Duration.ofDays(1);
+    static final int CODE_LENGTH = 8;
+    static final int MAX_ATTEMPTS = 5;
+    static final int PURGE_BATCH_SIZE = 1_000;
+    static final int MAX_PURGE_BATCHES = 50;
+
+    /**
+     * Secure RNG for invite codes.
+     */
+    private static final SecureRandom RNG = new SecureRandom();
+
+    /**
+     * Alphabet chosen to avoid ambiguous characters (0/O/1/I).
+     */
+    private static final String ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789"; // no 0/O/1/I
+
+    private final JdbcTemplate jdbc;
+    private final AtomicLong purged = new AtomicLong();
+    private final AtomicLong collisions = new AtomicLong();
+
+    public InviteService(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+        MetricsService.registerGauge("invites.purged", purged::get);
+        MetricsService.registerGauge("invites.codeCollisions", collisions::get);
+    }
+
+    /**
+     * Creates a one-time invite valid for {@link #TTL}.
+     *
+     * @return the new code
+     */
+    public String create(long inviterId) {
+        Timestamp expiresAt = Timestamp.from(Instant.now().plus(TTL));
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            String code = randomCode(CODE_LENGTH);
+            int inserted = jdbc.update(
+                    "INSERT INTO invites (code, inviter_id, expires_at) VALUES (?, ?, ?) " +
+                            "ON CONFLICT (code) DO NOTHING",
+                    code, inviterId, expiresAt);
+            if (inserted == 1) {
+                return code;
+            }
+            collisions.incrementAndGet();
+        }
+        throw new RuntimeException("Could not generate invite code");
+    }
+
+    /**
+     * Deletes invites that expired or were used more than {@link #GRACE} ago, in bounded batches. Runs
+     * every 10 minutes.
+     */
+    @Scheduled(fixedDelay = 10 * 60 * 1000, initialDelay = 5 * 60 * 1000)
+    public void purgeStale() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(GRACE));
+        int total = 0;
+        for (int batch = 0; batch < MAX_PURGE_BATCHES; batch++) {
+            int deleted = jdbc.update(
+                    "DELETE FROM invites WHERE id IN (" +
+                            "  SELECT id FROM invites WHERE expires_at < ? OR used_at < ? LIMIT ?" +
+                            ")",
+                    cutoff, cutoff, PURGE_BATCH_SIZE);
+            total += deleted;
+            if (deleted < PURGE_BATCH_SIZE) {
+                break;
+            }
+        }
+        purged.addAndGet(total);
+        if (total > 0) {
+            logger.info("Purged {} stale invites", total);
+        }
+    }
+
+    /**
+     * Generates a short invite code.
+     *
+     * @param len desired length
+     */
+    static String randomCode(int len) {
+        StringBuilder sb = new StringBuilder(len);
+        for (int i = 0; i < len; i++) {
+            sb.append(ALPHABET.charAt(RNG.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,184 @@
+package com.sensum.backend.friends;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory view of the {@code friendships} table: per user, the ids of accepted friends and of blocked
+ * users, each as a sorted {@code long[]}.
+ *
+ * <h2>Why?</h2>
+ * Friend lists, leaderboards and suggestions all start from "who are this user's friends". Loading
+ * {@code Friendship} entities and filtering by status in Java costs a query and an object per edge every
+ * time; a sorted primitive array answers counts in O(1) and membership in O(log n) with no query.
+ *
+ * <h2>Consistency</h2>
+ * Entries are loaded lazily (one query per user) and {@link #invalidate}d by the friendship endpoints;
+ * inside a transaction the invalidation runs after commit, so a reload never sees the old rows. A load
+ * that was already running when an invalidation happened may have read the old rows, so its result is
+ * returned but not cached: each eviction bumps a generation counter (one of {@value #GENERATION_STRIPES}
+ * stripes, by user id), and a load only caches if its stripe's generation is unchanged since it started.
+ * Other instances only notice on reload, so entries also expire after {@value #TTL_MS}ms. Writes and
+ * anything that must be exact (achievement stats) keep reading the table.
+ *
+ * <h2>Eviction</h2>
+ * Bounded LRU of {@value #CACHE_SIZE} users.
+ */
+@Component
+public class SocialGraph {
+
+    /** Maximum number of users kept in memory. */
+    static final int CACHE_SIZE = 50_000;
+
+    /** Upper bound on staleness for changes made by other instances. */
+    static final long TTL_MS = 5 * 60 * 1000;
+
+    /** Number of invalidation generation counters (a power of two). */
+    static final int GENERATION_STRIPES = 256;
+
+    private static final long[] NONE = new long[0];
+
+    /**
+     * One user's edges. Arrays are sorted ascending and must not be modified.
+     */
+    record Adjacency(long[] friends, long[] blocked, long loadedAtMs) {
+    }
+
+    private final JdbcTemplate jdbc;
+
+    /** Access-ordered LRU; guarded by {@code this}. */
+    private final LinkedHashMap<Long, Adjacency> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Adjacency> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /** Eviction count per stripe of user ids; guarded by {@code this}. */
+    private final long[] generations = new long[GENERATION_STRIPES];
+
+    public SocialGraph(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * @return number of accepted friends
+     */
+    public int friendCount(long userId) {
+        return adjacency(userId).friends().length;
+    }
+
+    /**
+     * @return a copy of the user's accepted friend ids, ascending
+     */
+    public long[] friendIds(long userId) {
+        return adjacency(userId).friends().clone();
+    }
+
+    /**
+     * @return a copy of the ids the user has blocked (or been blocked by), ascending
+     */
+    public long[] blockedIds(long userId) {
+        return adjacency(userId).blocked().clone();
+    }
+
+    public boolean areFriends(long userId, long otherId) {
+        return Arrays.binarySearch(adjacency(userId).friends(), otherId) >= 0;
+    }
+
+    public boolean isBlocked(long userId, long otherId) {
+        return Arrays.binarySearch(adjacency(userId).blocked(), otherId) >= 0;
+    }
+
+    /**
+     * Drops the cached edges of the given users (call after changing their friendships). Deferred until
+     * commit when called inside a transaction.
+     */
+    public void invalidate(long... userIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userIds);
+                }
+            });
+        } else {
+            evict(userIds);
+        }
+    }
+
+    /**
+     * Cached edges for a user, loading them on a miss. Package-private: callers in this package may read
+     * the arrays without copying (e.g. graph traversals) but must not modify them.
+     */
+    Adjacency adjacency(long userId) {
+        long now = System.currentTimeMillis();
+        long generation;
+        synchronized (this) {
+            Adjacency cached = cache.get(userId);
+            if (cached != null && now - cached.loadedAtMs() < TTL_MS) {
+                return cached;
+            }
+            generation = generations[stripe(userId)];
+        }
+
+        Adjacency loaded = load(userId, now);
+        synchronized (this) {
+            // An invalidation during the load means it may have read pre-commit rows: don't cache those.
+            if (generations[stripe(userId)] == generation) {
+                cache.put(userId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    private Adjacency load(long userId, long now) {
+        LongList friends = new LongList();
+        LongList blocked = new LongList();
+        jdbc.query("SELECT friend_id, status FROM friendships " +
+                        "WHERE user_id = ? AND status IN ('accepted', 'blocked') ORDER BY friend_id",
+                rs -> {
+                    if ("accepted".equals(rs.getString(2))) {
+                        friends.add(rs.getLong(1));
+                    } else {
+                        blocked.add(rs.getLong(1));
+                    }
+                },
+                userId);
+        return new Adjacency(friends.toArray(), blocked.toArray(), now);
+    }
+
+    private synchronized void evict(long[] userIds) {
+        for (long id : userIds) {
+            cache.remove(id);
+            generations[stripe(id)]++;
+        }
+    }
+
+    private static int stripe(long userId) {
+        return Long.hashCode(userId) & (GENERATION_STRIPES - 1);
+    }
+
+    /** Minimal growable {@code long[]} (rows arrive sorted, so no sort is needed). */
+    private static final class LongList {
+        private long[] values = NONE;
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(8, size * 2));
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return size == 0 ? NONE : Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.sensum.backend.idempotency;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Makes mutation endpoints safe to retry via the {@code Idempotency-Key} request header.
+ *
+ * <h2>How it works</h2>
+ * The first successful response for a (user, key) pair is serialized and stored. A retry with the same key
+ * gets that stored response back without running the handler again, so double-clicks and extension
+ * retries cannot award XP twice or create duplicate rows.
+ *
+ * <h2>Storage</h2>
+ * <ul>
+ *   <li>A bounded in-memory LRU ({@value #CACHE_SIZE} entries, {@link #TTL} expiry) answers most replays
+ *       without touching the database.</li>
+ *   <li>The {@code idempotency_keys} table is the source of truth across restarts and instances.</li>
+ * </ul>
+ *
+ * <h2>Claiming a key</h2>
+ * The handler runs in one transaction that starts with {@code INSERT ... ON CONFLICT DO NOTHING} on the key.
+ * If two requests with the same key race, the second insert waits for the first transaction and then
+ * finds the row, so it replays the stored response instead of running the handler. The stored response is
+ * written in the same transaction as the handler's own writes. Failed requests roll back the claim and can
+ * be retried. A key older than {@link #TTL} that has not been purged yet is claimed again as if it were new,
+ * and a replay loaded from the table is only cached for what is left of the key's TTL.
+ *
+ * <p>Requests without the header run the handler directly, as before.</p>
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    /** Header clients send to make a request idempotent. */
+    public static final String HEADER = "Idempotency-Key";
+
+    /** Maximum accepted key length (UUIDs are 36 characters). */
+    static final int MAX_KEY_LENGTH = 100;
+
+    /** Maximum number of responses kept in memory. */
+    static final int CACHE_SIZE = 10_000;
+
+    /** How long a key is honored. */
+    static final Duration TTL = Duration.ofHours(24);
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ObjectMapper objectMapper;
+
+    /** Access-ordered LRU; guarded by {@code this}. */
+    private final LinkedHashMap<CacheKey, Stored> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, Stored> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    public IdempotencyService(JdbcTemplate jdbc, PlatformTransactionManager txManager, ObjectMapper objectMapper) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Runs {@code handler} at most once per (user, key) and returns its response.
+     *
+     * @param userId authenticated user id
+     * @param key value of the {@value #HEADER} header, or null to run without idempotency
+     * @param endpoint logical endpoint name (a key cannot be reused across endpoints)
+     * @param handler produces the response body; its writes join the claiming transaction
+     * @return 200 with the fresh or replayed response body
+     * @throws IllegalArgumentException if the key is blank, too long, or was used for another endpoint
+     */
+    public ResponseEntity<?> execute(Long userId, String key, String endpoint, Supplier<Object> handler) {
+        if (key == null) {
+            return ResponseEntity.ok(handler.get());
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        CacheKey cacheKey = new CacheKey(userId, key);
+        Stored stored = cached(cacheKey);
+        if (stored == null) {
+            stored = tx.execute(status -> claimAndRun(userId, key, endpoint, handler));
+            remember(cacheKey, stored);
+        }
+
+        if (!stored.endpoint().equals(endpoint)) {
+            throw new IllegalArgumentException(HEADER + " was already used for a different request");
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(stored.body());
+    }
+
+    private Stored claimAndRun(Long userId, String key, String endpoint, Supplier<Object> handler) {
+        int claimed = jdbc.update(
+                "INSERT INTO idempotency_keys (user_id, idem_key, endpoint) VALUES (?, ?, ?) " +
+                        "ON CONFLICT (user_id, idem_key) DO UPDATE " +
+                        "SET endpoint = EXCLUDED.endpoint, response_body = NULL, created_at = NOW() " +
+                        "WHERE idempotency_keys.created_at < NOW() - make_interval(secs => ?)",
+                userId, key, endpoint, TTL.toSeconds());
+        if (claimed == 0) {
+            Stored existing = load(userId, key);
+            if (existing == null) {
+                throw new IllegalStateException("Idempotency key claimed but no response stored");
+            }
+            return existing;
+        }
+
+        String body = objectMapper.writeValueAsString(handler.get());
+        jdbc.update(
+                "UPDATE idempotency_keys SET response_body = ? WHERE user_id = ? AND idem_key = ?",
+                body, userId, key);
+        return new Stored(endpoint, body, System.currentTimeMillis());
+    }
+
+    /**
+     * Loads an unexpired stored response. Its cache timestamp is derived from {@code created_at} (as an age
+     * measured by the database clock), so it expires from memory when the key does.
+     */
+    private Stored load(Long userId, String key) {
+        List<Stored> rows = jdbc.query(
+                "SELECT endpoint, response_body, " +
+                        "  (EXTRACT(EPOCH FROM (NOW() - created_at)) * 1000)::BIGINT AS age_ms " +
+                        "FROM idempotency_keys " +
+                        "WHERE user_id = ? AND idem_key = ? AND response_body IS NOT NULL " +
+                        "  AND created_at >= NOW() - make_interval(secs => ?)",
+                (rs, i) -> new Stored(rs.getString(1), rs.getString(2),
+                        System.currentTimeMillis() - rs.getLong(3)),
+                userId, key, TTL.toSeconds());
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private synchronized Stored cached(CacheKey key) {
+        Stored s = cache.get(key);
+        if (s != null && System.currentTimeMillis() - s.storedAtMillis() >= TTL.toMillis()) {
+            cache.remove(key);
+            return null;
+        }
+        return s;
+    }
+
+    private synchronized void remember(CacheKey key, Stored stored) {
+        cache.put(key, stored);
+    }
+
+    /**
+     * Deletes keys older than {@link #TTL}. Runs hourly.
+     */
+    @Scheduled(fixedDelay = 60 * 60 * 1000, initialDelay = 60 * 60 * 1000)
+    public void purgeExpired() {
+        int deleted = jdbc.update(
+                "DELETE FROM idempotency_keys WHERE created_at < NOW() - make_interval(secs => ?)",
+                TTL.toSeconds());
+        if (deleted > 0) {
+            logger.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private record CacheKey(long userId, String key) {}
+
+    private record Stored(String endpoint, String body, long storedAtMillis) {}
+}
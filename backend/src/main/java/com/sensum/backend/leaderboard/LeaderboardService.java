@@ -4,8 +4,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import com.sensum.backend.user.User;
 import com.sensum.backend.user.UserRepository;
-import com.sensum.backend.friends.Friendship;
-import com.sensum.backend.friends.FriendshipRepository;
+import com.sensum.backend.friends.SocialGraph;
 import com.sensum.backend.quest.QuestCompletionRepository;
 
 import java.util.*;
@@ -27,7 +26,7 @@ public class LeaderboardService {
     private UserRepository userRepository;
 
     @Autowired
-    private FriendshipRepository friendshipRepository;
+    private SocialGraph socialGraph;
 
     @Autowired
     private QuestCompletionRepository questCompletionRepository;
@@ -46,12 +45,11 @@ public class LeaderboardService {
         * Returns a leaderboard scoped to accepted friends (plus self).
      */
     public List<Map<String, Object>> getFriendsLeaderboard(Long userId, String type) {
-        // Get all friend IDs
-        List<Friendship> friendships = friendshipRepository.findByUserId(userId);
-        Set<Long> friendIds = friendships.stream()
-                .filter(f -> "accepted".equals(f.getStatus()))
-                .map(Friendship::getFriendId)
-                .collect(Collectors.toSet());
+        // Accepted friends from the in-memory graph (no friendships query)
+        Set<Long> friendIds = new HashSet<>();
+        for (long id : socialGraph.friendIds(userId)) {
+            friendIds.add(id);
+        }
 
         // Add self to the list
         friendIds.add(userId);
@@ -1,5 +1,7 @@
 package com.sensum.backend.moments;
 
+import com.sensum.backend.pagination.CursorPage;
+import com.sensum.backend.pagination.KeysetCursor;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
@@ -30,20 +32,32 @@ public class MeMomentsController {
     public record CreateMomentRequest(String text) {
     }
 
+    /**
+     * Lists moments newest first, one page at a time.
+     *
+     * @param cursor {@code nextCursor} of the previous page; omit for the first page
+     */
     @GetMapping
     public ResponseEntity<?> list(@RequestParam(name = "limit", defaultValue = "50") int limit,
+                                 @RequestParam(name = "cursor", required = false) String cursor,
                                  HttpServletRequest req) {
         Long userId = (Long) req.getAttribute("userId");
         if (userId == null) {
             return ResponseEntity.status(401).build();
         }
 
-        int safeLimit = Math.min(Math.max(limit, 1), 200);
+        int safeLimit = CursorPage.clampLimit(limit, 200);
+        KeysetCursor after = KeysetCursor.decode(cursor);
 
-        List<Moment> moments = momentRepo.findByUserIdOrderByCreatedAtDesc(userId, PageRequest.of(0, safeLimit));
+        // One extra row tells us whether there is a next page.
+        PageRequest page = PageRequest.of(0, safeLimit + 1);
+        List<Moment> moments = after == null
+                ? momentRepo.findByUserIdOrderByCreatedAtDescIdDesc(userId, page)
+                : momentRepo.findPageBefore(userId, after.at(), after.id(), page);
 
         return ResponseEntity.ok(
-                moments.stream().map(m -> new MomentResponse(m.getId(), m.getText(), m.getCreatedAt())).toList()
+                CursorPage.of(moments, safeLimit, m -> new KeysetCursor(m.getCreatedAt(), m.getId()))
+                        .map(m -> new MomentResponse(m.getId(), m.getText(), m.getCreatedAt()))
         );
     }
 
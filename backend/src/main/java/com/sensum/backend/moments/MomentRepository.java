@@ -2,10 +2,19 @@ package com.sensum.backend.moments;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
 
 public interface MomentRepository extends JpaRepository<Moment, Long> {
 
-    List<Moment> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
+    List<Moment> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Pageable pageable);
+
+    @Query("SELECT m FROM Moment m WHERE m.userId = :userId " +
+            "AND (m.createdAt < :at OR (m.createdAt = :at AND m.id < :id)) " +
+            "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Moment> findPageBefore(@Param("userId") Long userId, @Param("at") Instant at,
+                                @Param("id") Long id, Pageable pageable);
 }
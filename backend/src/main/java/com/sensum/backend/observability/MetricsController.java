@@ -12,7 +12,8 @@ import java.util.Map;
  *
  * <h2>Endpoints</h2>
  * <ul>
- *   <li><b>GET /metrics</b> - returns counters, rates, average latency, uptime, and a coarse health status.</li>
+ *   <li><b>GET /metrics</b> - returns counters, rates, average latency, operation timings, gauges, uptime, and a coarse
+ *   health status.</li>
  *   <li><b>GET /metrics/health</b> - returns a simple UP/DOWN signal intended for load balancers and monitors.</li>
  * </ul>
  *
@@ -53,6 +54,10 @@ public class MetricsController {
         metrics.put("successRate", String.format("%.2f%%", metricsService.getSuccessRate()));
         metrics.put("errorRate", String.format("%.2f%%", metricsService.getErrorRate()));
         metrics.put("avgResponseTimeMs", String.format("%.2f", metricsService.getAverageResponseTimeMs()));
+
+        // Per-operation latency percentiles
+        metrics.put("timings", metricsService.getTimings());
+        metrics.put("gauges", metricsService.getGauges());
         
         // Application info
         metrics.put("uptime", metricsService.getUptime());
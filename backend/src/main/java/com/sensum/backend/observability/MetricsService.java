@@ -4,7 +4,12 @@ import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 /**
  * In-memory metrics registry for the backend.
@@ -15,6 +20,8 @@ import java.util.concurrent.atomic.AtomicLong;
  *   <li>Total response time, used to compute an average.</li>
  *   <li>Slow request count (requests taking more than 1000ms).</li>
  *   <li>Application uptime since JVM start (not container start if JVM is restarted).</li>
+ *   <li>Named operation timings (e.g. {@code quest.complete}) with p50/p95/p99 latency.</li>
+ *   <li>Gauges registered by components (e.g. outbox backlog and lag).</li>
  * </ul>
  *
  * <h2>Thread-safety</h2>
@@ -34,6 +41,8 @@ public class MetricsService {
     private static final AtomicLong serverErrors = new AtomicLong(0); // 5xx
     private static final AtomicLong totalResponseTimeMs = new AtomicLong(0);
     private static final AtomicLong slowRequestCount = new AtomicLong(0); // > 1 second
+    private static final Map<String, LatencyHistogram> timings = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
 
     /**
      * Records a completed HTTP request.
@@ -58,6 +67,53 @@ public class MetricsService {
         }
     }
 
+    /**
+     * Records the duration of a named operation (e.g. {@code "quest.complete"}).
+     *
+     * @param name operation name, used as the key on /metrics
+     * @param nanos elapsed time in nanoseconds
+     */
+    public static void recordTiming(String name, long nanos) {
+        timings.computeIfAbsent(name, n -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * @return operation name -> {count, p50Ms, p95Ms, p99Ms, maxMs}, sorted by name
+     */
+    public Map<String, Map<String, Object>> getTimings() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> e : timings.entrySet()) {
+            LatencyHistogram h = e.getValue();
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", h.count());
+            summary.put("p50Ms", h.percentileMs(0.50));
+            summary.put("p95Ms", h.percentileMs(0.95));
+            summary.put("p99Ms", h.percentileMs(0.99));
+            summary.put("maxMs", h.maxMs());
+            result.put(e.getKey(), summary);
+        }
+        return result;
+    }
+
+    /**
+     * Registers a gauge: a value read each time /metrics is requested (replaces any gauge with that name).
+     *
+     * @param name gauge name, used as the key on /metrics
+     * @param value supplier of the current value; must be cheap and non-blocking
+     */
+    public static void registerGauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * @return gauge name -> current value, sorted by name
+     */
+    public Map<String, Long> getGauges() {
+        Map<String, Long> result = new TreeMap<>();
+        gauges.forEach((name, value) -> result.put(name, value.getAsLong()));
+        return result;
+    }
+
     /**
      * @return total number of HTTP requests recorded since the process started
      */
@@ -0,0 +1,53 @@
+package com.sensum.backend.outbox;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Producer side of the transactional outbox.
+ *
+ * <p>{@link #enqueue} inserts an {@code outbox_events} row using the caller's transaction, so the event is
+ * committed if and only if the change that caused it is. {@link OutboxDispatcher} picks it up afterwards.</p>
+ */
+@Component
+public class Outbox {
+
+    /** Insert statement with parameters (event_type, user_id, payload); usable inside a larger CTE. */
+    public static final String INSERT_SQL =
+            "INSERT INTO outbox_events (event_type, user_id, payload) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper objectMapper;
+
+    public Outbox(JdbcTemplate jdbc, ObjectMapper objectMapper) {
+        this.jdbc = jdbc;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes an event in the current transaction.
+     *
+     * @param type event type, matched against {@link OutboxHandler#type()}
+     * @param userId user the event belongs to (may be null)
+     * @param payload object serialized as the JSON payload
+     */
+    public void enqueue(String type, Long userId, Object payload) {
+        jdbc.update(INSERT_SQL, type, userId, toJson(payload));
+    }
+
+    /**
+     * @return the payload serialized the same way {@link #enqueue} does
+     */
+    public String toJson(Object payload) {
+        return objectMapper.writeValueAsString(payload);
+    }
+
+    /**
+     * @return the event's payload as a JSON tree
+     */
+    public JsonNode read(OutboxEvent event) {
+        return objectMapper.readTree(event.payload());
+    }
+}
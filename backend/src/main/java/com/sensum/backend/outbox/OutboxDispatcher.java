@@ -0,0 +1,179 @@
+package com.sensum.backend.outbox;
+
+import com.sensum.backend.observability.MetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consumer side of the transactional outbox: leases pending events in batches and runs their handlers.
+ *
+ * <h2>Leasing</h2>
+ * A batch is claimed with one {@code UPDATE ... WHERE id IN (SELECT ... FOR UPDATE SKIP LOCKED)} that sets
+ * a short lease ({@code locked_until}). Several instances can poll the same table without handing out the
+ * same event twice; if an instance dies, its lease runs out and another instance retries the event.
+ *
+ * <h2>Processing</h2>
+ * Each event runs in its own transaction that also marks it done. A failure puts the event back with
+ * exponential backoff; after {@value #MAX_ATTEMPTS} attempts it is parked as {@code dead} and logged.
+ *
+ * <h2>Metrics</h2>
+ * /metrics shows {@code outbox.pending} and {@code outbox.lagMs} (age of the oldest pending event) as gauges,
+ * and {@code outbox.delivery} (time from write to successful processing) as a timing.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    /** Events leased per poll. */
+    static final int BATCH_SIZE = 100;
+
+    /** Polls per tick, so a backlog is worked off over several ticks instead of holding a scheduler thread. */
+    static final int MAX_BATCHES_PER_TICK = 10;
+
+    /** Attempts before an event is parked as dead. */
+    static final int MAX_ATTEMPTS = 10;
+
+    /** How long a lease is held before another poller may retry the event. */
+    static final int LEASE_SECONDS = 60;
+
+    /** Upper bound on retry backoff. */
+    static final long MAX_BACKOFF_SECONDS = 600;
+
+    private static final String LEASE_SQL =
+            "UPDATE outbox_events SET locked_until = NOW() + make_interval(secs => ?), attempts = attempts + 1 " +
+                    "WHERE id IN (" +
+                    "  SELECT id FROM outbox_events " +
+                    "  WHERE status = 'pending' AND available_at <= NOW() " +
+                    "    AND (locked_until IS NULL OR locked_until < NOW()) " +
+                    "  ORDER BY available_at, id LIMIT ? " +
+                    "  FOR UPDATE SKIP LOCKED" +
+                    ") RETURNING id, event_type, user_id, payload, attempts, created_at";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final Map<String, OutboxHandler> handlers = new HashMap<>();
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMs = new AtomicLong();
+
+    public OutboxDispatcher(JdbcTemplate jdbc, PlatformTransactionManager txManager, List<OutboxHandler> handlers) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        for (OutboxHandler h : handlers) {
+            if (this.handlers.put(h.type(), h) != null) {
+                throw new IllegalStateException("Duplicate outbox handler for " + h.type());
+            }
+        }
+        MetricsService.registerGauge("outbox.pending", pending::get);
+        MetricsService.registerGauge("outbox.lagMs", lagMs::get);
+    }
+
+    /**
+     * Processes pending events until a poll comes back short or {@value #MAX_BATCHES_PER_TICK} batches
+     * were handled, then refreshes the lag gauges.
+     */
+    @Scheduled(fixedDelay = 500, initialDelay = 5_000)
+    public void dispatch() {
+        int leased;
+        int batches = 0;
+        do {
+            List<OutboxEvent> batch = lease();
+            leased = batch.size();
+            for (OutboxEvent event : batch) {
+                process(event);
+            }
+        } while (leased == BATCH_SIZE && ++batches < MAX_BATCHES_PER_TICK);
+
+        refreshGauges();
+    }
+
+    List<OutboxEvent> lease() {
+        return jdbc.query(LEASE_SQL,
+                (rs, i) -> new OutboxEvent(
+                        rs.getLong("id"),
+                        rs.getString("event_type"),
+                        rs.getObject("user_id", Long.class),
+                        rs.getString("payload"),
+                        rs.getInt("attempts"),
+                        rs.getTimestamp("created_at").toInstant()),
+                LEASE_SECONDS, BATCH_SIZE);
+    }
+
+    void process(OutboxEvent event) {
+        OutboxHandler handler = handlers.get(event.type());
+        if (handler == null) {
+            fail(event, new IllegalStateException("No handler for outbox event type " + event.type()));
+            return;
+        }
+
+        try {
+            tx.executeWithoutResult(status -> {
+                handler.handle(event);
+                jdbc.update("UPDATE outbox_events SET status = 'done', processed_at = NOW(), locked_until = NULL, " +
+                        "last_error = NULL WHERE id = ?", event.id());
+            });
+            long deliveryMs = Instant.now().toEpochMilli() - event.createdAt().toEpochMilli();
+            MetricsService.recordTiming("outbox.delivery", deliveryMs * 1_000_000L);
+        } catch (RuntimeException ex) {
+            fail(event, ex);
+        }
+    }
+
+    private void fail(OutboxEvent event, RuntimeException ex) {
+        String error = String.valueOf(ex.getMessage());
+        if (event.attempts() >= MAX_ATTEMPTS) {
+            jdbc.update("UPDATE outbox_events SET status = 'dead', locked_until = NULL, last_error = ? WHERE id = ?",
+                    error, event.id());
+            logger.error("Outbox event {} ({}) failed {} times, giving up", event.id(), event.type(),
+                    event.attempts(), ex);
+            return;
+        }
+
+        jdbc.update("UPDATE outbox_events SET locked_until = NULL, last_error = ?, " +
+                        "available_at = NOW() + make_interval(secs => ?) WHERE id = ?",
+                error, backoffSeconds(event.attempts()), event.id());
+        logger.warn("Outbox event {} ({}) failed on attempt {}, will retry", event.id(), event.type(),
+                event.attempts(), ex);
+    }
+
+    /**
+     * Exponential backoff: 2, 4, 8, ... seconds, capped at {@value #MAX_BACKOFF_SECONDS}.
+     */
+    static long backoffSeconds(int attempts) {
+        return Math.min(MAX_BACKOFF_SECONDS, 1L << Math.min(attempts, 20));
+    }
+
+    private void refreshGauges() {
+        jdbc.query(
+                "SELECT COUNT(*), COALESCE(EXTRACT(EPOCH FROM (NOW() - MIN(created_at))) * 1000, 0) " +
+                        "FROM outbox_events WHERE status = 'pending'",
+                rs -> {
+                    pending.set(rs.getLong(1));
+                    lagMs.set(rs.getLong(2));
+                });
+    }
+
+    /**
+     * Deletes processed events older than a week. Runs daily.
+     */
+    @Scheduled(fixedDelay = 24 * 60 * 60 * 1000, initialDelay = 60 * 60 * 1000)
+    public void purgeProcessed() {
+        int deleted = jdbc.update(
+                "DELETE FROM outbox_events WHERE status = 'done' AND processed_at < NOW() - INTERVAL '7 days'");
+        if (deleted > 0) {
+            logger.info("Purged {} processed outbox events", deleted);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.sensum.backend.outbox;
+
+import java.time.Instant;
+
+/**
+ * A leased outbox row handed to an {@link OutboxHandler}.
+ *
+ * @param payload JSON object written by the producer
+ * @param attempts delivery attempts including the current one
+ */
+public record OutboxEvent(long id, String type, Long userId, String payload, int attempts, Instant createdAt) {}
@@ -0,0 +1,21 @@
+package com.sensum.backend.outbox;
+
+/**
+ * Processes one type of outbox event.
+ *
+ * <p>Implementations are Spring beans; {@link OutboxDispatcher} finds them by {@link #type()}. Each call runs
+ * in its own transaction together with marking the event done, so database writes made here commit exactly
+ * once. Delivery is at-least-once: if the transaction fails the event is retried later.</p>
+ */
+public interface OutboxHandler {
+
+    /**
+     * @return the {@code event_type} this handler processes (e.g. {@code "quest.completed"})
+     */
+    String type();
+
+    /**
+     * Applies the event's side effects. Throwing schedules a retry with backoff.
+     */
+    void handle(OutboxEvent event);
+}
@@ -0,0 +1,36 @@
+package com.sensum.backend.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated list.
+ *
+ * @param nextCursor cursor for the following page, or null on the last page
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    /**
+     * Builds a page from up to {@code limit + 1} rows: the extra row only signals that another page exists.
+     *
+     * @param cursorOf position of a row; the cursor of the last returned row becomes {@code nextCursor}
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, KeysetCursor> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(List.copyOf(items), cursorOf.apply(items.get(limit - 1)).encode());
+    }
+
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(items.stream().map(mapper).toList(), nextCursor);
+    }
+
+    /**
+     * Clamps a client-supplied page size to {@code [1, max]}.
+     */
+    public static int clampLimit(int limit, int max) {
+        return Math.min(Math.max(limit, 1), max);
+    }
+}
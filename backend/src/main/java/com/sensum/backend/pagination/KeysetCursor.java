@@ -0,0 +1,48 @@
+package com.sensum.backend.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Position in a newest-first list ordered by {@code (timestamp DESC, id DESC)}.
+ *
+ * <p>Clients treat the encoded form as opaque and send it back as {@code ?cursor=} to get the next page.
+ * The next page is then one index seek to {@code (timestamp, id) < (at, id)} — no OFFSET, and rows
+ * inserted above the cursor do not shift the pages below it.
+ *
+ * <p>Timestamps are kept at microsecond precision, which is what Postgres stores.
+ */
+public record KeysetCursor(Instant at, long id) {
+
+    public KeysetCursor {
+        at = at.truncatedTo(ChronoUnit.MICROS);
+    }
+
+    public String encode() {
+        String raw = ChronoUnit.MICROS.between(Instant.EPOCH, at) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a client-supplied cursor.
+     *
+     * @return null if {@code cursor} is null or blank (first page)
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            long micros = Long.parseLong(raw.substring(0, sep));
+            long id = Long.parseLong(raw.substring(sep + 1));
+            return new KeysetCursor(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), id);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.sensum.backend.quest;
 
+import com.sensum.backend.pagination.CursorPage;
+import com.sensum.backend.pagination.KeysetCursor;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
@@ -42,9 +44,15 @@ public class MeQuestCompletionsController {
     ) {
     }
 
+    /**
+     * Lists the user's completions newest first, one page at a time.
+     *
+     * @param cursor {@code nextCursor} of the previous page; omit for the first page
+     */
     @GetMapping("/completions")
     public ResponseEntity<?> listCompletions(
             @RequestParam(name = "limit", defaultValue = "50") int limit,
+            @RequestParam(name = "cursor", required = false) String cursor,
             HttpServletRequest req
     ) {
         Long userId = (Long) req.getAttribute("userId");
@@ -52,23 +60,29 @@ public class MeQuestCompletionsController {
             return ResponseEntity.status(401).build();
         }
 
-        int safeLimit = Math.min(Math.max(limit, 1), 200);
+        int safeLimit = CursorPage.clampLimit(limit, 200);
+        KeysetCursor after = KeysetCursor.decode(cursor);
 
-        List<QuestCompletion> completions = completionRepo.findByUserIdOrderByCompletedAtDesc(
-                userId,
-                PageRequest.of(0, safeLimit)
+        // One extra row tells us whether there is a next page.
+        PageRequest page = PageRequest.of(0, safeLimit + 1);
+        CursorPage<QuestCompletion> completions = CursorPage.of(
+                after == null
+                        ? completionRepo.findByUserIdOrderByCompletedAtDescIdDesc(userId, page)
+                        : completionRepo.findPageBefore(userId, after.at(), after.id(), page),
+                safeLimit,
+                c -> new KeysetCursor(c.getCompletedAt(), c.getId())
         );
 
         Map<Long, Quest> questsById = new HashMap<>();
-        if (!completions.isEmpty()) {
-            List<Quest> quests = questRepo.findAllById(completions.stream().map(QuestCompletion::getQuestId).distinct().toList());
+        if (!completions.items().isEmpty()) {
+            List<Quest> quests = questRepo.findAllById(completions.items().stream().map(QuestCompletion::getQuestId).distinct().toList());
             for (Quest q : quests) {
                 questsById.put(q.getId(), q);
             }
         }
 
         return ResponseEntity.ok(
-                completions.stream().map(c -> {
+                completions.map(c -> {
                     Quest q = questsById.get(c.getQuestId());
                     return new QuestCompletionResponse(
                             c.getId(),
@@ -79,7 +93,7 @@ public class MeQuestCompletionsController {
                             c.getMomentText(),
                             c.getCompletedAt()
                     );
-                }).toList()
+                })
         );
     }
 }
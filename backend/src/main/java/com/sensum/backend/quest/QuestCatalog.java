@@ -0,0 +1,143 @@
+package com.sensum.backend.quest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory, read-only index of the quest catalog.
+ *
+ * <h2>Why?</h2>
+ * The catalog is small (tens of rows) and changes only through migrations, but it is read on every
+ * recommendation request. Holding it in memory removes the catalog query from the serving path.
+ *
+ * <h2>Duration index</h2>
+ * Each category keeps its quests sorted by {@link Quest#getDurationSec()} next to a parallel {@code int[]} of
+ * durations, so "quests between min and max seconds" is two binary searches and a sub-list view.
+ *
+ * <h2>Freshness</h2>
+ * The snapshot is built on first use and rebuilt every few minutes; readers always see a complete,
+ * immutable snapshot.
+ */
+@Component
+public class QuestCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestCatalog.class);
+
+    private final QuestRepository questRepo;
+
+    private volatile Snapshot snapshot;
+
+    public QuestCatalog(QuestRepository questRepo) {
+        this.questRepo = questRepo;
+    }
+
+    /**
+     * Reloads the catalog from the database. Runs every 5 minutes.
+     */
+    @Scheduled(initialDelay = 300_000, fixedDelay = 300_000)
+    public void refresh() {
+        snapshot = Snapshot.of(questRepo.findAll());
+        logger.debug("Quest catalog loaded: {} quests", snapshot.byId.size());
+    }
+
+    /**
+     * @return the quest with this id, if it exists
+     */
+    public Optional<Quest> findById(Long id) {
+        return Optional.ofNullable(current().byId.get(id));
+    }
+
+    /**
+     * @return all quests in a category, shortest first (empty for unknown categories)
+     */
+    public List<Quest> byCategory(String category) {
+        return byCategory(category, null, null);
+    }
+
+    /**
+     * Returns quests in a category whose duration is within {@code [minSeconds, maxSeconds]}, shortest first.
+     *
+     * @param minSeconds inclusive lower bound, or null for no lower bound
+     * @param maxSeconds inclusive upper bound, or null for no upper bound
+     */
+    public List<Quest> byCategory(String category, Integer minSeconds, Integer maxSeconds) {
+        CategoryIndex index = current().byCategory.get(category);
+        if (index == null) {
+            return List.of();
+        }
+        int from = minSeconds == null ? 0 : firstAtLeast(index.durations, minSeconds);
+        int to = maxSeconds == null || maxSeconds == Integer.MAX_VALUE
+                ? index.durations.length
+                : firstAtLeast(index.durations, maxSeconds + 1);
+        return from >= to ? List.of() : index.quests.subList(from, to);
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    refresh();
+                }
+                s = snapshot;
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Lower-bound binary search: index of the first element {@code >= key} (or length if none).
+     */
+    private static int firstAtLeast(int[] sorted, int key) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private record CategoryIndex(List<Quest> quests, int[] durations) {}
+
+    private record Snapshot(Map<Long, Quest> byId, Map<String, CategoryIndex> byCategory) {
+
+        static Snapshot of(List<Quest> all) {
+            Map<Long, Quest> byId = new HashMap<>();
+            Map<String, List<Quest>> grouped = new HashMap<>();
+            for (Quest q : all) {
+                byId.put(q.getId(), q);
+                if (q.getCategory() == null) {
+                    continue;
+                }
+                grouped.computeIfAbsent(q.getCategory(), c -> new ArrayList<>()).add(q);
+            }
+
+            Map<String, CategoryIndex> byCategory = new HashMap<>();
+            for (Map.Entry<String, List<Quest>> e : grouped.entrySet()) {
+                Quest[] sorted = e.getValue().toArray(new Quest[0]);
+                Arrays.sort(sorted, Comparator.comparingInt(Quest::getDurationSec).thenComparing(Quest::getId));
+                int[] durations = new int[sorted.length];
+                for (int i = 0; i < sorted.length; i++) {
+                    durations[i] = sorted[i].getDurationSec();
+                }
+                byCategory.put(e.getKey(), new CategoryIndex(List.of(sorted), durations));
+            }
+            return new Snapshot(Map.copyOf(byId), Map.copyOf(byCategory));
+        }
+    }
+}
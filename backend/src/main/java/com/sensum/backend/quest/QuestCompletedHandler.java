@@ -0,0 +1,83 @@
+package com.sensum.backend.quest;
+
+import com.sensum.backend.achievement.AchievementService;
+import com.sensum.backend.friends.FeedTimeline;
+import com.sensum.backend.outbox.Outbox;
+import com.sensum.backend.outbox.OutboxEvent;
+import com.sensum.backend.outbox.OutboxHandler;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/**
+ * Applies the side effects of a quest completion after the completion itself has committed.
+ *
+ * <p>Written by {@link QuestCompletionService} as a {@value #TYPE} outbox event with payload
+ * {@code {"questId": 1, "completionId": 7, "momentText": "..."}} (momentText is present only when the user
+ * wrote a non-blank reflection). In order:</p>
+ * <ol>
+ *   <li>Save the reflection as a standalone moment.</li>
+ *   <li>Evaluate achievements for the stats a completion changes (quest count, streak, level; one query).</li>
+ *   <li>Count the completion in the global popularity stats ({@link QuestPopularity}).</li>
+ *   <li>Copy the completion into friends' activity timelines ({@link FeedTimeline}).</li>
+ * </ol>
+ *
+ * <p>Unlocked achievements are picked up by the client via {@code GET /achievements/recent}.</p>
+ */
+@Component
+public class QuestCompletedHandler implements OutboxHandler {
+
+    static final String TYPE = "quest.completed";
+
+    /** Stats a completion can change; the others are not re-read. */
+    private static final List<String> COMPLETION_STATS = List.of("questCount", "streak", "level");
+
+    private final Outbox outbox;
+    private final JdbcTemplate jdbc;
+    private final AchievementService achievementService;
+    private final QuestCatalog catalog;
+    private final QuestPopularity popularity;
+    private final FeedTimeline feedTimeline;
+
+    public QuestCompletedHandler(
+            Outbox outbox,
+            JdbcTemplate jdbc,
+            AchievementService achievementService,
+            QuestCatalog catalog,
+            QuestPopularity popularity,
+            FeedTimeline feedTimeline
+    ) {
+        this.outbox = outbox;
+        this.jdbc = jdbc;
+        this.achievementService = achievementService;
+        this.catalog = catalog;
+        this.popularity = popularity;
+        this.feedTimeline = feedTimeline;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        JsonNode payload = outbox.read(event);
+        Long userId = event.userId();
+        long questId = payload.get("questId").asLong();
+
+        if (payload.hasNonNull("momentText")) {
+            jdbc.update("INSERT INTO moments (user_id, text) VALUES (?, ?)", userId, payload.get("momentText").asString());
+        }
+
+        achievementService.evaluate(userId, COMPLETION_STATS);
+
+        catalog.findById(questId).ifPresent(popularity::recordCompletion);
+
+        if (payload.hasNonNull("completionId")) {
+            feedTimeline.fanOut(payload.get("completionId").asLong());
+        }
+    }
+}
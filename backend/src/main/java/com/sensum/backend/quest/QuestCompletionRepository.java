@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
 
 /**
@@ -18,20 +19,22 @@ public interface QuestCompletionRepository extends JpaRepository<QuestCompletion
     List<QuestCompletion> findTop1ByUserIdOrderByCompletedAtDesc(Long userId);
 
     /**
-     * Returns recent completions for a user (used by friend feeds).
+     * Returns completions for a user, newest first (first page of the history).
      */
-    List<QuestCompletion> findTop10ByUserIdOrderByCompletedAtDesc(Long userId);
+    List<QuestCompletion> findByUserIdOrderByCompletedAtDescIdDesc(Long userId, Pageable pageable);
 
     /**
-     * Returns completions for a user, newest first.
+     * Returns completions for a user strictly after the keyset position {@code (at, id)} in newest-first order.
      */
-    List<QuestCompletion> findByUserIdOrderByCompletedAtDesc(Long userId, Pageable pageable);
+    @Query("SELECT qc FROM QuestCompletion qc WHERE qc.userId = :userId " +
+            "AND (qc.completedAt < :at OR (qc.completedAt = :at AND qc.id < :id)) " +
+            "ORDER BY qc.completedAt DESC, qc.id DESC")
+    List<QuestCompletion> findPageBefore(@Param("userId") Long userId, @Param("at") Instant at,
+                                         @Param("id") Long id, Pageable pageable);
 
     /**
      * Counts total quest completions for a user.
      */
     @Query("SELECT COUNT(qc) FROM QuestCompletion qc WHERE qc.userId = :userId")
     long countByUserId(@Param("userId") Long userId);
-
-    
 }
@@ -0,0 +1,170 @@
+package com.sensum.backend.quest;
+
+import com.sensum.backend.outbox.Outbox;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records a quest completion in one transaction and one statement.
+ *
+ * <h2>Round trips</h2>
+ * The quest comes from {@link QuestCatalog} (no query). Everything else is one statement
+ * (see {@link #COMPLETE_SQL}) that inserts the completion and the outcome, updates XP/level/streak with
+ * {@code UPDATE ... RETURNING}, and writes a {@value QuestCompletedHandler#TYPE} outbox event.
+ *
+ * <h2>Side effects</h2>
+ * The moment, achievement evaluation and popularity counters are applied asynchronously by
+ * {@link QuestCompletedHandler} once the completion has committed (transactional outbox, at-least-once), so
+ * the user-facing latency is a single transaction.
+ *
+ * <h2>Concurrency</h2>
+ * The new XP, level and streak are computed by the database from the row's current values
+ * ({@code xp = xp + ?}, a {@code CASE} on {@code last_completed_date}), never from a copy read earlier.
+ * Concurrent completions for the same user (e.g. web app and extension) queue on the row lock for the
+ * duration of one statement and each applies its increment to the latest committed value, so no update is
+ * lost and no explicit locking is needed.
+ */
+@Service
+public class QuestCompletionService {
+
+    static final String COMPLETE_SQL =
+            "WITH completion AS (" +
+                    "  INSERT INTO quest_completions (user_id, quest_id, mood, moment_text) VALUES (?, ?, ?, ?) " +
+                    "  RETURNING id" +
+                    "), outcome AS (" +
+                    "  INSERT INTO quest_outcomes (user_id, quest_id, outcome) VALUES (?, ?, 'completed')" +
+                    "), event AS (" +
+                    // Outbox row (event_type, user_id, payload); the new completion id is added to the payload.
+                    "  INSERT INTO outbox_events (event_type, user_id, payload) " +
+                    "  SELECT ?, ?, (CAST(? AS jsonb) || jsonb_build_object('completionId', completion.id))::text " +
+                    "  FROM completion" +
+                    "), progress AS (" +
+                    "  UPDATE users SET " +
+                    "    xp = xp + ?, " +
+                    "    level = 1 + (xp + ?) / 500, " +
+                    "    streak = CASE " +
+                    "      WHEN last_completed_date = CAST(? AS DATE) THEN streak " +
+                    "      WHEN last_completed_date = CAST(? AS DATE) - 1 THEN streak + 1 " +
+                    "      ELSE 1 END, " +
+                    "    last_completed_date = CAST(? AS DATE) " +
+                    "  WHERE id = ? RETURNING xp, level, streak" +
+                    ") " +
+                    // Database clock, so clients compare it with unlocked_at (also NOW()) on one clock.
+                    "SELECT xp, level, streak, NOW() AS completed_at FROM progress";
+
+    private final QuestCatalog catalog;
+    private final Outbox outbox;
+    private final JdbcTemplate jdbc;
+
+    public QuestCompletionService(QuestCatalog catalog, Outbox outbox, JdbcTemplate jdbc) {
+        this.catalog = catalog;
+        this.outbox = outbox;
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Completes a quest for a user.
+     *
+     * @param userId authenticated user id
+     * @param questId quest being completed
+     * @param mood optional mood label (max 40 chars)
+     * @param momentText optional reflection (max 200 chars); a non-blank value is also saved as a moment
+     * @return new progress
+     * @throws IllegalArgumentException on invalid input or unknown quest/user
+     */
+    @Transactional
+    public Result complete(Long userId, Long questId, String mood, String momentText) {
+        if (questId == null) {
+            throw new IllegalArgumentException("questId is required");
+        }
+
+        Quest q = catalog.findById(questId)
+                .orElseThrow(() -> new IllegalArgumentException("Invalid questId"));
+
+        if (momentText != null && momentText.length() > 200) {
+            throw new IllegalArgumentException("momentText must be 200 characters or less");
+        }
+
+        if (mood != null && mood.length() > 40) {
+            throw new IllegalArgumentException("mood is too long");
+        }
+
+        // Progress rule (applied in SQL): 10 XP per full minute, a level every 500 XP, streak counts
+        // consecutive days (same day keeps it, the day after extends it, anything else resets to 1).
+        int gainedXp = (q.getDurationSec() / 60) * 10;
+        Date today = Date.valueOf(LocalDate.now());
+
+        Map<String, Object> event = new HashMap<>();
+        event.put("questId", questId);
+        if (momentText != null && !momentText.isBlank()) {
+            event.put("momentText", momentText.trim());
+        }
+
+        Progress p;
+        try {
+            p = jdbc.queryForObject(
+                    COMPLETE_SQL,
+                    (rs, i) -> new Progress(rs.getInt("xp"), rs.getInt("level"), rs.getInt("streak"),
+                            rs.getTimestamp("completed_at").toInstant()),
+                    userId, questId, mood, momentText,
+                    userId, questId,
+                    QuestCompletedHandler.TYPE, userId, outbox.toJson(event),
+                    gainedXp, gainedXp, today, today, today, userId);
+        } catch (DataIntegrityViolationException ex) {
+            // The inserts reference users(id); a missing user fails the whole statement. Any other
+            // violation (quest FK, check constraint, duplicate key) is a real error and propagates.
+            if (isMissingUser(ex)) {
+                throw new IllegalArgumentException("Invalid userId");
+            }
+            throw ex;
+        } catch (EmptyResultDataAccessException ex) {
+            // The progress UPDATE matched no user row.
+            throw new IllegalArgumentException("Invalid userId");
+        }
+
+        return new Result(q, p.xp(), p.level(), p.streak(), gainedXp, p.completedAt());
+    }
+
+    /** The {@code user_id -> users(id)} foreign keys of the tables {@link #COMPLETE_SQL} inserts into. */
+    static final Set<String> USER_FOREIGN_KEYS = Set.of(
+            "quest_completions_user_id_fkey", "quest_outcomes_user_id_fkey", "outbox_events_user_id_fkey");
+
+    /**
+     * @return true if the violation is one of {@link #USER_FOREIGN_KEYS} (SQLState 23503, constraint name
+     *     as reported by the server)
+     */
+    static boolean isMissingUser(DataIntegrityViolationException ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof PSQLException psql) {
+                ServerErrorMessage error = psql.getServerErrorMessage();
+                return "23503".equals(psql.getSQLState())
+                        && error != null && USER_FOREIGN_KEYS.contains(error.getConstraint());
+            }
+        }
+        return false;
+    }
+
+    /** Row returned by {@link #COMPLETE_SQL}. */
+    record Progress(int xp, int level, int streak, Instant completedAt) {}
+
+    /**
+     * Outcome of a completion.
+     *
+     * @param quest the completed quest
+     * @param unlockedSince lower bound for achievements this completion may unlock (for polling); database
+     *     time of the completion transaction
+     */
+    public record Result(Quest quest, int xp, int level, int streak, int gainedXp, Instant unlockedSince) {}
+}
@@ -1,22 +1,19 @@
 package com.sensum.backend.quest;
 
-import com.sensum.backend.user.User;
-import com.sensum.backend.user.UserRepository;
-import com.sensum.backend.achievement.AchievementService;
-import com.sensum.backend.achievement.Achievement;
-import com.sensum.backend.friends.FriendshipRepository;
-import com.sensum.backend.moments.Moment;
-import com.sensum.backend.moments.MomentRepository;
+import com.sensum.backend.idempotency.IdempotencyService;
+import com.sensum.backend.observability.MetricsService;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDate;
-import java.util.Collections;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Quest API for the Sensum backend.
@@ -27,12 +24,15 @@ import java.util.Map;
  *
  * <h2>Main responsibilities</h2>
  * <ul>
- *   <li>Recommend quests for a given path/category.</li>
+ *   <li>Recommend quests for a given path/category (or several paths at once).</li>
  *   <li>Record quest completions and update user progress (XP/level/streak).</li>
  *   <li>Record interaction outcomes (completed/skipped/snoozed) to drive personalization.</li>
- *   <li>Trigger achievement evaluation after a completion.</li>
+ *   <li>Hide snoozed quests from recommendations until their snooze expires.</li>
+ *   <li>Trigger achievement evaluation after a completion (asynchronously, via the outbox).</li>
  * </ul>
  *
+ * <p>The mutation endpoints (complete/skip/snooze) accept an optional {@code Idempotency-Key} header.</p>
+ *
  * <h2>Authentication</h2>
  * Most endpoints require an authenticated user. The authenticated user id is injected into the
  * {@link HttpServletRequest} by the JWT auth filter and read from the request attribute "userId".
@@ -42,114 +42,121 @@ import java.util.Map;
 public class QuestController {
 
     private final QuestRepository questRepo;
-    private final UserRepository userRepo;
-    private final QuestCompletionRepository completionRepo;
-    private final FriendshipRepository friendshipRepo;
     private final QuestOutcomeRepository outcomeRepo;
-    private final MomentRepository momentRepo;
-    private AchievementService achievementService;
+    private final QuestCompletionService completionService;
+    private final QuestRecommendationService recommendationService;
+    private final QuestSnoozeRegistry snoozeRegistry;
+    private final QuestPopularity popularity;
+    private final IdempotencyService idempotency;
+
+    /** Upper bound on paths per batch request (there are only a handful of categories). */
+    private static final int MAX_BATCH_PATHS = 10;
+
+    /** Default snooze length when the client does not send {@code minutes}. */
+    private static final int DEFAULT_SNOOZE_MINUTES = 60;
+
+    /** Longest allowed snooze (one week). */
+    private static final int MAX_SNOOZE_MINUTES = 7 * 24 * 60;
 
     public QuestController(
             QuestRepository questRepo,
-            UserRepository userRepo,
-            QuestCompletionRepository completionRepo,
-            AchievementService achievementService,
-            FriendshipRepository friendshipRepo,
             QuestOutcomeRepository outcomeRepo,
-            MomentRepository momentRepo
+            QuestCompletionService completionService,
+            QuestRecommendationService recommendationService,
+            QuestSnoozeRegistry snoozeRegistry,
+            QuestPopularity popularity,
+            IdempotencyService idempotency
     ) {
         this.questRepo = questRepo;
-        this.userRepo = userRepo;
-        this.completionRepo = completionRepo;
-        this.achievementService = achievementService;
-        this.friendshipRepo = friendshipRepo;
         this.outcomeRepo = outcomeRepo;
-        this.momentRepo = momentRepo;
+        this.completionService = completionService;
+        this.recommendationService = recommendationService;
+        this.snoozeRegistry = snoozeRegistry;
+        this.popularity = popularity;
+        this.idempotency = idempotency;
     }
 
     /**
      * Returns up to 3 quest recommendations for the given path/category.
      *
-     * <p>If the caller is not authenticated (no userId on the request), this endpoint falls back to a simple
-     * random shuffle and returns 3 items.</p>
+     * <p>If the caller is not authenticated (no userId on the request) or has no history yet, quests are ranked
+     * by global popularity (see {@link QuestPopularity}) with a small random component.</p>
      *
      * <p>If authenticated, this endpoint computes a score for each quest using the user's historical outcomes
      * (completed increases score, skipped decreases score) and returns the top results with a small random
-     * component so results are not identical every time.</p>
+     * component so results are not identical every time. See {@link QuestRecommendationService}.</p>
+     *
+     * <p>Optional {@code minSeconds}/{@code maxSeconds} restrict candidates to quests that fit the time the user
+     * has ("I have N minutes"). The range is served from the in-memory duration index in {@link QuestCatalog}.</p>
      *
      * @param path quest category/path (e.g., "calm")
+     * @param minSeconds optional inclusive minimum duration in seconds
+     * @param maxSeconds optional inclusive maximum duration in seconds
      * @param httpReq current HTTP request (used to read authenticated userId)
      * @return list of up to 3 quests
      */
     @GetMapping("/recommendations")
-    public List<Quest> recommendations(@RequestParam String path, HttpServletRequest httpReq) {
+    public List<Quest> recommendations(
+            @RequestParam String path,
+            @RequestParam(required = false) Integer minSeconds,
+            @RequestParam(required = false) Integer maxSeconds,
+            HttpServletRequest httpReq
+    ) {
         Long userId = (Long) httpReq.getAttribute("userId");
-        
-        List<Quest> pool = questRepo.findByCategory(path);
-        
-        // If user is not logged in, or no history yet, just shuffle.
-        if (userId == null || pool.isEmpty()) {
-            Collections.shuffle(pool);
-            return pool.stream().limit(3).toList();
-        }
-        
-        // Calculate scores for each quest.
-        Map<Long, Double> scores = calculateQuestScores(userId, pool);
-        
-        // Sort by score (higher = better), but add some randomness.
-        List<Quest> sorted = pool.stream()
-            .sorted((q1, q2) -> {
-                double score1 = scores.getOrDefault(q1.getId(), 0.0);
-                double score2 = scores.getOrDefault(q2.getId(), 0.0);
-                // Add small random factor so it's not always the same 3
-                double random1 = Math.random() * 0.5; // 0 to 0.5
-                double random2 = Math.random() * 0.5;
-                return Double.compare(score2 + random2, score1 + random1);
-            })
-            .toList();
-        
-        return sorted.stream().limit(3).toList();
+        validateDurationRange(minSeconds, maxSeconds);
+        return recommendationService.recommend(userId, path, minSeconds, maxSeconds);
     }
-    
+
     /**
-     * Computes per-quest scores for the given user.
+     * Returns recommendations for several paths in one round trip.
      *
-     * <p>Scoring model (v1):</p>
-     * $$score = 2 \times completed - 1 \times skipped$$
+     * <p>Intended for the Today page, which shows a slate for every path in {@code UserSettings.selectedPaths}.
+     * The user's outcome history is loaded once and shared across all paths.</p>
      *
-     * <p>Notes:</p>
-     * <ul>
-     *   <li>"snoozed" is recorded but not currently used in scoring.</li>
-     *   <li>Unknown quests (no outcomes) default to 0.0.</li>
-     * </ul>
+     * <p>Example: {@code GET /quests/recommendations/batch?paths=calm,fitness,study&maxSeconds=300}</p>
      *
-     * @param userId authenticated user id
-     * @param quests candidate quests
-     * @return map questId -> score
+     * @param paths comma-separated quest categories/paths (duplicates and blanks are ignored)
+     * @param minSeconds optional inclusive minimum duration in seconds
+     * @param maxSeconds optional inclusive maximum duration in seconds
+     * @param httpReq current HTTP request (used to read authenticated userId)
+     * @return map path -> list of up to 3 quests, in the order the paths were requested
      */
-    private Map<Long, Double> calculateQuestScores(Long userId, List<Quest> quests) {
-        Map<Long, Double> scores = new HashMap<>();
-        
-        // Get all outcomes for this user at once.
-        List<QuestOutcomeRepository.QuestScoreProjection> userScores = 
-            outcomeRepo.getQuestScoresForUser(userId);
-        
-        // Build a map: questId -> score.
-        Map<Long, Double> outcomeScores = new HashMap<>();
-        for (var proj : userScores) {
-            long completed = proj.getCompleted();
-            long skipped = proj.getSkipped();
-            // Score formula: completed worth +2, skipped worth -1.
-            double score = (completed * 2.0) - (skipped * 1.0);
-            outcomeScores.put(proj.getQuestId(), score);
+    @GetMapping("/recommendations/batch")
+    public Map<String, List<Quest>> recommendationsBatch(
+            @RequestParam List<String> paths,
+            @RequestParam(required = false) Integer minSeconds,
+            @RequestParam(required = false) Integer maxSeconds,
+            HttpServletRequest httpReq
+    ) {
+        Long userId = (Long) httpReq.getAttribute("userId");
+
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String p : paths) {
+            if (p != null && !p.isBlank()) {
+                distinct.add(p.trim());
+            }
         }
-        
-        // For each quest in the pool, get its score (or 0 if never tried).
-        for (Quest q : quests) {
-            scores.put(q.getId(), outcomeScores.getOrDefault(q.getId(), 0.0));
+        if (distinct.isEmpty()) {
+            throw new IllegalArgumentException("paths is required");
+        }
+        if (distinct.size() > MAX_BATCH_PATHS) {
+            throw new IllegalArgumentException("at most " + MAX_BATCH_PATHS + " paths are allowed");
+        }
+        validateDurationRange(minSeconds, maxSeconds);
+
+        return recommendationService.recommendForPaths(userId, distinct, minSeconds, maxSeconds);
+    }
+
+    /**
+     * Rejects negative or inverted duration filters.
+     */
+    private static void validateDurationRange(Integer minSeconds, Integer maxSeconds) {
+        if ((minSeconds != null && minSeconds < 0) || (maxSeconds != null && maxSeconds < 0)) {
+            throw new IllegalArgumentException("minSeconds and maxSeconds must not be negative");
+        }
+        if (minSeconds != null && maxSeconds != null && minSeconds > maxSeconds) {
+            throw new IllegalArgumentException("minSeconds must not be greater than maxSeconds");
         }
-        
-        return scores;
     }
 
     /**
@@ -157,106 +164,55 @@ public class QuestController {
      *
      * <h3>What this does</h3>
      * <ol>
-     *   <li>Validates request and loads quest/user.</li>
+     *   <li>Validates request and looks up the quest.</li>
      *   <li>Creates a {@link QuestCompletion} row (the user's "moment" reflection).</li>
      *   <li>Creates a {@link QuestOutcome} row with outcome="completed" (for personalization).</li>
      *   <li>Updates user XP/level/streak.</li>
-     *   <li>Evaluates achievements and returns newly unlocked achievements.</li>
+     *   <li>Queues the moment, achievement evaluation and popularity update (see {@link QuestCompletedHandler}).</li>
      * </ol>
      *
+     * <p>All writes happen in one transaction and one statement; see {@link QuestCompletionService}. Latency
+     * is reported on /metrics as {@code quest.complete}.</p>
+     *
+     * <p>{@code newAchievements} is always empty now that achievements are evaluated after the response.
+     * Clients fetch unlocks with {@code GET /achievements/recent?since=<unlockedSince>}.</p>
+     *
+     * <p>An optional {@code Idempotency-Key} header makes retries safe: a repeated key returns the original
+     * response without completing the quest again (see {@link IdempotencyService}).</p>
+     *
      * <p>Security note: request.userId is ignored; the authenticated userId is used instead.</p>
      */
     @PostMapping("/complete")
-    public ResponseEntity<?> complete(@RequestBody CompleteRequest req, HttpServletRequest httpReq) {
+    public ResponseEntity<?> complete(
+            @RequestBody CompleteRequest req,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpReq
+    ) {
         Long authUserId = (Long) httpReq.getAttribute("userId");
         if (authUserId == null) {
             return ResponseEntity.status(401).build();
         }
 
-        if (req.questId == null) {
-            throw new IllegalArgumentException("questId is required");
-        }
-
-        Quest q = questRepo.findById(req.questId)
-                .orElseThrow(() -> new IllegalArgumentException("Invalid questId"));
-
-        User u = userRepo.findById(authUserId)
-                .orElseThrow(() -> new IllegalArgumentException("Invalid userId"));
-
-        if (req.momentText != null && req.momentText.length() > 200) {
-            throw new IllegalArgumentException("momentText must be 200 characters or less");
-        }
-        
-        if (req.mood != null && req.mood.length() > 40) {
-            throw new IllegalArgumentException("mood is too long");
-        }
-
-        // 1) Insert completion row.
-        QuestCompletion c = new QuestCompletion();
-        c.setUserId(authUserId);
-        c.setQuestId(req.questId);
-        c.setMood(req.mood);
-        c.setMomentText(req.momentText);
-        completionRepo.save(c);
-
-        // If the user wrote a reflection, also persist it as a standalone moment.
-        if (req.momentText != null) {
-            String trimmed = req.momentText.trim();
-            if (!trimmed.isEmpty()) {
-                Moment m = new Moment();
-                m.setUserId(authUserId);
-                m.setText(trimmed);
-                momentRepo.save(m);
-            }
-        }
-
-        // Also save as an outcome for personalization.
-        QuestOutcome outcome = new QuestOutcome(authUserId, req.questId, "completed");
-        outcomeRepo.save(outcome);
-
-        // 2) Update progress.
-        int gainedXp = (q.getDurationSec() / 60) * 10; // simple rule
-        u.xp += gainedXp;
-        u.level = 1 + (u.xp / 500);
-
-        LocalDate today = LocalDate.now();
-        if (u.lastCompletedDate == null) {
-            u.streak = 1;
-        } else if (u.lastCompletedDate.equals(today)) {
-            // same day -> streak unchanged
-        } else if (u.lastCompletedDate.equals(today.minusDays(1))) {
-            u.streak += 1;
-        } else {
-            u.streak = 1;
-        }
-        u.lastCompletedDate = today;
-        userRepo.save(u);
-
-        // 3) Build stats for achievements.
-        Map<String, Integer> userStats = new HashMap<>();
-        userStats.put("questCount", (int) completionRepo.countByUserId(authUserId));
-        userStats.put("streak", u.streak);
-        userStats.put("level", u.level);
-        long friendCount = friendshipRepo.countByUserIdAndStatus(authUserId, "accepted");
-        userStats.put("friendCount", (int) friendCount);
-
-        // 4) Unlock achievements.
-        List<Achievement> newAchievements = achievementService.unlockAchievementsForUser(authUserId, userStats);
+        long started = System.nanoTime();
+        ResponseEntity<?> response = idempotency.execute(authUserId, idempotencyKey, "quest.complete", () -> {
+            QuestCompletionService.Result result =
+                    completionService.complete(authUserId, req.questId, req.mood, req.momentText);
+            return completionResponse(result);
+        });
+        MetricsService.recordTiming("quest.complete", System.nanoTime() - started);
+        return response;
+    }
 
-        // 5) Build response.
+    private static Map<String, Object> completionResponse(QuestCompletionService.Result result) {
         Map<String, Object> response = new HashMap<>();
-        response.put("xp", u.xp);
-        response.put("level", u.level);
-        response.put("streak", u.streak);
-        response.put("gainedXp", gainedXp);
-        response.put("newAchievements", newAchievements.stream().map(a -> Map.of(
-                "id", a.getId(),
-                "name", a.getName(),
-                "icon", a.getIcon(),
-                "description", a.getDescription()
-        )).toList());
-
-        return ResponseEntity.ok(response);
+        response.put("xp", result.xp());
+        response.put("level", result.level());
+        response.put("streak", result.streak());
+        response.put("gainedXp", result.gainedXp());
+        // Achievements are evaluated asynchronously; clients poll /achievements/recent?since=unlockedSince.
+        response.put("newAchievements", List.of());
+        response.put("unlockedSince", result.unlockedSince());
+        return response;
     }
 
     /**
@@ -264,9 +220,15 @@ public class QuestController {
      *
      * <p>This does not change XP/level/streak. It only records a {@link QuestOutcome} with outcome="skipped"
      * to influence future recommendations.</p>
+     *
+     * <p>Accepts an optional {@code Idempotency-Key} header; retries with the same key are not recorded twice.</p>
      */
     @PostMapping("/skip")
-    public ResponseEntity<?> skip(@RequestBody SkipRequest req, HttpServletRequest httpReq) {
+    public ResponseEntity<?> skip(
+            @RequestBody SkipRequest req,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpReq
+    ) {
         Long userId = (Long) httpReq.getAttribute("userId");
         if (userId == null) {
             return ResponseEntity.status(401).build();
@@ -277,24 +239,34 @@ public class QuestController {
         }
         
         // Verify quest exists.
-        questRepo.findById(req.questId)
+        Quest q = questRepo.findById(req.questId)
             .orElseThrow(() -> new IllegalArgumentException("Invalid questId"));
         
-        // Save the skip outcome.
-        QuestOutcome outcome = new QuestOutcome(userId, req.questId, "skipped");
-        outcomeRepo.save(outcome);
-        
-        return ResponseEntity.ok(Map.of("message", "Quest skipped"));
+        return idempotency.execute(userId, idempotencyKey, "quest.skip", () -> {
+            // Save the skip outcome.
+            QuestOutcome outcome = new QuestOutcome(userId, req.questId, "skipped");
+            outcomeRepo.save(outcome);
+            popularity.recordSkip(q);
+            return Map.of("message", "Quest skipped");
+        });
     }
     
     /**
-     * Records that the user snoozed a quest.
+     * Records that the user snoozed a quest and hides it from recommendations for a while.
      *
-     * <p>Currently we only record the outcome (outcome="snoozed") and return success. A future v2 feature
-     * could store a snooze-until timestamp and suppress recommendations until that time.</p>
+     * <p>The outcome row (outcome="snoozed") stores the snooze-until timestamp so it survives restarts. The
+     * deadline is also registered in {@link QuestSnoozeRegistry}, which the recommendation path consults
+     * without an extra query.</p>
+     *
+     * <p>{@code minutes} is optional (default {@value #DEFAULT_SNOOZE_MINUTES}, max one week). Accepts an
+     * optional {@code Idempotency-Key} header; a retry returns the original {@code snoozedUntil}.</p>
      */
     @PostMapping("/snooze")
-    public ResponseEntity<?> snooze(@RequestBody SnoozeRequest req, HttpServletRequest httpReq) {
+    public ResponseEntity<?> snooze(
+            @RequestBody SnoozeRequest req,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpReq
+    ) {
         Long userId = (Long) httpReq.getAttribute("userId");
         if (userId == null) {
             return ResponseEntity.status(401).build();
@@ -303,22 +275,32 @@ public class QuestController {
         if (req.questId == null) {
             throw new IllegalArgumentException("questId is required");
         }
+
+        int minutes = req.minutes == null ? DEFAULT_SNOOZE_MINUTES : req.minutes;
+        if (minutes < 1 || minutes > MAX_SNOOZE_MINUTES) {
+            throw new IllegalArgumentException("minutes must be between 1 and " + MAX_SNOOZE_MINUTES);
+        }
         
         // Verify quest exists.
         questRepo.findById(req.questId)
             .orElseThrow(() -> new IllegalArgumentException("Invalid questId"));
         
-        // Save the snooze outcome.
-        QuestOutcome outcome = new QuestOutcome(userId, req.questId, "snoozed");
-        outcomeRepo.save(outcome);
-        
-        return ResponseEntity.ok(Map.of("message", "Quest snoozed"));
+        return idempotency.execute(userId, idempotencyKey, "quest.snooze", () -> {
+            // Save the snooze outcome.
+            Instant until = Instant.now().plus(minutes, ChronoUnit.MINUTES);
+            QuestOutcome outcome = new QuestOutcome(userId, req.questId, "snoozed");
+            outcome.setSnoozedUntil(until);
+            outcomeRepo.save(outcome);
+
+            snoozeRegistry.snooze(userId, req.questId, until);
+            return Map.of("message", "Quest snoozed", "snoozedUntil", until);
+        });
     }
     
     /** Request DTO for /quests/skip. */
     public record SkipRequest(Long questId) {}
-    /** Request DTO for /quests/snooze. */
-    public record SnoozeRequest(Long questId) {}
+    /** Request DTO for /quests/snooze ({@code minutes} is optional). */
+    public record SnoozeRequest(Long questId, Integer minutes) {}
 
     /**
      * Request body for /quests/complete.
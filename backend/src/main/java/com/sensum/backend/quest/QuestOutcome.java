@@ -20,6 +20,10 @@ import java.time.Instant;
  *   <li>{@code skipped}</li>
  *   <li>{@code snoozed}</li>
  * </ul>
+ *
+ * <h2>Snoozes</h2>
+ * A "snoozed" outcome also stores {@link #snoozedUntil}; the quest is hidden from recommendations until then
+ * (see {@link QuestSnoozeRegistry}).
  */
 @Entity
 @Table(name = "quest_outcomes")
@@ -41,6 +45,9 @@ public class QuestOutcome {
     @Column(name = "created_at", nullable = false)
     private Instant createdAt = Instant.now();
 
+    @Column(name = "snoozed_until")
+    private Instant snoozedUntil;
+
     /** Default constructor required by JPA. */
     public QuestOutcome() {}
 
@@ -96,4 +103,12 @@ public class QuestOutcome {
     public void setCreatedAt(Instant createdAt) {
         this.createdAt = createdAt;
     }
+
+    public Instant getSnoozedUntil() {
+        return snoozedUntil;
+    }
+
+    public void setSnoozedUntil(Instant snoozedUntil) {
+        this.snoozedUntil = snoozedUntil;
+    }
 }
\ No newline at end of file
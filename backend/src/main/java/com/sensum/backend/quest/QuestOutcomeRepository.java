@@ -4,6 +4,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
 
 /**
@@ -65,4 +66,25 @@ public interface QuestOutcomeRepository extends JpaRepository<QuestOutcome, Long
         Long getCompleted();
         Long getSkipped();
     }
+
+    /**
+     * Returns snoozes whose deadline is still in the future (used to rebuild {@link QuestSnoozeRegistry}).
+     *
+     * @param now current time
+     */
+    @Query("""
+        SELECT q.userId as userId, q.questId as questId, q.snoozedUntil as snoozedUntil
+        FROM QuestOutcome q
+        WHERE q.snoozedUntil > :now
+    """)
+    List<ActiveSnoozeProjection> findActiveSnoozes(@Param("now") Instant now);
+
+    /**
+     * Projection interface for {@link #findActiveSnoozes(Instant)}.
+     */
+    interface ActiveSnoozeProjection {
+        Long getUserId();
+        Long getQuestId();
+        Instant getSnoozedUntil();
+    }
 }
\ No newline at end of file
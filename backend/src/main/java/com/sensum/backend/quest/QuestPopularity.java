@@ -0,0 +1,174 @@
+package com.sensum.backend.quest;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Global (all users) completion/skip counters per quest, used as a cold-start prior for recommendations.
+ *
+ * <h2>Write path</h2>
+ * Completions and skips increment striped {@link LongAdder} counters, so the hot path never touches the
+ * database or contends on a single lock. A scheduled task flushes the accumulated deltas to the
+ * {@code quest_stats} table every few seconds as one batched upsert. Inside a transaction the increment
+ * is applied after commit, so a request that rolls back (and is retried) is counted once.
+ *
+ * <h2>Read path</h2>
+ * Totals (loaded from {@code quest_stats} at startup plus in-process increments) are kept in memory per
+ * quest and per category. {@link #prior(Quest)} turns them into a smoothed completion rate:
+ * $$prior = \frac{completed + k \times categoryRate}{completed + skipped + k}$$
+ * so quests with little data fall back to their category's conversion rate.
+ */
+@Component
+public class QuestPopularity {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestPopularity.class);
+
+    /** Pseudo-count used to shrink per-quest rates toward the category rate. */
+    static final double SMOOTHING = 5.0;
+
+    /** Rate used when a category has no data yet. */
+    static final double DEFAULT_RATE = 0.5;
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO quest_stats (quest_id, completions, skips, updated_at) VALUES (?, ?, ?, NOW()) " +
+                    "ON CONFLICT (quest_id) DO UPDATE SET " +
+                    "completions = quest_stats.completions + EXCLUDED.completions, " +
+                    "skips = quest_stats.skips + EXCLUDED.skips, " +
+                    "updated_at = NOW()";
+
+    private final JdbcTemplate jdbc;
+
+    /** Running totals per quest id (loaded + in-process). */
+    private final Map<Long, Counters> questTotals = new ConcurrentHashMap<>();
+
+    /** Running totals per category. */
+    private final Map<String, Counters> categoryTotals = new ConcurrentHashMap<>();
+
+    /** Increments not yet written to {@code quest_stats}. */
+    private final Map<Long, Counters> pending = new ConcurrentHashMap<>();
+
+    public QuestPopularity(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Loads persisted totals once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        jdbc.query(
+                "SELECT s.quest_id, q.category, s.completions, s.skips " +
+                        "FROM quest_stats s JOIN quests q ON q.id = s.quest_id",
+                rs -> {
+                    long completions = rs.getLong(3);
+                    long skips = rs.getLong(4);
+                    questTotals.computeIfAbsent(rs.getLong(1), id -> new Counters()).add(completions, skips);
+                    categoryTotals.computeIfAbsent(rs.getString(2), c -> new Counters()).add(completions, skips);
+                });
+        logger.info("Loaded popularity stats for {} quests", questTotals.size());
+    }
+
+    /** Records a completion of {@code quest} by any user. */
+    public void recordCompletion(Quest quest) {
+        record(quest, 1, 0);
+    }
+
+    /** Records a skip of {@code quest} by any user. */
+    public void recordSkip(Quest quest) {
+        record(quest, 0, 1);
+    }
+
+    private void record(Quest quest, long completions, long skips) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(quest, completions, skips);
+                }
+            });
+        } else {
+            add(quest, completions, skips);
+        }
+    }
+
+    private void add(Quest quest, long completions, long skips) {
+        questTotals.computeIfAbsent(quest.getId(), id -> new Counters()).add(completions, skips);
+        if (quest.getCategory() != null) {
+            categoryTotals.computeIfAbsent(quest.getCategory(), c -> new Counters()).add(completions, skips);
+        }
+        pending.computeIfAbsent(quest.getId(), id -> new Counters()).add(completions, skips);
+    }
+
+    /**
+     * @return smoothed global completion rate for the quest, in [0, 1]
+     */
+    public double prior(Quest quest) {
+        double categoryRate = DEFAULT_RATE;
+        Counters category = quest.getCategory() == null ? null : categoryTotals.get(quest.getCategory());
+        if (category != null) {
+            long c = category.completions.sum();
+            long total = c + category.skips.sum();
+            if (total > 0) {
+                categoryRate = (double) c / total;
+            }
+        }
+
+        Counters q = questTotals.get(quest.getId());
+        long completions = q == null ? 0 : q.completions.sum();
+        long skips = q == null ? 0 : q.skips.sum();
+        return (completions + SMOOTHING * categoryRate) / (completions + skips + SMOOTHING);
+    }
+
+    /**
+     * Writes pending deltas to {@code quest_stats} in one batch. On failure the deltas are put back so the
+     * next run retries them.
+     */
+    @Scheduled(fixedDelay = 5000)
+    @PreDestroy
+    public void flush() {
+        List<Object[]> rows = new ArrayList<>();
+        for (Map.Entry<Long, Counters> e : pending.entrySet()) {
+            long completions = e.getValue().completions.sumThenReset();
+            long skips = e.getValue().skips.sumThenReset();
+            if (completions != 0 || skips != 0) {
+                rows.add(new Object[]{e.getKey(), completions, skips});
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbc.batchUpdate(UPSERT_SQL, rows);
+        } catch (RuntimeException ex) {
+            for (Object[] row : rows) {
+                pending.computeIfAbsent((Long) row[0], id -> new Counters()).add((Long) row[1], (Long) row[2]);
+            }
+            logger.warn("Failed to flush quest stats ({} quests), will retry", rows.size(), ex);
+        }
+    }
+
+    private static final class Counters {
+        final LongAdder completions = new LongAdder();
+        final LongAdder skips = new LongAdder();
+
+        void add(long c, long s) {
+            if (c != 0) completions.add(c);
+            if (s != 0) skips.add(s);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.sensum.backend.quest;
+
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds quest recommendation "slates" (the short list of quests shown to a user for a path).
+ *
+ * <h2>Why a service?</h2>
+ * Both the single-path endpoint ({@code /quests/recommendations}) and the batch endpoint
+ * ({@code /quests/recommendations/batch}) share the same scoring model. Keeping it here means the batch
+ * endpoint can load the user's outcome history once and reuse it for every requested path.
+ *
+ * <p>Candidate pools come from the in-memory {@link QuestCatalog}, optionally narrowed to a duration range
+ * ("I have N minutes"), so the only query on this path is the user's outcome aggregation.</p>
+ *
+ * <h2>Scoring model (v1)</h2>
+ * $$score = 2 \times completed - 1 \times skipped$$
+ * plus a small random component so results are not identical every time.
+ *
+ * <p>On top of that, each candidate gets a bonus for being similar to quests the user already completed,
+ * using the co-completion model built offline by {@link QuestSimilarityJob}:</p>
+ * $$bonus = w \times \frac{1}{|C|} \sum_{c \in C} sim(candidate, c)$$
+ * where {@code C} is the set of quests the user completed at least once.
+ *
+ * <p>Users without any history (and anonymous callers) are ranked by global popularity instead
+ * (see {@link QuestPopularity}), so new users see quests that tend to get completed.</p>
+ *
+ * <p>Quests the user has snoozed are removed from the candidate pool (see {@link QuestSnoozeRegistry}).</p>
+ */
+@Service
+public class QuestRecommendationService {
+
+    /** Number of quests returned per path. */
+    static final int SLATE_SIZE = 3;
+
+    /** Weight of the similarity bonus; a perfectly similar quest is worth one extra completion. */
+    static final double SIMILARITY_WEIGHT = 2.0;
+
+    /** Weight of the global popularity prior used for users without history. */
+    static final double PRIOR_WEIGHT = 2.0;
+
+    private final QuestCatalog catalog;
+    private final QuestOutcomeRepository outcomeRepo;
+    private final QuestSnoozeRegistry snoozeRegistry;
+    private final QuestSimilarityJob similarityJob;
+    private final QuestPopularity popularity;
+
+    public QuestRecommendationService(
+            QuestCatalog catalog,
+            QuestOutcomeRepository outcomeRepo,
+            QuestSnoozeRegistry snoozeRegistry,
+            QuestSimilarityJob similarityJob,
+            QuestPopularity popularity
+    ) {
+        this.catalog = catalog;
+        this.outcomeRepo = outcomeRepo;
+        this.snoozeRegistry = snoozeRegistry;
+        this.similarityJob = similarityJob;
+        this.popularity = popularity;
+    }
+
+    /**
+     * Returns up to {@link #SLATE_SIZE} quests for a single path.
+     *
+     * @param userId authenticated user id, or null for anonymous callers (popularity only)
+     * @param path quest category/path (e.g., "calm")
+     * @param minSeconds inclusive minimum quest duration, or null
+     * @param maxSeconds inclusive maximum quest duration, or null
+     */
+    public List<Quest> recommend(Long userId, String path, Integer minSeconds, Integer maxSeconds) {
+        List<Quest> pool = withoutSnoozed(userId, catalog.byCategory(path, minSeconds, maxSeconds));
+        if (pool.isEmpty()) {
+            return pool;
+        }
+        return rank(pool, userId == null ? UserHistory.NONE : loadHistory(userId));
+    }
+
+    /**
+     * Returns a slate per path, computed from one outcome aggregation.
+     *
+     * <p>The result preserves the order of {@code paths}. Paths with no quests map to an empty list so the
+     * client can render every requested section without extra checks.</p>
+     *
+     * @param userId authenticated user id, or null for anonymous callers (popularity only)
+     * @param paths distinct quest categories/paths
+     * @param minSeconds inclusive minimum quest duration, or null
+     * @param maxSeconds inclusive maximum quest duration, or null
+     * @return map path -> list of up to {@link #SLATE_SIZE} quests
+     */
+    public Map<String, List<Quest>> recommendForPaths(
+            Long userId,
+            Collection<String> paths,
+            Integer minSeconds,
+            Integer maxSeconds
+    ) {
+        UserHistory history = userId == null ? UserHistory.NONE : loadHistory(userId);
+
+        Map<String, List<Quest>> result = new LinkedHashMap<>();
+        for (String path : paths) {
+            List<Quest> pool = withoutSnoozed(userId, catalog.byCategory(path, minSeconds, maxSeconds));
+            result.put(path, pool.isEmpty() ? pool : rank(pool, history));
+        }
+        return result;
+    }
+
+    /**
+     * Loads the user's outcome aggregation and turns it into per-quest scores.
+     *
+     * <p>Unknown quests (no outcomes) are absent from the map and default to 0.0 during ranking.
+     * "snoozed" is recorded but not currently used in scoring.</p>
+     *
+     * @param userId authenticated user id
+     */
+    private UserHistory loadHistory(Long userId) {
+        Map<Long, Double> scores = new HashMap<>();
+        List<Long> completedIds = new ArrayList<>();
+        for (var proj : outcomeRepo.getQuestScoresForUser(userId)) {
+            long completed = proj.getCompleted();
+            long skipped = proj.getSkipped();
+            // Score formula: completed worth +2, skipped worth -1.
+            scores.put(proj.getQuestId(), (completed * 2.0) - (skipped * 1.0));
+            if (completed > 0) {
+                completedIds.add(proj.getQuestId());
+            }
+        }
+        return new UserHistory(scores, completedIds);
+    }
+
+    /**
+     * Sorts a pool by score (higher = better) with a small random factor and returns the top slate.
+     *
+     * <p>Without history, the score is the quest's global popularity prior.</p>
+     */
+    private List<Quest> rank(List<Quest> pool, UserHistory history) {
+        QuestSimilarityModel similarity = similarityJob.current();
+        boolean coldStart = history.scores().isEmpty();
+
+        // Draw the random factor once per quest so the comparator stays consistent during the sort.
+        Map<Long, Double> jittered = new HashMap<>();
+        for (Quest q : pool) {
+            double score = coldStart
+                    ? PRIOR_WEIGHT * popularity.prior(q)
+                    : history.scores().getOrDefault(q.getId(), 0.0)
+                            + SIMILARITY_WEIGHT * affinity(similarity, q.getId(), history.completedIds());
+            double random = Math.random() * 0.5; // 0 to 0.5
+            jittered.put(q.getId(), score + random);
+        }
+        return pool.stream()
+                .sorted((q1, q2) -> Double.compare(jittered.get(q2.getId()), jittered.get(q1.getId())))
+                .limit(SLATE_SIZE)
+                .toList();
+    }
+
+    /**
+     * Average similarity between a candidate and the quests the user has completed (0 without history).
+     */
+    private static double affinity(QuestSimilarityModel similarity, Long questId, List<Long> completedIds) {
+        if (completedIds.isEmpty() || similarity.size() == 0) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        for (Long completedId : completedIds) {
+            sum += similarity.similarity(questId, completedId);
+        }
+        return sum / completedIds.size();
+    }
+
+    /**
+     * Drops quests the user has currently snoozed (one in-memory lookup per candidate, no query).
+     */
+    private List<Quest> withoutSnoozed(Long userId, List<Quest> pool) {
+        if (userId == null) {
+            return pool;
+        }
+        return pool.stream().filter(q -> !snoozeRegistry.isSnoozed(userId, q.getId())).toList();
+    }
+
+    /**
+     * Per-user inputs to ranking: outcome scores plus the quests completed at least once.
+     */
+    private record UserHistory(Map<Long, Double> scores, List<Long> completedIds) {
+        static final UserHistory NONE = new UserHistory(Map.of(), List.of());
+    }
+}
@@ -0,0 +1,252 @@
+package com.sensum.backend.quest;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Offline batch job that builds the quest co-completion similarity model ({@link QuestSimilarityModel}).
+ *
+ * <h2>Pipeline</h2>
+ * <ol>
+ *   <li>Load the quest id list and assign each quest a dense index.</li>
+ *   <li>Walk users in id-range chunks ({@value #USERS_PER_CHUNK} users per chunk) and read the distinct
+ *       (user, quest) completion pairs for that range.</li>
+ *   <li>Count co-occurrences for the chunk in parallel with fork/join; each leaf task owns a private
+ *       upper-triangle {@code int[]} and results are summed on join.</li>
+ *   <li>Turn the totals into cosine similarities and publish a new immutable snapshot.</li>
+ * </ol>
+ *
+ * <h2>Memory</h2>
+ * Only one chunk of pairs is held at a time (as primitive arrays), plus one triangle per running leaf
+ * task. Memory therefore depends on the catalog size and chunk size, not on the total number of
+ * completions, so the job scales to tens of millions of rows on a single node.
+ *
+ * <p>The model is rebuilt at startup and then every few hours, on the job's own thread so a long rebuild
+ * does not hold up the shared scheduler; {@link QuestRecommendationService} reads the latest snapshot
+ * without blocking.</p>
+ */
+@Component
+public class QuestSimilarityJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestSimilarityJob.class);
+
+    /** Users per read chunk. Keeps each chunk's pair list small regardless of table size. */
+    static final int USERS_PER_CHUNK = 5_000;
+
+    /** Users per fork/join leaf task. */
+    static final int USERS_PER_TASK = 512;
+
+    private final JdbcTemplate jdbc;
+
+    /** Runs rebuilds off the scheduler thread; at most one at a time. */
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "quest-similarity");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile QuestSimilarityModel current = QuestSimilarityModel.EMPTY;
+
+    public QuestSimilarityJob(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * @return the latest published snapshot (never null; empty until the first run finishes)
+     */
+    public QuestSimilarityModel current() {
+        return current;
+    }
+
+    /**
+     * Starts a rebuild on the job's thread, unless one is still running. Runs shortly after startup and
+     * then every 6 hours.
+     */
+    @Scheduled(initialDelay = 60_000, fixedDelay = 6 * 60 * 60 * 1000)
+    public void scheduleRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        runner.execute(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException ex) {
+                logger.warn("Rebuilding quest similarity model failed", ex);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+    }
+
+    /**
+     * Rebuilds the model from {@code quest_completions} on the calling thread.
+     */
+    void rebuild() {
+        long started = System.currentTimeMillis();
+
+        long[] questIds = jdbc.queryForList("SELECT id FROM quests ORDER BY id", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+        int n = questIds.length;
+        if (n < 2) {
+            current = QuestSimilarityModel.EMPTY;
+            return;
+        }
+
+        int[] userCounts = new int[n];
+        int[] coCounts = new int[n * (n - 1) / 2];
+        long users = 0;
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        try {
+            long afterUserId = 0;
+            while (true) {
+                Long lastUserId = jdbc.queryForObject(
+                        "SELECT MAX(id) FROM (SELECT id FROM users WHERE id > ? ORDER BY id LIMIT ?) chunk",
+                        Long.class, afterUserId, USERS_PER_CHUNK);
+                if (lastUserId == null) {
+                    break;
+                }
+
+                UserQuestSets sets = readChunk(questIds, afterUserId, lastUserId);
+                users += sets.userCount();
+                addInto(userCounts, coCounts, pool.invoke(new CoOccurrenceTask(n, sets, 0, sets.userCount())));
+                afterUserId = lastUserId;
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        current = QuestSimilarityModel.fromCounts(questIds, userCounts, coCounts);
+        logger.info("Rebuilt quest similarity model: {} quests, {} users with completions, {}ms",
+                n, users, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Reads distinct completed quests for users in {@code (afterUserId, lastUserId]} into primitive arrays.
+     */
+    private UserQuestSets readChunk(long[] questIds, long afterUserId, long lastUserId) {
+        UserQuestSets.Builder builder = new UserQuestSets.Builder();
+        jdbc.query(
+                "SELECT DISTINCT user_id, quest_id FROM quest_completions " +
+                        "WHERE user_id > ? AND user_id <= ? ORDER BY user_id",
+                rs -> {
+                    int idx = Arrays.binarySearch(questIds, rs.getLong(2));
+                    if (idx >= 0) {
+                        builder.add(rs.getLong(1), idx);
+                    }
+                },
+                afterUserId, lastUserId);
+        return builder.build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private static void addInto(int[] userCounts, int[] coCounts, int[][] partial) {
+        for (int i = 0; i < userCounts.length; i++) userCounts[i] += partial[0][i];
+        for (int i = 0; i < coCounts.length; i++) coCounts[i] += partial[1][i];
+    }
+
+    /**
+     * Completed-quest sets for a chunk of users in CSR form: user {@code u} owns
+     * {@code items[offsets[u] .. offsets[u + 1])}.
+     */
+    record UserQuestSets(int[] offsets, int[] items) {
+
+        int userCount() {
+            return offsets.length - 1;
+        }
+
+        static final class Builder {
+            private int[] offsets = new int[64];
+            private int[] items = new int[256];
+            private int users;
+            private int size;
+            private long lastUserId = Long.MIN_VALUE;
+
+            /** Adds a (user, quest index) pair; pairs must arrive grouped by user. */
+            void add(long userId, int questIdx) {
+                if (userId != lastUserId) {
+                    if (users + 1 >= offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                    offsets[users++] = size;
+                    lastUserId = userId;
+                }
+                if (size == items.length) items = Arrays.copyOf(items, items.length * 2);
+                items[size++] = questIdx;
+            }
+
+            UserQuestSets build() {
+                int[] o = Arrays.copyOf(offsets, users + 1);
+                o[users] = size;
+                return new UserQuestSets(o, Arrays.copyOf(items, size));
+            }
+        }
+    }
+
+    /**
+     * Counts per-quest users and pairwise co-occurrences for a range of users.
+     *
+     * <p>Returns {@code {userCounts, upperTriangleCounts}}.</p>
+     */
+    static final class CoOccurrenceTask extends RecursiveTask<int[][]> {
+        private final int n;
+        private final UserQuestSets sets;
+        private final int from;
+        private final int to;
+
+        CoOccurrenceTask(int n, UserQuestSets sets, int from, int to) {
+            this.n = n;
+            this.sets = sets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[][] compute() {
+            if (to - from > USERS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                CoOccurrenceTask left = new CoOccurrenceTask(n, sets, from, mid);
+                left.fork();
+                int[][] right = new CoOccurrenceTask(n, sets, mid, to).compute();
+                int[][] result = left.join();
+                for (int i = 0; i < result[0].length; i++) result[0][i] += right[0][i];
+                for (int i = 0; i < result[1].length; i++) result[1][i] += right[1][i];
+                return result;
+            }
+
+            int[] userCounts = new int[n];
+            int[] coCounts = new int[n * (n - 1) / 2];
+            int[] offsets = sets.offsets();
+            int[] items = sets.items();
+            for (int u = from; u < to; u++) {
+                int start = offsets[u];
+                int end = offsets[u + 1];
+                for (int a = start; a < end; a++) {
+                    int i = items[a];
+                    userCounts[i]++;
+                    for (int b = a + 1; b < end; b++) {
+                        int j = items[b];
+                        coCounts[i < j ? QuestSimilarityModel.triangleIndex(n, i, j)
+                                : QuestSimilarityModel.triangleIndex(n, j, i)]++;
+                    }
+                }
+            }
+            return new int[][]{userCounts, coCounts};
+        }
+    }
+}
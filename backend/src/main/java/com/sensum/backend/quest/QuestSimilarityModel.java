@@ -0,0 +1,76 @@
+package com.sensum.backend.quest;
+
+import java.util.Arrays;
+
+/**
+ * Immutable quest-to-quest similarity snapshot built by {@link QuestSimilarityJob}.
+ *
+ * <h2>Layout</h2>
+ * Quest ids are kept sorted in a {@code long[]} (dense index = position). Similarities are stored as the
+ * strict upper triangle of an n x n matrix in a flat {@code float[]}, so a catalog of n quests costs
+ * {@code n * (n - 1) / 2} floats.
+ *
+ * <h2>Similarity</h2>
+ * Cosine similarity over "users who completed the quest" sets:
+ * $$sim(a, b) = \frac{both(a, b)}{\sqrt{users(a) \times users(b)}}$$
+ * which is 0 for unknown quests and 1 for quests always completed by the same users.
+ */
+final class QuestSimilarityModel {
+
+    static final QuestSimilarityModel EMPTY = new QuestSimilarityModel(new long[0], new float[0]);
+
+    private final long[] questIds;
+    private final float[] upper;
+
+    private QuestSimilarityModel(long[] questIds, float[] upper) {
+        this.questIds = questIds;
+        this.upper = upper;
+    }
+
+    /**
+     * Builds a snapshot from raw counts.
+     *
+     * @param questIds sorted quest ids (dense index = position)
+     * @param userCounts number of distinct users who completed each quest
+     * @param coCounts upper-triangle counts of users who completed both quests (see {@link #triangleIndex})
+     */
+    static QuestSimilarityModel fromCounts(long[] questIds, int[] userCounts, int[] coCounts) {
+        int n = questIds.length;
+        float[] upper = new float[coCounts.length];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                int both = coCounts[triangleIndex(n, i, j)];
+                if (both > 0) {
+                    upper[triangleIndex(n, i, j)] = (float) (both / Math.sqrt((double) userCounts[i] * userCounts[j]));
+                }
+            }
+        }
+        return new QuestSimilarityModel(questIds, upper);
+    }
+
+    /**
+     * @return similarity in [0, 1]; 0 if either quest is unknown or a == b
+     */
+    double similarity(long a, long b) {
+        int i = Arrays.binarySearch(questIds, a);
+        int j = Arrays.binarySearch(questIds, b);
+        if (i < 0 || j < 0 || i == j) {
+            return 0.0;
+        }
+        return i < j ? upper[triangleIndex(questIds.length, i, j)] : upper[triangleIndex(questIds.length, j, i)];
+    }
+
+    /**
+     * @return number of quests covered by this snapshot
+     */
+    int size() {
+        return questIds.length;
+    }
+
+    /**
+     * Position of (i, j), i &lt; j, in a row-major strict upper triangle of an n x n matrix.
+     */
+    static int triangleIndex(int n, int i, int j) {
+        return i * (2 * n - i - 1) / 2 + (j - i - 1);
+    }
+}
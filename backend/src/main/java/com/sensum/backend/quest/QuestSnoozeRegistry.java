@@ -0,0 +1,116 @@
+package com.sensum.backend.quest;
+
+import com.sensum.backend.scheduling.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of quests a user has snoozed, used to hide them from recommendations.
+ *
+ * <h2>Why in memory?</h2>
+ * Recommendations run on every Today page load. Keeping active snoozes in a per-user map lets the
+ * recommendation path check each candidate in O(1) without an extra query.
+ *
+ * <h2>Expiry</h2>
+ * Every snooze deadline is also registered in a {@link TimingWheel}. A scheduled tick removes expired entries
+ * (and empty per-user maps), so memory is bounded by the number of currently active snoozes. Lookups also
+ * compare against the clock, so an entry is never honored past its deadline even between ticks.
+ *
+ * <h2>Durability</h2>
+ * The database ({@code quest_outcomes.snoozed_until}) is the source of truth. On startup the registry is
+ * rebuilt from the outcomes whose snooze has not yet expired.
+ */
+@Component
+public class QuestSnoozeRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestSnoozeRegistry.class);
+
+    private final QuestOutcomeRepository outcomeRepo;
+
+    /** userId -> (questId -> snoozed-until epoch millis). */
+    private final Map<Long, Map<Long, Long>> snoozes = new ConcurrentHashMap<>();
+
+    private final TimingWheel<SnoozeKey> wheel = new TimingWheel<>(1000, 512, System.currentTimeMillis());
+
+    public QuestSnoozeRegistry(QuestOutcomeRepository outcomeRepo) {
+        this.outcomeRepo = outcomeRepo;
+    }
+
+    /**
+     * Reloads active snoozes from the database once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        int loaded = 0;
+        for (var s : outcomeRepo.findActiveSnoozes(Instant.now())) {
+            snooze(s.getUserId(), s.getQuestId(), s.getSnoozedUntil());
+            loaded++;
+        }
+        logger.info("Loaded {} active quest snoozes", loaded);
+    }
+
+    /**
+     * Hides a quest for a user until {@code until}. A later deadline replaces an earlier one. Inside a
+     * transaction the snooze is registered after commit, so it never outlives a rolled-back outcome row.
+     */
+    public void snooze(Long userId, Long questId, Instant until) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    register(userId, questId, until);
+                }
+            });
+        } else {
+            register(userId, questId, until);
+        }
+    }
+
+    private void register(Long userId, Long questId, Instant until) {
+        long deadline = until.toEpochMilli();
+        if (deadline <= System.currentTimeMillis()) {
+            return;
+        }
+        snoozes.computeIfAbsent(userId, id -> new ConcurrentHashMap<>())
+                .merge(questId, deadline, Math::max);
+        wheel.schedule(new SnoozeKey(userId, questId, deadline), deadline);
+    }
+
+    /**
+     * @return true if the quest is currently snoozed for the user
+     */
+    public boolean isSnoozed(Long userId, Long questId) {
+        Map<Long, Long> userSnoozes = snoozes.get(userId);
+        if (userSnoozes == null) {
+            return false;
+        }
+        Long until = userSnoozes.get(questId);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    /**
+     * Removes expired snoozes. Runs every second; each run only touches the wheel buckets that elapsed.
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void expire() {
+        for (SnoozeKey key : wheel.advance(System.currentTimeMillis())) {
+            snoozes.computeIfPresent(key.userId(), (userId, userSnoozes) -> {
+                // Only remove if the deadline was not extended by a later snooze.
+                userSnoozes.remove(key.questId(), key.deadline());
+                return userSnoozes.isEmpty() ? null : userSnoozes;
+            });
+        }
+    }
+
+    private record SnoozeKey(Long userId, Long questId, long deadline) {}
+}
@@ -0,0 +1,32 @@
+package com.sensum.backend.scheduling;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+@EnableScheduling
+/**
+ * Enables Spring's {@code @Scheduled} support for in-process background jobs.
+ *
+ * <p>Kept in its own configuration class (instead of on {@code BackendApplication}) so that sliced tests
+ * like {@code @WebMvcTest} do not start background timers.
+ *
+ * <p>Spring's default scheduler has a single thread, so one slow tick (an outbox backlog, a database
+ * stall) would delay every other job, including the 1s expiry ticks and the SSE heartbeats. Jobs that
+ * can run for long (backfills, model rebuilds) hand off to their own executors instead.
+ */
+public class SchedulingConfig {
+
+    /** Threads shared by all {@code @Scheduled} methods. */
+    static final int POOL_SIZE = 4;
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(POOL_SIZE);
+        scheduler.setThreadNamePrefix("scheduling-");
+        return scheduler;
+    }
+}
@@ -0,0 +1,107 @@
+package com.sensum.backend.scheduling;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Minimal hashed timing wheel for expiring many in-memory deadlines cheaply.
+ *
+ * <h2>How it works</h2>
+ * Time is divided into ticks of {@code tickMillis}. Each deadline is hashed into one of {@code wheelSize}
+ * buckets by its tick number. Advancing the wheel only visits the buckets for the ticks that elapsed since
+ * the last call, so the cost is proportional to elapsed time plus the number of entries in those buckets,
+ * not to the total number of scheduled deadlines. Deadlines further away than one revolution simply stay
+ * in their bucket until a later pass reaches their tick.
+ *
+ * <h2>Cancellation</h2>
+ * There is no explicit cancel. Callers that reschedule or cancel an item should keep the authoritative
+ * deadline elsewhere (e.g. a map) and ignore stale expirations. Stale entries are dropped when their tick
+ * passes, so memory stays bounded by the longest scheduled delay.
+ *
+ * <h2>Thread-safety</h2>
+ * All methods are synchronized; expired items are returned to the caller rather than handled under the lock.
+ *
+ * @param <T> item type
+ */
+public final class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final List<Entry<T>>[] buckets;
+    private final int mask;
+
+    /** Last tick that has been fully processed. */
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis tick resolution in milliseconds
+     * @param wheelSize number of buckets (rounded up to a power of two)
+     * @param startMillis current time; deadlines at or before it expire on the next {@link #advance(long)}
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMillis and wheelSize must be positive");
+        }
+        int n = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.buckets = new List[n];
+        for (int i = 0; i < n; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.mask = n - 1;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules {@code item} to expire at {@code deadlineMillis}.
+     *
+     * <p>Deadlines in the past are placed in the next tick so they are returned by the next advance.</p>
+     */
+    public synchronized void schedule(T item, long deadlineMillis) {
+        long tick = Math.max(ceilDiv(deadlineMillis, tickMillis), currentTick + 1);
+        buckets[(int) (tick & mask)].add(new Entry<>(item, tick));
+        size++;
+    }
+
+    /**
+     * Advances the wheel to {@code nowMillis} and returns every item whose deadline has passed.
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long nowTick = nowMillis / tickMillis;
+        if (nowTick <= currentTick) {
+            return List.of();
+        }
+
+        List<T> expired = new ArrayList<>();
+        // After one full revolution every bucket has been visited, so cap the scan there.
+        long steps = Math.min(nowTick - currentTick, buckets.length);
+        for (long t = currentTick + 1; t <= currentTick + steps; t++) {
+            Iterator<Entry<T>> it = buckets[(int) (t & mask)].iterator();
+            while (it.hasNext()) {
+                Entry<T> e = it.next();
+                if (e.tick <= nowTick) {
+                    expired.add(e.item);
+                    it.remove();
+                }
+            }
+        }
+        size -= expired.size();
+        currentTick = nowTick;
+        return expired;
+    }
+
+    /**
+     * @return number of scheduled entries, including stale ones that have not reached their tick yet
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+
+    private record Entry<T>(T item, long tick) {}
+}
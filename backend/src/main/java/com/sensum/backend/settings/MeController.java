@@ -1,5 +1,6 @@
 package com.sensum.backend.settings;
 
+import com.sensum.backend.friends.FeedTimeline;
 import com.sensum.backend.user.UserRepository;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
@@ -20,10 +21,12 @@ public class MeController {
 
     private final UserRepository users;
     private final UserSettingsRepository settings;
+    private final FeedTimeline feedTimeline;
 
-    public MeController(UserRepository users, UserSettingsRepository settings) {
+    public MeController(UserRepository users, UserSettingsRepository settings, FeedTimeline feedTimeline) {
         this.users = users;
         this.settings = settings;
+        this.feedTimeline = feedTimeline;
     }
 
     public static class SharingRequest {
@@ -74,6 +77,8 @@ public class MeController {
             s.userId = req.userId;
         }
 
+        String sharingBefore = MeSettingsController.sharingKey(s);
+
         // Update toggles
         s.shareLevel = req.shareLevel;
         s.shareStreak = req.shareStreak;
@@ -82,6 +87,10 @@ public class MeController {
 
         settings.save(s);
 
+        if (!MeSettingsController.sharingKey(s).equals(sharingBefore)) {
+            feedTimeline.sharingChanged(s.userId);
+        }
+
         return ResponseEntity.ok(new SharingResponse(
             s.userId,
             s.shareLevel,
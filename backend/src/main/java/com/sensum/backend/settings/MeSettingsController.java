@@ -1,5 +1,6 @@
 package com.sensum.backend.settings;
 
+import com.sensum.backend.friends.FeedTimeline;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -22,9 +23,11 @@ import org.springframework.web.bind.annotation.*;
 public class MeSettingsController {
 
     private final UserSettingsRepository settingsRepo;
+    private final FeedTimeline feedTimeline;
 
-    public MeSettingsController(UserSettingsRepository settingsRepo) {
+    public MeSettingsController(UserSettingsRepository settingsRepo, FeedTimeline feedTimeline) {
         this.settingsRepo = settingsRepo;
+        this.feedTimeline = feedTimeline;
     }
 
     public record SettingsResponse(
@@ -97,6 +100,8 @@ public class MeSettingsController {
             return created;
         });
 
+        String sharingBefore = sharingKey(s);
+
         if (body.selectedPaths != null) s.selectedPaths = body.selectedPaths;
         if (body.nudgeThresholdSec != null) s.nudgeThresholdSec = body.nudgeThresholdSec;
         if (body.trackedDomains != null) s.trackedDomains = body.trackedDomains;
@@ -107,6 +112,11 @@ public class MeSettingsController {
 
         settingsRepo.save(s);
 
+        // Friends' timelines store what was shared at the time; re-apply the new flags.
+        if (!sharingKey(s).equals(sharingBefore)) {
+            feedTimeline.sharingChanged(userId);
+        }
+
         return ResponseEntity.ok(new SettingsResponse(
                 s.selectedPaths,
                 s.nudgeThresholdSec,
@@ -117,4 +127,11 @@ public class MeSettingsController {
                 s.shareMoments
         ));
     }
-}
\ No newline at end of file
+
+    /**
+     * Compact representation of the sharing flags, used to detect changes.
+     */
+    static String sharingKey(UserSettings s) {
+        return "" + s.shareLevel + s.shareStreak + s.shareCategories + s.shareMoments;
+    }
+}
@@ -0,0 +1,8 @@
+-- Snooze-until deadline for "snoozed" outcomes (quest hidden from recommendations until then)
+ALTER TABLE quest_outcomes
+  ADD COLUMN IF NOT EXISTS snoozed_until TIMESTAMP NULL;
+
+-- Only active snoozes are read at startup; keep the index small by skipping other outcomes
+CREATE INDEX IF NOT EXISTS idx_quest_outcomes_snoozed_until
+  ON quest_outcomes(snoozed_until)
+  WHERE snoozed_until IS NOT NULL;
@@ -0,0 +1,16 @@
+-- Global per-quest popularity (all users), flushed periodically from in-memory counters
+CREATE TABLE IF NOT EXISTS quest_stats (
+  quest_id BIGINT PRIMARY KEY REFERENCES quests(id) ON DELETE CASCADE,
+  completions BIGINT NOT NULL DEFAULT 0,
+  skips BIGINT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Seed from existing outcome history so priors are useful immediately
+INSERT INTO quest_stats (quest_id, completions, skips)
+SELECT quest_id,
+       SUM(CASE WHEN outcome = 'completed' THEN 1 ELSE 0 END),
+       SUM(CASE WHEN outcome = 'skipped' THEN 1 ELSE 0 END)
+FROM quest_outcomes
+GROUP BY quest_id
+ON CONFLICT (quest_id) DO NOTHING;
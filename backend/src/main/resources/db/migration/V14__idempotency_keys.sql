@@ -0,0 +1,12 @@
+-- Idempotency keys for quest mutations: the first successful response is stored and replayed on retries
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+  user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+  idem_key TEXT NOT NULL,
+  endpoint TEXT NOT NULL,
+  response_body TEXT,
+  created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  PRIMARY KEY (user_id, idem_key)
+);
+
+-- Expired keys are purged by age
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys(created_at);
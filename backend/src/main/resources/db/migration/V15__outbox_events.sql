@@ -0,0 +1,30 @@
+-- Transactional outbox: side effects written in the same transaction as the change that caused them,
+-- then processed asynchronously by the in-process dispatcher (at-least-once)
+CREATE TABLE IF NOT EXISTS outbox_events (
+  id BIGSERIAL PRIMARY KEY,
+  event_type TEXT NOT NULL,
+  user_id BIGINT REFERENCES users(id) ON DELETE CASCADE,
+  payload TEXT NOT NULL DEFAULT '{}',
+
+  -- pending / done / dead (gave up after max attempts)
+  status TEXT NOT NULL DEFAULT 'pending',
+  attempts INT NOT NULL DEFAULT 0,
+  last_error TEXT,
+
+  created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  available_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  locked_until TIMESTAMP,
+  processed_at TIMESTAMP,
+
+  CONSTRAINT chk_outbox_events_status CHECK (status IN ('pending', 'done', 'dead'))
+);
+
+-- The dispatcher only scans pending rows; keep that index small
+CREATE INDEX IF NOT EXISTS idx_outbox_events_pending
+  ON outbox_events(available_at, id)
+  WHERE status = 'pending';
+
+-- Finished rows are purged by age
+CREATE INDEX IF NOT EXISTS idx_outbox_events_processed_at
+  ON outbox_events(processed_at)
+  WHERE processed_at IS NOT NULL;
@@ -0,0 +1,7 @@
+-- Serves the achievements pages (and /achievements/recent) from the index alone:
+-- WHERE user_id = ? ORDER BY unlocked_at, returning achievement_id.
+CREATE INDEX idx_user_achievements_user_unlocked
+    ON user_achievements (user_id, unlocked_at DESC) INCLUDE (achievement_id);
+
+-- Prefix of the index above.
+DROP INDEX IF EXISTS idx_user_achievements_user;
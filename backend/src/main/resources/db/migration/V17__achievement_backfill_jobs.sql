@@ -0,0 +1,22 @@
+-- Admin-triggered achievement backfills. last_user_id is the checkpoint (users up to it are done),
+-- so an interrupted or failed job resumes from there
+CREATE TABLE IF NOT EXISTS achievement_backfill_jobs (
+  id BIGSERIAL PRIMARY KEY,
+
+  -- running / paused / done / failed
+  status TEXT NOT NULL DEFAULT 'running',
+
+  -- users in (0, max_user_id] existed when the job started; later users are evaluated on their own
+  last_user_id BIGINT NOT NULL DEFAULT 0,
+  max_user_id BIGINT NOT NULL,
+  users_processed BIGINT NOT NULL DEFAULT 0,
+  unlocks_inserted BIGINT NOT NULL DEFAULT 0,
+  last_error TEXT,
+
+  created_by BIGINT REFERENCES users(id) ON DELETE SET NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  updated_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  finished_at TIMESTAMP,
+
+  CONSTRAINT chk_achievement_backfill_jobs_status CHECK (status IN ('running', 'paused', 'done', 'failed'))
+);
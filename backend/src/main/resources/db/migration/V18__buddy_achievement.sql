@@ -0,0 +1,4 @@
+-- First achievement on the buddy_session_count stat (completed buddy sessions, either participant)
+INSERT INTO achievements (name, description, icon, trigger) VALUES
+('Better Together', 'Complete a buddy session', '🤝', '{"type": "buddy_session_count", "value": 1}')
+ON CONFLICT (name) DO NOTHING;
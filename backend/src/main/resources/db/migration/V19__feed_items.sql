@@ -0,0 +1,47 @@
+-- Fan-out-on-write friend activity: one row per (reader, friend's completion), written when the friend
+-- completes a quest. Sharing flags are applied at write time (unshared fields are NULL); xp/level/streak
+-- are the author's users values at write time (quest_completions keeps no per-completion copy).
+CREATE TABLE IF NOT EXISTS feed_items (
+  id BIGSERIAL PRIMARY KEY,
+
+  -- reader whose feed this is / friend who completed the quest
+  owner_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+  author_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+  completion_id BIGINT NOT NULL REFERENCES quest_completions(id) ON DELETE CASCADE,
+  at TIMESTAMP NOT NULL,
+
+  xp INT,
+  level INT,
+  streak INT,
+  category TEXT,
+  moment_text TEXT,
+
+  -- Fan-out is retried by the outbox; each completion lands once per reader
+  CONSTRAINT uq_feed_items_owner_completion UNIQUE (owner_id, completion_id)
+);
+
+-- Read path: one range scan per feed
+CREATE INDEX IF NOT EXISTS idx_feed_items_owner_at ON feed_items(owner_id, at DESC, id DESC);
+
+-- Fix-ups when an author's sharing settings change
+CREATE INDEX IF NOT EXISTS idx_feed_items_author ON feed_items(author_id);
+
+-- Backfill: each reader gets the last 10 completions (FeedTimeline.REBUILD_COMPLETIONS) of every accepted
+-- friend, with the same sharing rules as the write path, so existing feeds are not empty after deploy.
+-- These items all carry the author's current xp/level/streak.
+INSERT INTO feed_items (owner_id, author_id, completion_id, at, xp, level, streak, category, moment_text)
+SELECT f.user_id, c.user_id, c.id, c.completed_at,
+  CASE WHEN s.share_level THEN u.xp END,
+  CASE WHEN s.share_level THEN u.level END,
+  CASE WHEN s.share_streak THEN u.streak END,
+  CASE WHEN s.share_categories THEN q.category END,
+  CASE WHEN s.share_moments THEN c.moment_text END
+FROM users u
+JOIN user_settings s ON s.user_id = u.id
+JOIN LATERAL (
+  SELECT * FROM quest_completions qc WHERE qc.user_id = u.id ORDER BY qc.completed_at DESC, qc.id DESC LIMIT 10
+) c ON TRUE
+LEFT JOIN quests q ON q.id = c.quest_id
+JOIN friendships f ON f.friend_id = u.id AND f.status = 'accepted'
+WHERE (s.share_level OR s.share_streak OR s.share_categories OR s.share_moments)
+ON CONFLICT (owner_id, completion_id) DO NOTHING;
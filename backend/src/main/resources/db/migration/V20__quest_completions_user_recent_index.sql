@@ -0,0 +1,4 @@
+-- Newest-first completions per user: serves the per-friend LATERAL seek of the friend feed query
+-- (ORDER BY completed_at DESC, id DESC LIMIT n) and feed timeline rebuilds.
+CREATE INDEX IF NOT EXISTS idx_quest_completions_user_completed
+    ON quest_completions (user_id, completed_at DESC, id DESC);
@@ -0,0 +1,9 @@
+-- Friends list: one user's edges, newest first (keyset on created_at, id), with or without a status filter.
+-- FriendshipRepository uses separate queries for the two cases so each is an in-order index scan.
+CREATE INDEX IF NOT EXISTS idx_friendships_user_status_created
+    ON friendships (user_id, status, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_friendships_user_created
+    ON friendships (user_id, created_at DESC, id DESC);
+
+-- user_id lookups are served by uq_friendships_pair (user_id, friend_id) and the indexes above.
+DROP INDEX IF EXISTS idx_friendships_user;
@@ -0,0 +1,6 @@
+-- Invite reaper: find expired and used invites without scanning the table.
+CREATE INDEX IF NOT EXISTS idx_invites_expires_at ON invites (expires_at);
+CREATE INDEX IF NOT EXISTS idx_invites_used_at ON invites (used_at) WHERE used_at IS NOT NULL;
+
+-- Duplicate of the index behind the UNIQUE constraint on code.
+DROP INDEX IF EXISTS idx_invites_code;
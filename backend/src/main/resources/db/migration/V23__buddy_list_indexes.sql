@@ -0,0 +1,11 @@
+-- /buddy/list: the latest check-in per (session, participant). Listing a user's sessions is served by
+-- buddy_session_participants (V24).
+
+-- V4 created buddy_sessions without created_at (V7's CREATE TABLE IF NOT EXISTS was skipped); the entity
+-- and the list order rely on it, so make sure it exists.
+ALTER TABLE buddy_sessions ADD COLUMN IF NOT EXISTS created_at TIMESTAMP DEFAULT NOW();
+UPDATE buddy_sessions SET created_at = COALESCE(started_at, NOW()) WHERE created_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_buddy_checkins_session_user_created
+    ON buddy_checkins (session_id, user_id, created_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_buddy_checkins_session;
@@ -0,0 +1,32 @@
+-- One row per (participant, session) so "a user's sessions" is a range scan on user_id instead of
+-- user_a_id = ? OR user_b_id = ?. Maintained by BuddySessionService on start, join and end.
+CREATE TABLE IF NOT EXISTS buddy_session_participants (
+  user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+  session_id BIGINT NOT NULL REFERENCES buddy_sessions(id) ON DELETE CASCADE,
+
+  -- Copy of buddy_sessions.status (pending / active / completed)
+  status VARCHAR(20) NOT NULL,
+
+  -- Copy of buddy_sessions.created_at (list order)
+  created_at TIMESTAMP NOT NULL,
+
+  PRIMARY KEY (user_id, session_id)
+);
+
+-- Recent sessions, newest first (keyset on created_at, session_id).
+CREATE INDEX IF NOT EXISTS idx_buddy_participants_user_created
+    ON buddy_session_participants (user_id, created_at DESC, session_id DESC);
+
+-- Open (not completed) sessions only.
+CREATE INDEX IF NOT EXISTS idx_buddy_participants_user_open
+    ON buddy_session_participants (user_id, created_at DESC, session_id DESC)
+    WHERE status <> 'completed';
+
+-- Status sync on join/end, and ON DELETE CASCADE from buddy_sessions.
+CREATE INDEX IF NOT EXISTS idx_buddy_participants_session ON buddy_session_participants (session_id);
+
+INSERT INTO buddy_session_participants (user_id, session_id, status, created_at)
+SELECT user_a_id, id, COALESCE(status, 'pending'), COALESCE(created_at, NOW()) FROM buddy_sessions
+UNION ALL
+SELECT user_b_id, id, COALESCE(status, 'pending'), COALESCE(created_at, NOW()) FROM buddy_sessions
+ON CONFLICT (user_id, session_id) DO NOTHING;
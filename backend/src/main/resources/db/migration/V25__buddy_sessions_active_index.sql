@@ -0,0 +1,2 @@
+-- Active sessions only: rebuilding the expiry schedule on startup (BuddySessionExpiry) reads just these.
+CREATE INDEX IF NOT EXISTS idx_buddy_sessions_active ON buddy_sessions (started_at) WHERE status = 'active';
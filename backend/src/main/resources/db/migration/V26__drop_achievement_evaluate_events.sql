@@ -0,0 +1,5 @@
+-- achievements.evaluate outbox events (queued by /friends/accept in an earlier build) no longer have a
+-- handler: friend-count achievements are now re-evaluated through StatChangeBus. Drop the pending ones
+-- instead of letting them retry into 'dead'; a missed unlock is picked up on the user's next stat change
+-- or by the admin backfill.
+DELETE FROM outbox_events WHERE event_type = 'achievements.evaluate' AND status = 'pending';
@@ -0,0 +1,75 @@
+package com.sensum.backend.achievement;
+
+import com.sensum.backend.SecurityConfig;
+import com.sensum.backend.config.ApiExceptionHandler;
+import com.sensum.backend.config.RequestIdFilter;
+import com.sensum.backend.security.JwtAuthenticationFilter;
+import com.sensum.backend.testutil.TestAuth;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = AchievementBackfillController.class)
+@Import({SecurityConfig.class, JwtAuthenticationFilter.class, ApiExceptionHandler.class, RequestIdFilter.class})
+@TestPropertySource(properties = "sensum.admin.user-ids=1,5")
+class AchievementBackfillControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockitoBean
+    AchievementBackfillJob backfill;
+
+    @Test
+    void start_nonAdmin_returns403() throws Exception {
+        mvc.perform(post("/admin/achievements/backfill")
+                        .cookie(TestAuth.authCookie(2L, "b@example.com")))
+                .andExpect(status().isForbidden());
+
+        verify(backfill, never()).start(anyLong());
+    }
+
+    @Test
+    void start_admin_returnsJobProgress() throws Exception {
+        when(backfill.start(5L)).thenReturn(job("running", 0));
+
+        mvc.perform(post("/admin/achievements/backfill")
+                        .cookie(TestAuth.authCookie(5L, "admin@example.com")))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value(9))
+                .andExpect(jsonPath("$.status").value("running"))
+                .andExpect(jsonPath("$.percent").value(0));
+    }
+
+    @Test
+    void get_reportsProgress() throws Exception {
+        when(backfill.find(9L)).thenReturn(Optional.of(job("running", 400)));
+
+        mvc.perform(get("/admin/achievements/backfill/9")
+                        .cookie(TestAuth.authCookie(1L, "admin@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.percent").value(40))
+                .andExpect(jsonPath("$.usersProcessed").value(400));
+    }
+
+    private static AchievementBackfillJob.Job job(String status, long lastUserId) {
+        return new AchievementBackfillJob.Job(9, status, lastUserId, 1000, lastUserId, 0, null,
+                Instant.parse("2026-01-01T00:00:00Z"), null);
+    }
+}
@@ -0,0 +1,46 @@
+package com.sensum.backend.achievement;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AchievementBackfillJobTest {
+
+    @Test
+    void evaluate_returnsOnlyMissingUnlocks() {
+        AchievementDefinitions.Snapshot snapshot = AchievementDefinitions.compile(List.of(
+                achievement(1L, "{\"type\": \"quest_count\", \"value\": 1}"),
+                achievement(2L, "{\"type\": \"quest_count\", \"value\": 10}"),
+                achievement(3L, "{\"type\": \"friend_count\", \"value\": 1}")
+        ), JsonMapper.builder().build());
+
+        BitSet user1Has = new BitSet();
+        user1Has.set(1);
+        List<long[]> unlocks = AchievementBackfillJob.evaluate(snapshot, List.of(
+                new AchievementBackfillJob.UserStats(1L, Map.of("questCount", 12, "friendCount", 0)),
+                new AchievementBackfillJob.UserStats(2L, Map.of("questCount", 0, "friendCount", 3))
+        ), Map.of(1L, user1Has));
+
+        assertEquals(2, unlocks.size());
+        assertArrayEquals(new long[]{1L, 2L}, unlocks.get(0));
+        assertArrayEquals(new long[]{2L, 3L}, unlocks.get(1));
+    }
+
+    @Test
+    void percent_followsCheckpoint() {
+        assertEquals(25, new AchievementBackfillJob.Job(1, "running", 250, 1000, 0, 0, null, null, null).percent());
+        assertEquals(100, new AchievementBackfillJob.Job(1, "done", 0, 0, 0, 0, null, null, null).percent());
+    }
+
+    private static Achievement achievement(Long id, String trigger) {
+        Achievement a = new Achievement("a" + id, "", "", trigger);
+        a.setId(id);
+        return a;
+    }
+}
@@ -0,0 +1,117 @@
+package com.sensum.backend.achievement;
+
+import com.sensum.backend.SecurityConfig;
+import com.sensum.backend.config.ApiExceptionHandler;
+import com.sensum.backend.config.RequestIdFilter;
+import com.sensum.backend.security.JwtAuthenticationFilter;
+import com.sensum.backend.testutil.TestAuth;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = AchievementController.class)
+@Import({SecurityConfig.class, JwtAuthenticationFilter.class, ApiExceptionHandler.class, RequestIdFilter.class,
+        AchievementService.class})
+class AchievementControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockitoBean
+    AchievementDefinitions definitions;
+
+    @MockitoBean
+    UserAchievementRepository userAchievementRepo;
+
+    @MockitoBean
+    UnlockedAchievementCache unlockedCache;
+
+    @MockitoBean
+    JdbcTemplate jdbc;
+
+    @BeforeEach
+    void stubDefinitions() {
+        when(definitions.current()).thenReturn(AchievementDefinitions.compile(List.of(
+                achievement(1L, "First Quest", "{\"type\": \"quest_count\", \"value\": 1}"),
+                achievement(2L, "Level 5", "{\"type\": \"level\", \"value\": 5}")
+        ), JsonMapper.builder().build()));
+    }
+
+    @Test
+    void user_requiresAuth() throws Exception {
+        mvc.perform(get("/achievements/user").param("userId", "1"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void user_joinsUnlocksWithCachedDefinitions() throws Exception {
+        when(userAchievementRepo.findUnlocks(1L)).thenReturn(List.of(unlock(2L, "2026-01-02T00:00:00Z")));
+
+        mvc.perform(get("/achievements/user").param("userId", "1")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(1))
+                .andExpect(jsonPath("$.achievements[0].id").value(2))
+                .andExpect(jsonPath("$.achievements[0].name").value("Level 5"))
+                .andExpect(jsonPath("$.achievements[0].unlockedAt").value("2026-01-02T00:00:00Z"));
+    }
+
+    @Test
+    void all_flagsUnlockedAchievements() throws Exception {
+        when(userAchievementRepo.findUnlocks(1L)).thenReturn(List.of(unlock(1L, "2026-01-01T00:00:00Z")));
+
+        mvc.perform(get("/achievements/all").param("userId", "1")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value("First Quest"))
+                .andExpect(jsonPath("$[0].unlocked").value(true))
+                .andExpect(jsonPath("$[1].unlocked").value(false));
+    }
+
+    @Test
+    void all_otherUser_returns403() throws Exception {
+        mvc.perform(get("/achievements/all").param("userId", "2")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isForbidden());
+
+        verify(userAchievementRepo, never()).findUnlocks(anyLong());
+    }
+
+    private static Achievement achievement(Long id, String name, String trigger) {
+        Achievement a = new Achievement(name, "desc", "*", trigger);
+        a.setId(id);
+        return a;
+    }
+
+    private static UserAchievementRepository.UnlockProjection unlock(Long achievementId, String unlockedAt) {
+        return new UserAchievementRepository.UnlockProjection() {
+            @Override
+            public Long getAchievementId() {
+                return achievementId;
+            }
+
+            @Override
+            public Instant getUnlockedAt() {
+                return Instant.parse(unlockedAt);
+            }
+        };
+    }
+}
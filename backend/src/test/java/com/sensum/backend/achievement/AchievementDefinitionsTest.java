@@ -0,0 +1,93 @@
+package com.sensum.backend.achievement;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AchievementDefinitionsTest {
+
+    private final AchievementRepository repo = mock(AchievementRepository.class);
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final AchievementDefinitions definitions =
+            new AchievementDefinitions(repo, jdbc, JsonMapper.builder().build());
+
+    @Test
+    void reached_returnsThresholdsAtOrBelowValue_lowestFirst() {
+        AchievementDefinitions.Snapshot snapshot = AchievementDefinitions.compile(List.of(
+                achievement(1L, "{\"type\": \"quest_count\", \"value\": 10}"),
+                achievement(2L, "{\"type\": \"quest_count\", \"value\": 1}"),
+                achievement(3L, "{\"type\": \"quest_count\", \"value\": 50}"),
+                achievement(4L, "{\"type\": \"streak\", \"value\": 3}")
+        ), JsonMapper.builder().build());
+
+        assertEquals(List.of(2L, 1L), ids(snapshot.reached("questCount", 10)));
+        assertEquals(List.of(2L, 1L), ids(snapshot.reached("questCount", 49)));
+        assertEquals(List.of(), ids(snapshot.reached("questCount", 0)));
+        assertEquals(List.of(4L), ids(snapshot.reached("streak", 7)));
+        assertEquals(List.of(), ids(snapshot.reached("friendCount", 100)));
+    }
+
+    @Test
+    void unsupportedOrMalformedTriggers_areNeverReached() {
+        AchievementDefinitions.Snapshot snapshot = AchievementDefinitions.compile(List.of(
+                achievement(1L, "{\"type\": \"mystery\", \"value\": 1}"),
+                achievement(2L, "not json"),
+                achievement(3L, "{\"type\": \"level\"}")
+        ), JsonMapper.builder().build());
+
+        assertEquals(3, snapshot.all().size());
+        assertTrue(snapshot.byStat().isEmpty());
+    }
+
+    @Test
+    void refreshIfChanged_recompilesOnlyWhenFingerprintChanges() {
+        when(jdbc.queryForObject(anyString(), eq(String.class))).thenReturn("a", "a", "b", "b");
+        when(repo.findAll()).thenReturn(
+                List.of(achievement(1L, "{\"type\": \"level\", \"value\": 5}")),
+                List.of(achievement(1L, "{\"type\": \"level\", \"value\": 2}")));
+
+        assertEquals(List.of(), ids(definitions.current().reached("level", 3)));
+        definitions.refreshIfChanged(); // "a": unchanged
+        definitions.refreshIfChanged(); // "b": reload
+        assertEquals(List.of(1L), ids(definitions.current().reached("level", 3)));
+        verify(repo, times(2)).findAll();
+    }
+
+    @Test
+    void refreshIfChanged_picksUpStaticFieldEdits() {
+        when(jdbc.queryForObject(anyString(), eq(String.class))).thenReturn("a", "b");
+        Achievement before = achievement(1L, "{\"type\": \"level\", \"value\": 5}");
+        Achievement renamed = achievement(1L, "{\"type\": \"level\", \"value\": 5}");
+        renamed.setName("Renamed");
+        when(repo.findAll()).thenReturn(List.of(before), List.of(renamed));
+
+        assertEquals("a1", definitions.current().fields().get(1L).get("name"));
+        definitions.refreshIfChanged();
+        assertEquals("Renamed", definitions.current().fields().get(1L).get("name"));
+
+        // The fingerprint must cover the static fields, not just ids and triggers.
+        verify(jdbc, times(3)).queryForObject(eq(AchievementDefinitions.FINGERPRINT_SQL), eq(String.class));
+        assertTrue(AchievementDefinitions.FINGERPRINT_SQL.contains("a::text"));
+    }
+
+    private static Achievement achievement(Long id, String trigger) {
+        Achievement a = new Achievement("a" + id, "", "", trigger);
+        a.setId(id);
+        return a;
+    }
+
+    private static List<Long> ids(List<Achievement> achievements) {
+        return achievements.stream().map(Achievement::getId).toList();
+    }
+}
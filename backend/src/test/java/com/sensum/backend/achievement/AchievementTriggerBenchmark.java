@@ -0,0 +1,114 @@
+package com.sensum.backend.achievement;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares trigger evaluation with the compiled {@link AchievementDefinitions} index against the previous
+ * approach (re-parse every trigger string with substring/regex work on every evaluation).
+ *
+ * <p>Run with {@code mvn -Pbenchmark test-compile exec:exec}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AchievementTriggerBenchmark {
+
+    private static final String[] TYPES = {"quest_count", "streak", "level", "friend_count"};
+
+    /** Number of achievement definitions. */
+    @Param({"8", "64", "512"})
+    int definitions;
+
+    private List<Achievement> achievements;
+    private AchievementDefinitions.Snapshot compiled;
+    private Map<String, Integer> stats;
+
+    @Setup
+    public void setup() {
+        achievements = new ArrayList<>();
+        for (int i = 0; i < definitions; i++) {
+            Achievement a = new Achievement();
+            a.setId((long) i);
+            a.setName("a" + i);
+            a.setTrigger("{\"type\": \"" + TYPES[i % TYPES.length] + "\", \"value\": " + (i / TYPES.length + 1) + "}");
+            achievements.add(a);
+        }
+        compiled = AchievementDefinitions.compile(achievements, JsonMapper.builder().build());
+        int mid = definitions / TYPES.length / 2;
+        stats = Map.of("questCount", mid, "streak", mid, "level", mid, "friendCount", mid);
+    }
+
+    @Benchmark
+    public void legacyParser(Blackhole bh) {
+        for (Achievement a : achievements) {
+            if (meetsTrigger(a.getTrigger(), stats)) {
+                bh.consume(a);
+            }
+        }
+    }
+
+    @Benchmark
+    public void compiledIndex(Blackhole bh) {
+        for (Map.Entry<String, Integer> stat : stats.entrySet()) {
+            for (Achievement a : compiled.reached(stat.getKey(), stat.getValue())) {
+                bh.consume(a);
+            }
+        }
+    }
+
+    /** Snapshot of the evaluation {@code AchievementService} used before triggers were compiled. */
+    private static boolean meetsTrigger(String triggerJson, Map<String, Integer> userStats) {
+        try {
+            String type = extractJsonValue(triggerJson, "type");
+            int requiredValue = Integer.parseInt(extractJsonValue(triggerJson, "value"));
+
+            switch (type) {
+                case "quest_count":
+                    return userStats.getOrDefault("questCount", 0) >= requiredValue;
+                case "streak":
+                    return userStats.getOrDefault("streak", 0) >= requiredValue;
+                case "level":
+                    return userStats.getOrDefault("level", 0) >= requiredValue;
+                case "friend_count":
+                    return userStats.getOrDefault("friendCount", 0) >= requiredValue;
+                default:
+                    return false;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static String extractJsonValue(String json, String key) {
+        String searchStr = "\"" + key + "\":";
+        int start = json.indexOf(searchStr);
+        if (start == -1) return "";
+
+        start = json.indexOf(":", start) + 1;
+        int end = json.indexOf(",", start);
+        if (end == -1) end = json.indexOf("}", start);
+
+        String value = json.substring(start, end).trim();
+        return value.replaceAll("[\"\\s]", "");
+    }
+}
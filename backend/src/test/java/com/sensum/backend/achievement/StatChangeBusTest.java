@@ -0,0 +1,43 @@
+package com.sensum.backend.achievement;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class StatChangeBusTest {
+
+    private final AchievementService achievementService = mock(AchievementService.class);
+    private final StatChangeBus bus = new StatChangeBus(achievementService);
+
+    @Test
+    void burstForOneUser_isEvaluatedOnce_withOnlyTheChangedStats() {
+        bus.publish(1L, "friendCount");
+        bus.publish(1L, "friendCount");
+        bus.publish(1L, "buddySessionCount");
+        bus.publish(2L, "friendCount");
+
+        bus.flush(System.currentTimeMillis()); // Window still open.
+        verify(achievementService, never()).evaluate(anyLong(), any());
+
+        bus.flush(System.currentTimeMillis() + StatChangeBus.WINDOW_MS + 500);
+        verify(achievementService, times(1)).evaluate(eq(1L), eq(Set.of("friendCount", "buddySessionCount")));
+        verify(achievementService, times(1)).evaluate(eq(2L), eq(Set.of("friendCount")));
+
+        bus.flush(System.currentTimeMillis() + 2 * StatChangeBus.WINDOW_MS);
+        verify(achievementService, times(2)).evaluate(anyLong(), any());
+    }
+
+    @Test
+    void unknownStat_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> bus.publish(1L, "karma"));
+    }
+}
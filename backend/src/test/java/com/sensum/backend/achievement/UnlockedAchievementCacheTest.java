@@ -0,0 +1,55 @@
+package com.sensum.backend.achievement;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UnlockedAchievementCacheTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final UnlockedAchievementCache cache = new UnlockedAchievementCache(jdbc);
+
+    @Test
+    void loadsOnce_thenServesAndUpdatesFromMemory() throws Exception {
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong(1)).thenReturn(3L);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbc).query(ArgumentMatchers.anyString(), ArgumentMatchers.any(RowCallbackHandler.class),
+                ArgumentMatchers.any(Object[].class));
+
+        BitSet first = cache.get(1L);
+        assertTrue(first.get(3));
+        assertFalse(first.get(5));
+
+        cache.markUnlocked(1L, List.of(5L));
+        BitSet second = cache.get(1L);
+        assertTrue(second.get(3));
+        assertTrue(second.get(5));
+
+        verify(jdbc, times(1)).query(ArgumentMatchers.anyString(), ArgumentMatchers.any(RowCallbackHandler.class),
+                ArgumentMatchers.any(Object[].class));
+    }
+
+    @Test
+    void returnedSet_isACopy() {
+        cache.get(1L).set(7);
+
+        assertFalse(cache.get(1L).get(7));
+    }
+}
@@ -0,0 +1,142 @@
+package com.sensum.backend.buddy;
+
+import com.sensum.backend.SecurityConfig;
+import com.sensum.backend.achievement.StatChangeBus;
+import com.sensum.backend.config.ApiExceptionHandler;
+import com.sensum.backend.config.RequestIdFilter;
+import com.sensum.backend.pagination.CursorPage;
+import com.sensum.backend.security.JwtAuthenticationFilter;
+import com.sensum.backend.testutil.TestAuth;
+import com.sensum.backend.user.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = BuddyController.class)
+@Import({SecurityConfig.class, JwtAuthenticationFilter.class, ApiExceptionHandler.class, RequestIdFilter.class})
+class BuddyControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockitoBean
+    BuddySessionRepository sessionRepository;
+
+    @MockitoBean
+    BuddyCheckinRepository checkinRepository;
+
+    @MockitoBean
+    BuddySessionService sessionService;
+
+    @MockitoBean
+    BuddySessionList sessionList;
+
+    @MockitoBean
+    BuddySessionEvents sessionEvents;
+
+    @MockitoBean
+    UserRepository userRepository;
+
+    @MockitoBean
+    StatChangeBus statChanges;
+
+    @Test
+    void list_otherUser_returns403() throws Exception {
+        mvc.perform(get("/buddy/list").param("userId", "2")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void list_returnsPageWithLatestCheckins() throws Exception {
+        Instant at = Instant.parse("2026-01-01T00:00:00Z");
+        BuddySessionList.SessionSummary session = new BuddySessionList.SessionSummary(
+                7L, 1L, 2L, "quiet_company", 25, "active", at, null, at,
+                new BuddySessionList.LatestCheckin("good", at), null);
+        when(sessionList.page(1L, false, null, 20)).thenReturn(new CursorPage<>(List.of(session), null));
+
+        mvc.perform(get("/buddy/list").param("userId", "1")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(7))
+                .andExpect(jsonPath("$.items[0].latestCheckinUserA.status").value("good"))
+                .andExpect(jsonPath("$.items[0].latestCheckinUserB").isEmpty())
+                .andExpect(jsonPath("$.nextCursor").isEmpty());
+    }
+
+    @Test
+    void events_participant_startsStream() throws Exception {
+        when(sessionRepository.findById(7L)).thenReturn(Optional.of(session(7L, 1L, 2L)));
+        when(sessionEvents.subscribe(7L, 2L)).thenReturn(new SseEmitter());
+
+        mvc.perform(get("/buddy/session/7/events")
+                        .cookie(TestAuth.authCookie(2L, "b@example.com")))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void events_nonParticipant_returns403() throws Exception {
+        when(sessionRepository.findById(7L)).thenReturn(Optional.of(session(7L, 1L, 2L)));
+
+        mvc.perform(get("/buddy/session/7/events")
+                        .cookie(TestAuth.authCookie(3L, "c@example.com")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void events_tooManyStreams_returns429() throws Exception {
+        when(sessionRepository.findById(7L)).thenReturn(Optional.of(session(7L, 1L, 2L)));
+        when(sessionEvents.subscribe(7L, 1L)).thenReturn(null);
+
+        mvc.perform(get("/buddy/session/7/events")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void events_completedSession_returns410() throws Exception {
+        BuddySession session = session(7L, 1L, 2L);
+        session.setStatus(BuddySessionService.STATUS_COMPLETED);
+        when(sessionRepository.findById(7L)).thenReturn(Optional.of(session));
+
+        mvc.perform(get("/buddy/session/7/events")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isGone());
+        verify(sessionEvents, never()).subscribe(7L, 1L);
+    }
+
+    @Test
+    void events_sessionCompletedWhileSubscribing_returns410_andClosesTheStream() throws Exception {
+        SseEmitter emitter = new SseEmitter();
+        when(sessionRepository.findById(7L)).thenReturn(Optional.of(session(7L, 1L, 2L)));
+        when(sessionEvents.subscribe(7L, 1L)).thenReturn(emitter);
+        when(sessionRepository.findStatusById(7L)).thenReturn(BuddySessionService.STATUS_COMPLETED);
+
+        mvc.perform(get("/buddy/session/7/events")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isGone());
+        verify(sessionEvents).unsubscribe(7L, emitter);
+    }
+
+    private static BuddySession session(Long id, Long userAId, Long userBId) {
+        BuddySession session = new BuddySession(userAId, userBId, "quiet_company", 25);
+        session.setId(id);
+        return session;
+    }
+}
@@ -0,0 +1,91 @@
+package com.sensum.backend.buddy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BuddySessionEventsTest {
+
+    private final BuddySessionEvents events = new BuddySessionEvents(Runnable::run);
+
+    @Test
+    void subscribe_isLimitedPerUser() {
+        for (int i = 0; i < BuddySessionEvents.MAX_CONNECTIONS_PER_USER; i++) {
+            assertNotNull(events.subscribe(7L, 1L));
+        }
+        assertNull(events.subscribe(8L, 1L));
+
+        // Other users have their own budget.
+        assertNotNull(events.subscribe(7L, 2L));
+        assertEquals(BuddySessionEvents.MAX_CONNECTIONS_PER_USER + 1, events.connectionCount());
+    }
+
+    @Test
+    void completedStatus_closesTheSessionsStreams_andFreesSlots() {
+        for (int i = 0; i < BuddySessionEvents.MAX_CONNECTIONS_PER_USER; i++) {
+            events.subscribe(7L, 1L);
+        }
+        events.subscribe(8L, 2L);
+
+        BuddySession session = new BuddySession(1L, 2L, "quiet_company", 25);
+        session.setId(7L);
+        session.setStatus(BuddySessionService.STATUS_ACTIVE);
+        events.statusChanged(session);
+        assertEquals(BuddySessionEvents.MAX_CONNECTIONS_PER_USER + 1, events.connectionCount());
+
+        session.setStatus(BuddySessionService.STATUS_COMPLETED);
+        events.statusChanged(session);
+        assertEquals(1, events.connectionCount());
+        assertNotNull(events.subscribe(9L, 1L));
+    }
+
+    @Test
+    void unsubscribe_freesTheSlot() {
+        SseEmitter emitter = events.subscribe(7L, 1L);
+        events.subscribe(7L, 1L);
+
+        events.unsubscribe(7L, emitter);
+
+        assertEquals(1, events.connectionCount());
+    }
+
+    @Test
+    void publishing_onlyQueuesTheSend() {
+        List<Runnable> sends = new ArrayList<>();
+        BuddySessionEvents queued = new BuddySessionEvents(sends::add);
+        queued.subscribe(7L, 1L);
+
+        BuddySession session = new BuddySession(1L, 2L, "quiet_company", 25);
+        session.setId(7L);
+        session.setStatus(BuddySessionService.STATUS_COMPLETED);
+        queued.statusChanged(session);
+        queued.heartbeat();
+        assertEquals(1, sends.size());
+        assertEquals(1, queued.connectionCount());
+
+        sends.get(0).run();
+        assertEquals(0, queued.connectionCount());
+    }
+
+    @Test
+    void streamThatFallsBehind_isClosed() {
+        List<Runnable> sends = new ArrayList<>();
+        BuddySessionEvents queued = new BuddySessionEvents(sends::add);
+        queued.subscribe(7L, 1L);
+
+        BuddyCheckin checkin = new BuddyCheckin(7L, 1L, "good");
+        for (int i = 0; i < BuddySessionEvents.MAX_PENDING_EVENTS; i++) {
+            queued.checkin(checkin);
+        }
+        assertEquals(1, queued.connectionCount());
+
+        queued.checkin(checkin);
+        assertEquals(0, queued.connectionCount());
+    }
+}
@@ -0,0 +1,95 @@
+package com.sensum.backend.buddy;
+
+import com.sensum.backend.achievement.StatChangeBus;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BuddySessionExpiryTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final BuddySessionEvents events = mock(BuddySessionEvents.class);
+    private final StatChangeBus statChanges = mock(StatChangeBus.class);
+    private final BuddySessionExpiry expiry = new BuddySessionExpiry(jdbc, events, statChanges);
+
+    @Test
+    void dueSessions_areCompletedInOneStatement() throws Exception {
+        long now = System.currentTimeMillis();
+        expiry.schedule(session(7L, now - 30 * 60_000L - BuddySessionExpiry.GRACE_MS, 25));
+        expiry.schedule(session(8L, now - 30 * 60_000L - BuddySessionExpiry.GRACE_MS, 25));
+        expiry.schedule(session(9L, now, 25)); // Not due yet.
+
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(7L);
+        when(rs.getLong("user_a_id")).thenReturn(1L);
+        when(rs.getLong("user_b_id")).thenReturn(2L);
+        when(rs.getTimestamp("started_at")).thenReturn(new Timestamp(now - 30 * 60_000L));
+        when(rs.getTimestamp("ended_at")).thenReturn(new Timestamp(now));
+        doAnswer(inv -> {
+            // Session 8 was ended by hand in the meantime, so only 7 comes back.
+            inv.getArgument(1, RowCallbackHandler.class).processRow(rs);
+            return null;
+        }).when(jdbc).query(ArgumentMatchers.contains("UPDATE buddy_sessions"), any(RowCallbackHandler.class),
+                ArgumentMatchers.eq(7L), ArgumentMatchers.eq(8L));
+
+        expiry.expire(now + 2_000);
+
+        verify(jdbc).query(ArgumentMatchers.contains("UPDATE buddy_sessions"), any(RowCallbackHandler.class),
+                ArgumentMatchers.eq(7L), ArgumentMatchers.eq(8L));
+        verify(statChanges).publish(1L, "buddySessionCount");
+        verify(statChanges).publish(2L, "buddySessionCount");
+        verify(events).statusChanged(ArgumentMatchers.argThat(s -> s.getId() == 7L
+                && BuddySessionService.STATUS_COMPLETED.equals(s.getStatus())));
+    }
+
+    @Test
+    void dueSessionsTheUpdateSkips_areNotRetried() {
+        long now = System.currentTimeMillis();
+        expiry.schedule(session(7L, now - 30 * 60_000L - BuddySessionExpiry.GRACE_MS, 25));
+        expiry.schedule(session(8L, now - 30 * 60_000L - BuddySessionExpiry.GRACE_MS, 25));
+
+        // Neither row comes back (both were ended elsewhere); only the status is re-checked in SQL.
+        expiry.expire(now + 2_000);
+        expiry.expire(now + 4_000);
+
+        verify(jdbc, times(1)).query(ArgumentMatchers.<String>argThat(sql -> sql.contains("status = 'active'")
+                        && !sql.contains("started_at +")), any(RowCallbackHandler.class),
+                ArgumentMatchers.eq(7L), ArgumentMatchers.eq(8L));
+        verify(statChanges, never()).publish(anyLong(), anyString());
+        verify(events, never()).statusChanged(any());
+    }
+
+    @Test
+    void nothingDue_runsNoQuery() {
+        long now = System.currentTimeMillis();
+        expiry.schedule(session(9L, now, 25));
+        expiry.schedule(session(10L, now - 60 * 60_000L, null)); // No duration: never expires.
+
+        expiry.expire(now + 2_000);
+
+        verify(jdbc, never()).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    private static BuddySession session(Long id, long startedAtMs, Integer durationMinutes) {
+        BuddySession session = new BuddySession(1L, 2L, "quiet_company", durationMinutes);
+        session.setId(id);
+        session.setStatus(BuddySessionService.STATUS_ACTIVE);
+        session.setStartedAt(Instant.ofEpochMilli(startedAtMs));
+        return session;
+    }
+}
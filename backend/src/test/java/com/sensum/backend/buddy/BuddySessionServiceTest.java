@@ -0,0 +1,55 @@
+package com.sensum.backend.buddy;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BuddySessionServiceTest {
+
+    private final BuddySessionRepository sessions = mock(BuddySessionRepository.class);
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final BuddySessionEvents events = mock(BuddySessionEvents.class);
+    private final BuddySessionExpiry expiry = mock(BuddySessionExpiry.class);
+    private final BuddySessionService service = new BuddySessionService(sessions, jdbc, events, expiry);
+
+    @Test
+    void start_insertsOneParticipantRowPerUser() {
+        when(sessions.save(ArgumentMatchers.any(BuddySession.class))).thenAnswer(inv -> {
+            BuddySession s = inv.getArgument(0);
+            s.setId(7L);
+            return s;
+        });
+
+        BuddySession started = service.start(1L, 2L, "quiet_company", 25);
+
+        assertEquals(BuddySessionService.STATUS_PENDING, started.getStatus());
+        verify(jdbc).update(ArgumentMatchers.startsWith("INSERT INTO buddy_session_participants"),
+                ArgumentMatchers.eq(1L), ArgumentMatchers.eq(7L), ArgumentMatchers.eq("pending"), ArgumentMatchers.any(),
+                ArgumentMatchers.eq(2L), ArgumentMatchers.eq(7L), ArgumentMatchers.eq("pending"), ArgumentMatchers.any());
+    }
+
+    @Test
+    void joinAndEnd_copyStatusToParticipants() {
+        BuddySession session = new BuddySession(1L, 2L, "quiet_company", 25);
+        session.setId(7L);
+        when(sessions.save(session)).thenReturn(session);
+
+        service.join(session);
+        service.join(session); // already active: no-op
+        assertNotNull(session.getStartedAt());
+        verify(expiry, times(1)).schedule(session);
+        verify(jdbc, times(1)).update("UPDATE buddy_session_participants SET status = ? WHERE session_id = ?",
+                "active", 7L);
+
+        service.end(session);
+        verify(jdbc).update("UPDATE buddy_session_participants SET status = ? WHERE session_id = ?", "completed", 7L);
+        verify(events, times(2)).statusChanged(session);
+    }
+}
@@ -0,0 +1,145 @@
+package com.sensum.backend.friends;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Fan-out SQL and write-time sharing rules of {@link FeedTimeline} against a real Postgres.
+ *
+ * <p>Skipped when Docker is not available.</p>
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class FeedTimelineFanOutTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:16");
+
+    @Autowired
+    FeedTimeline timeline;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    private long author;
+    private long friend;
+    private long pendingFriend;
+    private long blockedUser;
+    private long questId;
+
+    @BeforeEach
+    void setUp() {
+        author = user(true, false, true, false);
+        friend = user(false, false, false, false);
+        pendingFriend = user(false, false, false, false);
+        blockedUser = user(false, false, false, false);
+        friendship(author, friend, "accepted");
+        friendship(author, pendingFriend, "pending");
+        friendship(author, blockedUser, "blocked");
+        jdbc.update("UPDATE users SET xp = 120, level = 1, streak = 3 WHERE id = ?", author);
+        questId = jdbc.queryForObject("SELECT id FROM quests ORDER BY id LIMIT 1", Long.class);
+    }
+
+    @Test
+    void fanOut_reachesAcceptedFriendsOnly_withUnsharedFieldsNulled() {
+        long completion = completion(author, "a private moment");
+
+        assertEquals(1, timeline.fanOut(completion));
+
+        List<Map<String, Object>> items = itemsOf(completion);
+        assertEquals(1, items.size());
+        Map<String, Object> item = items.get(0);
+        assertEquals(friend, ((Number) item.get("owner_id")).longValue());
+        assertEquals(120, item.get("xp"));
+        assertEquals(1, item.get("level"));
+        assertNull(item.get("streak"));
+        assertEquals(jdbc.queryForObject("SELECT category FROM quests WHERE id = ?", String.class, questId),
+                item.get("category"));
+        assertNull(item.get("moment_text"));
+    }
+
+    @Test
+    void fanOut_isIdempotent() {
+        long completion = completion(author, null);
+
+        timeline.fanOut(completion);
+        assertEquals(0, timeline.fanOut(completion));
+
+        assertEquals(1, itemsOf(completion).size());
+    }
+
+    @Test
+    void fanOut_skipsAuthorsWhoShareNothing() {
+        long completion = completion(friend, null);
+        friendship(friend, author, "accepted");
+
+        assertEquals(0, timeline.fanOut(completion));
+    }
+
+    @Test
+    void rebuildAuthor_appliesTheCurrentSharingFlags() {
+        long completion = completion(author, "now shared");
+        timeline.fanOut(completion);
+
+        jdbc.update("UPDATE user_settings SET share_level = FALSE, share_moments = TRUE WHERE user_id = ?", author);
+        timeline.rebuildAuthor(author);
+
+        Map<String, Object> item = itemsOf(completion).get(0);
+        assertNull(item.get("xp"));
+        assertNull(item.get("level"));
+        assertEquals("now shared", item.get("moment_text"));
+    }
+
+    @Test
+    void rebuildPair_dropsItemsOnceTheyAreNoLongerFriends() {
+        long completion = completion(author, null);
+        timeline.fanOut(completion);
+
+        jdbc.update("UPDATE friendships SET status = 'blocked' WHERE user_id = ? AND friend_id = ?", friend, author);
+        timeline.rebuildPair(friend, author);
+        assertEquals(0, itemsOf(completion).size());
+
+        jdbc.update("UPDATE friendships SET status = 'accepted' WHERE user_id = ? AND friend_id = ?", friend, author);
+        timeline.rebuildPair(friend, author);
+        assertEquals(1, itemsOf(completion).size());
+    }
+
+    private long user(boolean shareLevel, boolean shareStreak, boolean shareCategories, boolean shareMoments) {
+        long id = jdbc.queryForObject(
+                "INSERT INTO users (email, password_hash) VALUES (?, 'x') RETURNING id",
+                Long.class, "feed-" + System.nanoTime() + "@example.com");
+        jdbc.update("INSERT INTO user_settings (user_id, share_level, share_streak, share_categories, share_moments) " +
+                "VALUES (?, ?, ?, ?, ?)", id, shareLevel, shareStreak, shareCategories, shareMoments);
+        return id;
+    }
+
+    /** Stores the edge from {@code friendId}'s side: {@code friendId} reads {@code authorId}'s items. */
+    private void friendship(long authorId, long friendId, String status) {
+        jdbc.update("INSERT INTO friendships (user_id, friend_id, status) VALUES (?, ?, ?)",
+                friendId, authorId, status);
+    }
+
+    private long completion(long userId, String momentText) {
+        return jdbc.queryForObject(
+                "INSERT INTO quest_completions (user_id, quest_id, moment_text) VALUES (?, ?, ?) RETURNING id",
+                Long.class, userId, questId, momentText);
+    }
+
+    private List<Map<String, Object>> itemsOf(long completionId) {
+        return jdbc.queryForList("SELECT * FROM feed_items WHERE completion_id = ? ORDER BY owner_id", completionId);
+    }
+}
@@ -0,0 +1,45 @@
+package com.sensum.backend.friends;
+
+import com.sensum.backend.outbox.Outbox;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FeedTimelineTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final FeedTimeline timeline = new FeedTimeline(jdbc, mock(Outbox.class));
+
+    @Test
+    void trim_walksReadersInBatches_andStartsOverAfterTheLast() {
+        when(jdbc.queryForMap(eq(FeedTimeline.TRIM_SQL), eq(0L), eq(FeedTimeline.TRIM_OWNERS_PER_BATCH),
+                eq(FeedTimeline.MAX_ITEMS_PER_OWNER)))
+                .thenReturn(row(1000L, 5), row(null, 0));
+        when(jdbc.queryForMap(eq(FeedTimeline.TRIM_SQL), eq(1000L), eq(FeedTimeline.TRIM_OWNERS_PER_BATCH),
+                eq(FeedTimeline.MAX_ITEMS_PER_OWNER)))
+                .thenReturn(row(null, 0));
+
+        timeline.trim(); // 0 -> 1000 -> end of sweep
+        timeline.trim(); // starts over from 0
+
+        verify(jdbc, times(2)).queryForMap(eq(FeedTimeline.TRIM_SQL), eq(0L), eq(FeedTimeline.TRIM_OWNERS_PER_BATCH),
+                eq(FeedTimeline.MAX_ITEMS_PER_OWNER));
+        verify(jdbc, times(1)).queryForMap(eq(FeedTimeline.TRIM_SQL), eq(1000L), eq(FeedTimeline.TRIM_OWNERS_PER_BATCH),
+                eq(FeedTimeline.MAX_ITEMS_PER_OWNER));
+    }
+
+    private static Map<String, Object> row(Long lastOwner, long deleted) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("last_owner", lastOwner);
+        row.put("deleted", deleted);
+        return row;
+    }
+}
@@ -0,0 +1,116 @@
+package com.sensum.backend.friends;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FriendSuggestionsTest {
+
+    private final SocialGraph graph = mock(SocialGraph.class);
+    private final FriendSuggestions suggestions = new FriendSuggestions(graph);
+
+    @Test
+    void ranksByMutualFriends_excludingSelfFriendsAndBlocked() {
+        // 1 is friends with 2 and 3 and has blocked 6.
+        edges(1L, new long[]{2L, 3L}, new long[]{6L});
+        edges(2L, new long[]{1L, 3L, 4L, 5L, 6L}, new long[]{});
+        edges(3L, new long[]{1L, 2L, 5L, 6L}, new long[]{});
+
+        long[][] ranked = suggestions.rank(1L);
+
+        assertEquals(2, ranked.length);
+        assertArrayEquals(new long[]{5L, 2L}, ranked[0]);
+        assertArrayEquals(new long[]{4L, 1L}, ranked[1]);
+    }
+
+    @Test
+    void suggest_cachesPerUser() {
+        edges(1L, new long[]{2L}, new long[]{});
+        edges(2L, new long[]{1L, 7L}, new long[]{});
+
+        List<FriendSuggestions.Suggestion> first = suggestions.suggest(1L, 10);
+        suggestions.suggest(1L, 10);
+
+        assertEquals(List.of(new FriendSuggestions.Suggestion(7L, 1)), first);
+        verify(graph, times(1)).adjacency(2L);
+
+        suggestions.invalidate(1L);
+        suggestions.suggest(1L, 10);
+        verify(graph, times(2)).adjacency(2L);
+    }
+
+    @Test
+    void invalidateDuringCompute_doesNotCacheTheStaleResult() {
+        edges(1L, new long[]{2L}, new long[]{});
+        doAnswer(inv -> {
+            suggestions.invalidate(1L); // e.g. 1 blocks 7 while the suggestions are being computed
+            return new SocialGraph.Adjacency(new long[]{1L, 7L}, new long[]{}, 0L);
+        }).when(graph).adjacency(2L);
+
+        suggestions.suggest(1L, 10);
+        suggestions.suggest(1L, 10);
+
+        verify(graph, times(2)).adjacency(2L);
+    }
+
+    @Test
+    void cappedLists_areReadFromARandomOffset() {
+        long[] friends = LongStream.rangeClosed(2, FriendSuggestions.MAX_FRIENDS_EXPANDED + 2).toArray();
+        edges(1L, friends, new long[]{});
+        for (long friend : friends) {
+            edges(friend, new long[]{1L}, new long[]{});
+        }
+        // Only the newest friend knows a candidate; reading from the front would never reach them.
+        edges(friends[friends.length - 1], new long[]{1L, 9_999L}, new long[]{});
+        RandomGenerator offsetOne = new RandomGenerator() {
+            @Override
+            public long nextLong() {
+                return 0;
+            }
+
+            @Override
+            public int nextInt(int bound) {
+                return 1;
+            }
+        };
+
+        long[][] ranked = suggestions.rank(1L, offsetOne);
+
+        assertEquals(1, ranked.length);
+        assertArrayEquals(new long[]{9_999L, 1L}, ranked[0]);
+        verify(graph, never()).adjacency(friends[0]);
+    }
+
+    @Test
+    void counter_growsPastInitialCapacity() {
+        FriendSuggestions.LongIntCounter counter = new FriendSuggestions.LongIntCounter();
+        IntStream.range(0, 1000).forEach(i -> counter.increment(i * 31L));
+        counter.increment(31L);
+
+        long[] seen = new long[2];
+        counter.forEach((key, count) -> {
+            seen[0]++;
+            if (key == 31L) {
+                seen[1] = count;
+            }
+        });
+        assertEquals(1000, counter.size());
+        assertArrayEquals(new long[]{1000, 2}, seen);
+    }
+
+    private void edges(long userId, long[] friends, long[] blocked) {
+        when(graph.adjacency(userId)).thenReturn(new SocialGraph.Adjacency(friends, blocked, 0L));
+    }
+}
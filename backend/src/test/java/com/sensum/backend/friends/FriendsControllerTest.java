@@ -0,0 +1,167 @@
+package com.sensum.backend.friends;
+
+import com.sensum.backend.SecurityConfig;
+import com.sensum.backend.achievement.StatChangeBus;
+import com.sensum.backend.config.ApiExceptionHandler;
+import com.sensum.backend.config.RequestIdFilter;
+import com.sensum.backend.pagination.CursorPage;
+import com.sensum.backend.pagination.KeysetCursor;
+import com.sensum.backend.security.JwtAuthenticationFilter;
+import com.sensum.backend.testutil.TestAuth;
+import com.sensum.backend.user.User;
+import com.sensum.backend.user.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = FriendsController.class)
+@Import({SecurityConfig.class, JwtAuthenticationFilter.class, ApiExceptionHandler.class, RequestIdFilter.class})
+@TestPropertySource(properties = "sensum.feed.strategy=query")
+class FriendsControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockitoBean
+    FriendshipRepository friendships;
+
+    @MockitoBean
+    InviteRepository invites;
+
+    @MockitoBean
+    InviteService inviteService;
+
+    @MockitoBean
+    UserRepository users;
+
+    @MockitoBean
+    SocialGraph socialGraph;
+
+    @MockitoBean
+    FriendSuggestions suggestions;
+
+    @MockitoBean
+    FeedTimeline feedTimeline;
+
+    @MockitoBean
+    FeedQuery feedQuery;
+
+    @MockitoBean
+    StatChangeBus statChanges;
+
+    @Test
+    void feed_requiresAuth() throws Exception {
+        mvc.perform(get("/friends/feed").param("userId", "1"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void feed_queryStrategy_readsOnDemand() throws Exception {
+        FriendsController.FeedItem item = new FriendsController.FeedItem();
+        item.friendId = 2L;
+        item.friendEmail = "b@example.com";
+        item.at = Instant.parse("2026-01-01T00:00:00Z");
+        item.level = 3;
+
+        when(users.findById(1L)).thenReturn(Optional.of(mock(User.class)));
+        when(feedQuery.read(1L, null, 10)).thenReturn(new CursorPage<>(List.of(item), null));
+
+        mvc.perform(get("/friends/feed").param("userId", "1")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].friendId").value(2))
+                .andExpect(jsonPath("$.items[0].level").value(3))
+                .andExpect(jsonPath("$.items[0].xp").isEmpty());
+
+        verify(feedTimeline, never()).read(anyLong(), any(), anyInt());
+    }
+
+    @Test
+    void list_returnsJoinedRowsWithCursor() throws Exception {
+        when(friendships.findRowsWithStatus(ArgumentMatchers.eq(1L), ArgumentMatchers.eq("accepted"), ArgumentMatchers.any()))
+                .thenReturn(List.of(row(12L, 3L, "c@example.com", "2026-01-02T00:00:00Z"),
+                        row(11L, 2L, "b@example.com", "2026-01-01T00:00:00Z")));
+
+        mvc.perform(get("/friends").param("userId", "1").param("status", "accepted").param("limit", "1")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].friendId").value(3))
+                .andExpect(jsonPath("$.items[0].friendEmail").value("c@example.com"))
+                .andExpect(jsonPath("$.items[0].status").value("accepted"))
+                .andExpect(jsonPath("$.nextCursor").value(
+                        new KeysetCursor(Instant.parse("2026-01-02T00:00:00Z"), 12L).encode()));
+
+        verify(users, never()).findById(anyLong());
+    }
+
+    @Test
+    void list_withoutStatus_usesTheUnfilteredQuery() throws Exception {
+        when(friendships.findRows(ArgumentMatchers.eq(1L), ArgumentMatchers.any()))
+                .thenReturn(List.of(row(12L, 3L, "c@example.com", "2026-01-02T00:00:00Z")));
+
+        mvc.perform(get("/friends").param("userId", "1")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].friendId").value(3))
+                .andExpect(jsonPath("$.nextCursor").isEmpty());
+
+        verify(friendships, never()).findRowsWithStatus(anyLong(), any(), any());
+    }
+
+    @Test
+    void list_unknownStatus_returns400() throws Exception {
+        mvc.perform(get("/friends").param("userId", "1").param("status", "bogus")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static FriendshipRepository.FriendRowProjection row(Long id, Long friendId, String email, String createdAt) {
+        return new FriendshipRepository.FriendRowProjection() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getFriendId() {
+                return friendId;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+
+            @Override
+            public String getStatus() {
+                return "accepted";
+            }
+
+            @Override
+            public Instant getCreatedAt() {
+                return Instant.parse(createdAt);
+            }
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package com.sensum.backend.friends;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InviteServiceTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final InviteService invites = new InviteService(jdbc);
+
+    @Test
+    void create_retriesWithNewCodeOnConflict() {
+        when(jdbc.update(ArgumentMatchers.startsWith("INSERT INTO invites"), ArgumentMatchers.any(Object[].class)))
+                .thenReturn(0, 1);
+
+        String code = invites.create(1L);
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbc, times(2)).update(ArgumentMatchers.startsWith("INSERT INTO invites"), args.capture());
+        assertNotEquals(args.getAllValues().get(0)[0], code);
+        assertEquals(args.getAllValues().get(1)[0], code);
+        assertEquals(InviteService.CODE_LENGTH, code.length());
+    }
+
+    @Test
+    void create_givesUpAfterMaxAttempts() {
+        when(jdbc.update(ArgumentMatchers.startsWith("INSERT INTO invites"), ArgumentMatchers.any(Object[].class)))
+                .thenReturn(0);
+
+        assertThrows(RuntimeException.class, () -> invites.create(1L));
+        verify(jdbc, times(InviteService.MAX_ATTEMPTS))
+                .update(ArgumentMatchers.startsWith("INSERT INTO invites"), ArgumentMatchers.any(Object[].class));
+    }
+
+    @Test
+    void purgeStale_deletesInBatchesUntilAShortOne() {
+        when(jdbc.update(ArgumentMatchers.startsWith("DELETE FROM invites"), ArgumentMatchers.any(Object[].class)))
+                .thenReturn(InviteService.PURGE_BATCH_SIZE, InviteService.PURGE_BATCH_SIZE, 3);
+
+        invites.purgeStale();
+
+        verify(jdbc, times(3))
+                .update(ArgumentMatchers.startsWith("DELETE FROM invites"), ArgumentMatchers.any(Object[].class));
+    }
+
+    @Test
+    void purgeStale_keepsExpiredAndUsedInvitesForTheGracePeriod() {
+        long before = System.currentTimeMillis();
+
+        invites.purgeStale();
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbc).update(ArgumentMatchers.startsWith("DELETE FROM invites"), args.capture());
+        Timestamp expiredBefore = (Timestamp) args.getValue()[0];
+        Timestamp usedBefore = (Timestamp) args.getValue()[1];
+        assertEquals(expiredBefore, usedBefore);
+        assertTrue(expiredBefore.getTime() <= before - InviteService.GRACE.toMillis() + 1_000);
+        assertTrue(expiredBefore.getTime() >= before - InviteService.GRACE.toMillis());
+    }
+}
@@ -0,0 +1,87 @@
+package com.sensum.backend.friends;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SocialGraphTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final SocialGraph graph = new SocialGraph(jdbc);
+
+    @Test
+    void loadsOnce_thenAnswersFromSortedArrays() throws Exception {
+        stubEdges(new long[]{2L, 5L, 9L}, new String[]{"accepted", "blocked", "accepted"});
+
+        assertEquals(2, graph.friendCount(1L));
+        assertTrue(graph.areFriends(1L, 9L));
+        assertFalse(graph.areFriends(1L, 5L));
+        assertTrue(graph.isBlocked(1L, 5L));
+        assertArrayEquals(new long[]{2L, 9L}, graph.friendIds(1L));
+
+        verify(jdbc, times(1)).query(ArgumentMatchers.anyString(), ArgumentMatchers.any(RowCallbackHandler.class),
+                ArgumentMatchers.any(Object[].class));
+    }
+
+    @Test
+    void invalidate_reloadsOnNextRead() throws Exception {
+        stubEdges(new long[]{2L}, new String[]{"accepted"});
+
+        graph.friendIds(1L)[0] = 99L; // copies are safe to modify
+        assertTrue(graph.areFriends(1L, 2L));
+
+        graph.invalidate(1L, 2L);
+        graph.friendCount(1L);
+
+        verify(jdbc, times(2)).query(ArgumentMatchers.anyString(), ArgumentMatchers.any(RowCallbackHandler.class),
+                ArgumentMatchers.any(Object[].class));
+    }
+
+    @Test
+    void invalidateDuringLoad_doesNotCacheTheStaleResult() throws Exception {
+        // The friendship change commits (and invalidates) while the first load is reading the old rows.
+        boolean[] invalidated = {false};
+        doAnswer(inv -> {
+            if (!invalidated[0]) {
+                invalidated[0] = true;
+                graph.invalidate(1L);
+            }
+            return null;
+        }).when(jdbc).query(ArgumentMatchers.anyString(), ArgumentMatchers.any(RowCallbackHandler.class),
+                ArgumentMatchers.any(Object[].class));
+
+        assertEquals(0, graph.friendCount(1L));
+        graph.friendCount(1L); // must reload, not serve the pre-commit load
+        graph.friendCount(1L); // the clean reload is cached
+
+        verify(jdbc, times(2)).query(ArgumentMatchers.anyString(), ArgumentMatchers.any(RowCallbackHandler.class),
+                ArgumentMatchers.any(Object[].class));
+    }
+
+    private void stubEdges(long[] friendIds, String[] statuses) {
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (int i = 0; i < friendIds.length; i++) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn(friendIds[i]);
+                when(rs.getString(2)).thenReturn(statuses[i]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbc).query(ArgumentMatchers.anyString(), ArgumentMatchers.any(RowCallbackHandler.class),
+                ArgumentMatchers.any(Object[].class));
+    }
+}
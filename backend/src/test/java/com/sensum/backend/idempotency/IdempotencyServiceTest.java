@@ -0,0 +1,107 @@
+package com.sensum.backend.idempotency;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final IdempotencyService service =
+            new IdempotencyService(jdbc, mock(PlatformTransactionManager.class), JsonMapper.builder().build());
+
+    @Test
+    void keyClaimedElsewhere_replaysStoredResponse_withoutRunningHandler() {
+        when(jdbc.update(ArgumentMatchers.startsWith("INSERT"), ArgumentMatchers.any(Object[].class))).thenReturn(0);
+        when(jdbc.query(ArgumentMatchers.startsWith("SELECT"), ArgumentMatchers.<RowMapper<Object>>any(),
+                ArgumentMatchers.any(Object[].class)))
+                .thenAnswer(inv -> {
+                    RowMapper<?> mapper = inv.getArgument(1);
+                    java.sql.ResultSet rs = mock(java.sql.ResultSet.class);
+                    when(rs.getString(1)).thenReturn("quest.complete");
+                    when(rs.getString(2)).thenReturn("{\"xp\":50}");
+                    return List.of(mapper.mapRow(rs, 0));
+                });
+
+        ResponseEntity<?> response = service.execute(1L, "k", "quest.complete", () -> {
+            throw new AssertionError("handler must not run for a claimed key");
+        });
+
+        assertEquals("{\"xp\":50}", response.getBody());
+    }
+
+    @Test
+    void replayLoadedFromTheTable_isCachedOnlyForTheRestOfItsTtl() {
+        when(jdbc.update(ArgumentMatchers.startsWith("INSERT"), ArgumentMatchers.any(Object[].class))).thenReturn(0);
+        when(jdbc.query(ArgumentMatchers.startsWith("SELECT"), ArgumentMatchers.<RowMapper<Object>>any(),
+                ArgumentMatchers.any(Object[].class)))
+                .thenAnswer(inv -> {
+                    RowMapper<?> mapper = inv.getArgument(1);
+                    java.sql.ResultSet rs = mock(java.sql.ResultSet.class);
+                    when(rs.getString(1)).thenReturn("quest.complete");
+                    when(rs.getString(2)).thenReturn("{\"xp\":50}");
+                    when(rs.getLong(3)).thenReturn(IdempotencyService.TTL.toMillis()); // created a TTL ago
+                    return List.of(mapper.mapRow(rs, 0));
+                });
+
+        service.execute(1L, "k", "quest.complete", () -> Map.of());
+        service.execute(1L, "k", "quest.complete", () -> Map.of());
+
+        // Not served from memory the second time: the key's TTL is used up.
+        verify(jdbc, times(2)).query(ArgumentMatchers.contains("created_at >= NOW()"),
+                ArgumentMatchers.<RowMapper<Object>>any(), ArgumentMatchers.any(Object[].class));
+        verify(jdbc, times(2)).update(ArgumentMatchers.contains("DO UPDATE"), ArgumentMatchers.any(Object[].class));
+    }
+
+    @Test
+    void firstRequest_runsHandlerOnce_andServesRetriesFromMemory() {
+        when(jdbc.update(ArgumentMatchers.startsWith("INSERT"), ArgumentMatchers.any(Object[].class))).thenReturn(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            ResponseEntity<?> response = service.execute(1L, "k", "quest.skip", () -> {
+                runs.incrementAndGet();
+                return Map.of("message", "Quest skipped");
+            });
+            assertEquals("{\"message\":\"Quest skipped\"}", response.getBody());
+        }
+
+        assertEquals(1, runs.get());
+        verify(jdbc, times(1)).update(ArgumentMatchers.startsWith("INSERT"), ArgumentMatchers.any(Object[].class));
+        verify(jdbc, never()).query(ArgumentMatchers.anyString(), ArgumentMatchers.<RowMapper<Object>>any(),
+                ArgumentMatchers.any(Object[].class));
+    }
+
+    @Test
+    void sameKey_forDifferentEndpoint_isRejected() {
+        when(jdbc.update(ArgumentMatchers.startsWith("INSERT"), ArgumentMatchers.any(Object[].class))).thenReturn(1);
+        service.execute(1L, "k", "quest.skip", () -> Map.of("message", "Quest skipped"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.execute(1L, "k", "quest.snooze", () -> Map.of()));
+    }
+
+    @Test
+    void noKey_runsHandlerDirectly() {
+        ResponseEntity<?> response = service.execute(1L, null, "quest.skip", () -> Map.of("message", "ok"));
+
+        assertEquals(Map.of("message", "ok"), response.getBody());
+        verify(jdbc, never()).update(ArgumentMatchers.anyString(), ArgumentMatchers.any(Object[].class));
+    }
+}
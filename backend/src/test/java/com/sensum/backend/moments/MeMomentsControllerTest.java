@@ -47,15 +47,15 @@ class MeMomentsControllerTest {
         m.setText("hello");
         m.setCreatedAt(Instant.parse("2020-01-01T00:00:00Z"));
 
-        when(moments.findByUserIdOrderByCreatedAtDesc(ArgumentMatchers.eq(1L), ArgumentMatchers.any()))
+        when(moments.findByUserIdOrderByCreatedAtDescIdDesc(ArgumentMatchers.eq(1L), ArgumentMatchers.any()))
                 .thenReturn(List.of(m));
 
         mvc.perform(get("/me/moments")
                         .cookie(TestAuth.authCookie(1L, "a@example.com")))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(10))
-                .andExpect(jsonPath("$[0].text").value("hello"))
-                .andExpect(jsonPath("$[0].createdAt").value("2020-01-01T00:00:00Z"));
+                .andExpect(jsonPath("$.items[0].id").value(10))
+                .andExpect(jsonPath("$.items[0].text").value("hello"))
+                .andExpect(jsonPath("$.items[0].createdAt").value("2020-01-01T00:00:00Z"));
     }
 
     @Test
@@ -0,0 +1,41 @@
+package com.sensum.backend.observability;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentiles_areWithinBucketPrecision() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int ms = 1; ms <= 100; ms++) {
+            h.record(ms * 1_000_000L);
+        }
+
+        assertEquals(100, h.count());
+        assertEquals(100.0, h.maxMs());
+
+        double p50 = h.percentileMs(0.50);
+        double p99 = h.percentileMs(0.99);
+        assertTrue(p50 >= 50.0 && p50 <= 50.0 * 1.125, "p50=" + p50);
+        assertTrue(p99 >= 99.0 && p99 <= 100.0, "p99=" + p99);
+    }
+
+    @Test
+    void bucketBounds_coverEveryValue() {
+        for (long micros = 0; micros < 100_000; micros++) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            assertTrue(LatencyHistogram.upperBoundMicros(bucket) >= micros);
+            if (bucket > 0) {
+                assertTrue(LatencyHistogram.upperBoundMicros(bucket - 1) < micros);
+            }
+        }
+    }
+
+    @Test
+    void empty_reportsZero() {
+        assertEquals(0.0, new LatencyHistogram().percentileMs(0.99));
+    }
+}
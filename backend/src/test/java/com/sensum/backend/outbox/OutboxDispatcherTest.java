@@ -0,0 +1,103 @@
+package com.sensum.backend.outbox;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxDispatcherTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final List<OutboxEvent> handled = new ArrayList<>();
+
+    private final OutboxHandler ok = new OutboxHandler() {
+        @Override
+        public String type() {
+            return "ok";
+        }
+
+        @Override
+        public void handle(OutboxEvent event) {
+            handled.add(event);
+        }
+    };
+
+    private final OutboxHandler failing = new OutboxHandler() {
+        @Override
+        public String type() {
+            return "failing";
+        }
+
+        @Override
+        public void handle(OutboxEvent event) {
+            throw new IllegalStateException("boom");
+        }
+    };
+
+    private final OutboxDispatcher dispatcher =
+            new OutboxDispatcher(jdbc, mock(PlatformTransactionManager.class), List.of(ok, failing));
+
+    @Test
+    void process_success_runsHandler_andMarksDone() {
+        OutboxEvent event = event(1, "ok", 1);
+
+        dispatcher.process(event);
+
+        assertEquals(List.of(event), handled);
+        verify(jdbc).update(ArgumentMatchers.contains("status = 'done'"), ArgumentMatchers.eq(1L));
+    }
+
+    @Test
+    void process_failure_schedulesRetryWithBackoff() {
+        dispatcher.process(event(2, "failing", 3));
+
+        verify(jdbc).update(ArgumentMatchers.contains("available_at = NOW()"),
+                ArgumentMatchers.eq("boom"), ArgumentMatchers.eq(8L), ArgumentMatchers.eq(2L));
+        verify(jdbc, never()).update(ArgumentMatchers.contains("status = 'done'"), ArgumentMatchers.any(Object[].class));
+    }
+
+    @Test
+    void process_failure_atMaxAttempts_parksEventAsDead() {
+        dispatcher.process(event(3, "failing", OutboxDispatcher.MAX_ATTEMPTS));
+
+        verify(jdbc).update(ArgumentMatchers.contains("status = 'dead'"),
+                ArgumentMatchers.eq("boom"), ArgumentMatchers.eq(3L));
+    }
+
+    @Test
+    void dispatch_stopsAfterMaxBatchesPerTick() {
+        List<OutboxEvent> full = new ArrayList<>();
+        for (int i = 0; i < OutboxDispatcher.BATCH_SIZE; i++) {
+            full.add(event(i, "ok", 1));
+        }
+        when(jdbc.query(ArgumentMatchers.contains("SET locked_until"), ArgumentMatchers.<RowMapper<OutboxEvent>>any(),
+                ArgumentMatchers.eq(OutboxDispatcher.LEASE_SECONDS), ArgumentMatchers.eq(OutboxDispatcher.BATCH_SIZE)))
+                .thenReturn(full);
+
+        dispatcher.dispatch();
+
+        assertEquals(OutboxDispatcher.MAX_BATCHES_PER_TICK * OutboxDispatcher.BATCH_SIZE, handled.size());
+    }
+
+    @Test
+    void backoff_isExponential_andCapped() {
+        assertEquals(2, OutboxDispatcher.backoffSeconds(1));
+        assertEquals(16, OutboxDispatcher.backoffSeconds(4));
+        assertEquals(OutboxDispatcher.MAX_BACKOFF_SECONDS, OutboxDispatcher.backoffSeconds(30));
+    }
+
+    private static OutboxEvent event(long id, String type, int attempts) {
+        return new OutboxEvent(id, type, 1L, "{}", attempts, Instant.now());
+    }
+}
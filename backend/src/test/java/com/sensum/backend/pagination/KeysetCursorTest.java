@@ -0,0 +1,38 @@
+package com.sensum.backend.pagination;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeysetCursorTest {
+
+    @Test
+    void encodeDecode_roundTripsAtMicrosecondPrecision() {
+        KeysetCursor cursor = new KeysetCursor(Instant.parse("2026-01-01T10:00:00.123456789Z"), 42L);
+
+        KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+        assertEquals(Instant.parse("2026-01-01T10:00:00.123456Z"), decoded.at());
+        assertEquals(42L, decoded.id());
+        assertNull(KeysetCursor.decode(null));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("bm9wZQ"));
+    }
+
+    @Test
+    void page_usesExtraRowOnlyToSignalNextPage() {
+        List<Long> ids = List.of(3L, 2L, 1L);
+
+        CursorPage<Long> full = CursorPage.of(ids, 2, id -> new KeysetCursor(Instant.EPOCH, id));
+        CursorPage<Long> last = CursorPage.of(ids, 3, id -> new KeysetCursor(Instant.EPOCH, id));
+
+        assertEquals(List.of(3L, 2L), full.items());
+        assertEquals(2L, KeysetCursor.decode(full.nextCursor()).id());
+        assertEquals(ids, last.items());
+        assertNull(last.nextCursor());
+    }
+}
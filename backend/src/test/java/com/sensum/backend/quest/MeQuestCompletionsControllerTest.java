@@ -3,6 +3,7 @@ package com.sensum.backend.quest;
 import com.sensum.backend.SecurityConfig;
 import com.sensum.backend.config.ApiExceptionHandler;
 import com.sensum.backend.config.RequestIdFilter;
+import com.sensum.backend.pagination.KeysetCursor;
 import com.sensum.backend.security.JwtAuthenticationFilter;
 import com.sensum.backend.testutil.TestAuth;
 import org.junit.jupiter.api.Test;
@@ -55,19 +56,63 @@ class MeQuestCompletionsControllerTest {
         q.setTitle("Breathe");
         q.setCategory("calm");
 
-        when(completions.findByUserIdOrderByCompletedAtDesc(ArgumentMatchers.eq(1L), ArgumentMatchers.any()))
+        when(completions.findByUserIdOrderByCompletedAtDescIdDesc(ArgumentMatchers.eq(1L), ArgumentMatchers.any()))
                 .thenReturn(List.of(c));
         when(quests.findAllById(ArgumentMatchers.any())).thenReturn(List.of(q));
 
         mvc.perform(get("/me/quests/completions")
                         .cookie(TestAuth.authCookie(1L, "a@example.com")))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(99))
-                .andExpect(jsonPath("$[0].questId").value(5))
-                .andExpect(jsonPath("$[0].title").value("Breathe"))
-                .andExpect(jsonPath("$[0].category").value("calm"))
-                .andExpect(jsonPath("$[0].mood").value("calm"))
-                .andExpect(jsonPath("$[0].momentText").value("did it"))
-                .andExpect(jsonPath("$[0].completedAt").value("2020-01-01T00:00:00Z"));
+                .andExpect(jsonPath("$.items[0].id").value(99))
+                .andExpect(jsonPath("$.items[0].questId").value(5))
+                .andExpect(jsonPath("$.items[0].title").value("Breathe"))
+                .andExpect(jsonPath("$.items[0].category").value("calm"))
+                .andExpect(jsonPath("$.items[0].mood").value("calm"))
+                .andExpect(jsonPath("$.items[0].momentText").value("did it"))
+                .andExpect(jsonPath("$.items[0].completedAt").value("2020-01-01T00:00:00Z"))
+                .andExpect(jsonPath("$.nextCursor").isEmpty());
+    }
+
+    @Test
+    void list_fullPage_returnsCursorThatSeeksPastLastItem() throws Exception {
+        QuestCompletion newer = completion(99L, "2020-01-02T00:00:00Z");
+        QuestCompletion older = completion(98L, "2020-01-01T00:00:00Z");
+
+        when(completions.findByUserIdOrderByCompletedAtDescIdDesc(ArgumentMatchers.eq(1L), ArgumentMatchers.any()))
+                .thenReturn(List.of(newer, older));
+        String cursor = new KeysetCursor(newer.getCompletedAt(), 99L).encode();
+
+        mvc.perform(get("/me/quests/completions").param("limit", "1")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(99))
+                .andExpect(jsonPath("$.nextCursor").value(cursor));
+
+        when(completions.findPageBefore(ArgumentMatchers.eq(1L), ArgumentMatchers.eq(newer.getCompletedAt()),
+                ArgumentMatchers.eq(99L), ArgumentMatchers.any()))
+                .thenReturn(List.of(older));
+
+        mvc.perform(get("/me/quests/completions").param("limit", "1").param("cursor", cursor)
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(98))
+                .andExpect(jsonPath("$.nextCursor").isEmpty());
+    }
+
+    @Test
+    void list_malformedCursor_returns400() throws Exception {
+        mvc.perform(get("/me/quests/completions").param("cursor", "not-a-cursor")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static QuestCompletion completion(Long id, String completedAt) {
+        QuestCompletion c = new QuestCompletion();
+        c.setId(id);
+        c.setUserId(1L);
+        c.setQuestId(5L);
+        c.setCompletedAt(Instant.parse(completedAt));
+        return c;
     }
 }
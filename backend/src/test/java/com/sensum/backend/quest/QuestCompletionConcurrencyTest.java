@@ -0,0 +1,90 @@
+package com.sensum.backend.quest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Stress test for concurrent completions by one user against a real Postgres.
+ *
+ * <p>Skipped when Docker is not available.</p>
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class QuestCompletionConcurrencyTest {
+
+    private static final int COMPLETIONS = 300;
+    private static final int THREADS = 32;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:16");
+
+    @Autowired
+    QuestCompletionService completionService;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    private long userId;
+    private long questId;
+    private int xpPerCompletion;
+
+    @BeforeEach
+    void setUp() {
+        // Achievement unlocks have their own uniqueness handling; keep this test about progress.
+        jdbc.update("DELETE FROM achievements");
+
+        userId = jdbc.queryForObject(
+                "INSERT INTO users (email, password_hash) VALUES (?, 'x') RETURNING id",
+                Long.class, "stress-" + System.nanoTime() + "@example.com");
+        Map<String, Object> quest = jdbc.queryForMap("SELECT id, duration_sec FROM quests ORDER BY id LIMIT 1");
+        questId = ((Number) quest.get("id")).longValue();
+        xpPerCompletion = (((Number) quest.get("duration_sec")).intValue() / 60) * 10;
+    }
+
+    @Test
+    void parallelCompletions_forOneUser_doNotLoseXp() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<QuestCompletionService.Result>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < COMPLETIONS; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return completionService.complete(userId, questId, null, null);
+                }));
+            }
+            start.countDown();
+            for (Future<QuestCompletionService.Result> f : results) {
+                f.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Map<String, Object> user = jdbc.queryForMap("SELECT xp, level, streak FROM users WHERE id = ?", userId);
+        int expectedXp = COMPLETIONS * xpPerCompletion;
+        assertEquals(expectedXp, user.get("xp"));
+        assertEquals(1 + expectedXp / 500, user.get("level"));
+        assertEquals(1, user.get("streak"));
+        assertEquals(COMPLETIONS, jdbc.queryForObject(
+                "SELECT COUNT(*) FROM quest_completions WHERE user_id = ?", Integer.class, userId));
+    }
+}
@@ -1,40 +1,49 @@
 package com.sensum.backend.quest;
 
 import com.sensum.backend.SecurityConfig;
-import com.sensum.backend.achievement.Achievement;
 import com.sensum.backend.achievement.AchievementService;
 import com.sensum.backend.config.ApiExceptionHandler;
 import com.sensum.backend.config.RequestIdFilter;
-import com.sensum.backend.friends.FriendshipRepository;
-import com.sensum.backend.moments.Moment;
+import com.sensum.backend.idempotency.IdempotencyService;
 import com.sensum.backend.moments.MomentRepository;
+import com.sensum.backend.outbox.Outbox;
 import com.sensum.backend.security.JwtAuthenticationFilter;
 import com.sensum.backend.testutil.TestAuth;
-import com.sensum.backend.user.User;
 import com.sensum.backend.user.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = QuestController.class)
-@Import({SecurityConfig.class, JwtAuthenticationFilter.class, ApiExceptionHandler.class, RequestIdFilter.class})
+@Import({SecurityConfig.class, JwtAuthenticationFilter.class, ApiExceptionHandler.class, RequestIdFilter.class,
+        QuestRecommendationService.class, QuestSnoozeRegistry.class, QuestSimilarityJob.class, QuestPopularity.class,
+        QuestCatalog.class, QuestCompletionService.class, IdempotencyService.class, Outbox.class})
 class QuestControllerTest {
 
     @Autowired
@@ -56,10 +65,16 @@ class QuestControllerTest {
     AchievementService achievementService;
 
     @MockitoBean
-    FriendshipRepository friendshipRepo;
+    MomentRepository momentRepo;
 
     @MockitoBean
-    MomentRepository momentRepo;
+    JdbcTemplate jdbc;
+
+    @MockitoBean
+    PlatformTransactionManager txManager;
+
+    @Autowired
+    QuestCatalog catalog;
 
     @Test
     void complete_requiresAuth() throws Exception {
@@ -83,19 +98,7 @@ class QuestControllerTest {
 
     @Test
     void complete_momentTooLong_returns400() throws Exception {
-        Quest q = new Quest();
-        q.setId(1L);
-        q.setDurationSec(300);
-        q.setCategory("calm");
-        q.setTitle("t");
-        q.setPrompt("p");
-
-        User u = new User();
-        u.id = 1L;
-        u.email = "a@example.com";
-
-        when(questRepo.findById(1L)).thenReturn(Optional.of(q));
-        when(userRepo.findById(1L)).thenReturn(Optional.of(u));
+        stubQuest();
 
         String longText = "a".repeat(201);
         String body = "{\"userId\":999999,\"questId\":1,\"mood\":\"ok\",\"momentText\":\"" + longText + "\"}";
@@ -107,64 +110,82 @@ class QuestControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error").value("bad_request"));
 
-        verify(completionRepo, never()).save(ArgumentMatchers.any());
+        verify(jdbc, never()).queryForObject(eq(QuestCompletionService.COMPLETE_SQL),
+                ArgumentMatchers.<RowMapper<Object>>any(), ArgumentMatchers.any(Object[].class));
     }
 
     @Test
-    void complete_ignoresBodyUserId_andUsesJwtUserId() throws Exception {
-        Quest q = new Quest();
-        q.setId(1L);
-        q.setDurationSec(300);
-        q.setCategory("calm");
-        q.setTitle("t");
-        q.setPrompt("p");
+    void complete_unknownUser_returns400() throws Exception {
+        stubQuest();
+        stubCompletionFailure("quest_completions_user_id_fkey");
 
-        User u = new User();
-        u.id = 1L;
-        u.email = "a@example.com";
+        mvc.perform(post("/quests/complete")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"questId\":1}"))
+                .andExpect(status().isBadRequest());
+    }
 
-        when(questRepo.findById(1L)).thenReturn(Optional.of(q));
-        when(userRepo.findById(1L)).thenReturn(Optional.of(u));
-        when(completionRepo.countByUserId(1L)).thenReturn(1L);
-        when(friendshipRepo.countByUserIdAndStatus(1L, "accepted")).thenReturn(0L);
-        when(achievementService.unlockAchievementsForUser(eq(1L), ArgumentMatchers.anyMap())).thenReturn(List.of());
+    @Test
+    void complete_otherIntegrityViolation_isNotReportedAsBadUser() throws Exception {
+        stubQuest();
+        stubCompletionFailure("quest_completions_quest_id_fkey");
+
+        mvc.perform(post("/quests/complete")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"questId\":1}"))
+                .andExpect(status().isInternalServerError());
+    }
+
+    @Test
+    void complete_ignoresBodyUserId_andUsesJwtUserId() throws Exception {
+        stubQuest();
+        stubCompletion(new QuestCompletionService.Progress(50, 1, 1, Instant.EPOCH));
 
         mvc.perform(post("/quests/complete")
                         .cookie(TestAuth.authCookie(1L, "a@example.com"))
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"userId\":999999,\"questId\":1,\"mood\":\"ok\",\"momentText\":\"hi\"}"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.gainedXp").value(50));
+                .andExpect(jsonPath("$.gainedXp").value(50))
+                .andExpect(jsonPath("$.xp").value(50));
+
+        Object[] args = captureCompletionArgs();
+        // Completion, outcome, moment, progress and count parameters are all bound to the JWT user.
+        org.junit.jupiter.api.Assertions.assertEquals(1L, args[0]);
+        org.junit.jupiter.api.Assertions.assertEquals(1L, args[4]);
+        org.junit.jupiter.api.Assertions.assertEquals(1L, args[7]);
+        org.junit.jupiter.api.Assertions.assertEquals(1L, args[14]);
+        // Standalone moment text travels in the outbox payload.
+        org.junit.jupiter.api.Assertions.assertTrue(((String) args[8]).contains("\"momentText\":\"hi\""));
+    }
 
-        ArgumentCaptor<QuestCompletion> captor = ArgumentCaptor.forClass(QuestCompletion.class);
-        verify(completionRepo).save(captor.capture());
-        QuestCompletion saved = captor.getValue();
-        org.junit.jupiter.api.Assertions.assertEquals(1L, saved.getUserId());
+    @Test
+    void complete_sendsXpIncrement_insteadOfReadModifyWrite() throws Exception {
+        stubQuest();
+        stubCompletion(new QuestCompletionService.Progress(1050, 3, 2, Instant.EPOCH));
+
+        mvc.perform(post("/quests/complete")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"questId\":1}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.xp").value(1050))
+                .andExpect(jsonPath("$.gainedXp").value(50));
 
-        ArgumentCaptor<Moment> momentCaptor = ArgumentCaptor.forClass(Moment.class);
-        verify(momentRepo).save(momentCaptor.capture());
-        org.junit.jupiter.api.Assertions.assertEquals(1L, momentCaptor.getValue().getUserId());
-        org.junit.jupiter.api.Assertions.assertEquals("hi", momentCaptor.getValue().getText());
+        Object[] args = captureCompletionArgs();
+        // Only the delta is bound; the database adds it to the current value.
+        org.junit.jupiter.api.Assertions.assertEquals(50, args[9]);
+        org.junit.jupiter.api.Assertions.assertEquals(50, args[10]);
+        verify(userRepo, never()).findById(ArgumentMatchers.anyLong());
+        verify(userRepo, never()).save(ArgumentMatchers.any());
     }
 
     @Test
     void complete_blankMoment_doesNotCreateStandaloneMoment() throws Exception {
-        Quest q = new Quest();
-        q.setId(1L);
-        q.setDurationSec(300);
-        q.setCategory("calm");
-        q.setTitle("t");
-        q.setPrompt("p");
-
-        User u = new User();
-        u.id = 1L;
-        u.email = "a@example.com";
-
-        when(questRepo.findById(1L)).thenReturn(Optional.of(q));
-        when(userRepo.findById(1L)).thenReturn(Optional.of(u));
-        when(completionRepo.countByUserId(1L)).thenReturn(1L);
-        when(friendshipRepo.countByUserIdAndStatus(1L, "accepted")).thenReturn(0L);
-        when(achievementService.unlockAchievementsForUser(eq(1L), ArgumentMatchers.anyMap())).thenReturn(List.of());
+        stubQuest();
+        stubCompletion(new QuestCompletionService.Progress(50, 1, 1, Instant.EPOCH));
 
         mvc.perform(post("/quests/complete")
                         .cookie(TestAuth.authCookie(1L, "a@example.com"))
@@ -172,6 +193,215 @@ class QuestControllerTest {
                         .content("{\"userId\":999999,\"questId\":1,\"mood\":\"ok\",\"momentText\":\"   \"}"))
                 .andExpect(status().isOk());
 
+        org.junit.jupiter.api.Assertions.assertFalse(((String) captureCompletionArgs()[8]).contains("momentText"));
+        verify(momentRepo, never()).save(ArgumentMatchers.any());
+    }
+
+    @Test
+    void complete_queuesSideEffects_insteadOfRunningThemInline() throws Exception {
+        stubQuest();
+        stubCompletion(new QuestCompletionService.Progress(550, 2, 3, Instant.parse("2026-01-01T00:00:00Z")));
+
+        mvc.perform(post("/quests/complete")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"questId\":1,\"momentText\":\"felt good\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.level").value(2))
+                .andExpect(jsonPath("$.streak").value(3))
+                .andExpect(jsonPath("$.newAchievements.length()").value(0))
+                // Database time of the completion, not the app clock.
+                .andExpect(jsonPath("$.unlockedSince").value("2026-01-01T00:00:00Z"));
+
+        Object[] args = captureCompletionArgs();
+        org.junit.jupiter.api.Assertions.assertEquals(QuestCompletedHandler.TYPE, args[6]);
+        org.junit.jupiter.api.Assertions.assertTrue(((String) args[8]).contains("\"questId\":1"));
+
+        // The response path is one statement: no achievement, moment, count or user queries.
+        verify(achievementService, never()).unlockAchievementsForUser(ArgumentMatchers.anyLong(), ArgumentMatchers.anyMap());
         verify(momentRepo, never()).save(ArgumentMatchers.any());
+        verify(completionRepo, never()).countByUserId(ArgumentMatchers.anyLong());
+        verify(userRepo, never()).save(ArgumentMatchers.any());
+    }
+
+    @Test
+    void complete_sameIdempotencyKey_replaysOriginalResponse() throws Exception {
+        stubQuest();
+        stubCompletion(new QuestCompletionService.Progress(50, 1, 1, Instant.EPOCH));
+        when(jdbc.update(ArgumentMatchers.startsWith("INSERT INTO idempotency_keys"), ArgumentMatchers.any(Object[].class)))
+                .thenReturn(1);
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(post("/quests/complete")
+                            .cookie(TestAuth.authCookie(1L, "a@example.com"))
+                            .header(IdempotencyService.HEADER, "complete-once")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"questId\":1}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.xp").value(50))
+                    .andExpect(jsonPath("$.gainedXp").value(50));
+        }
+
+        // The pipeline ran once; the retry was answered from the stored response.
+        verify(jdbc, times(1)).queryForObject(eq(QuestCompletionService.COMPLETE_SQL),
+                ArgumentMatchers.<RowMapper<Object>>any(), ArgumentMatchers.any(Object[].class));
+    }
+
+    @Test
+    void complete_tooLongIdempotencyKey_returns400() throws Exception {
+        mvc.perform(post("/quests/complete")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com"))
+                        .header(IdempotencyService.HEADER, "k".repeat(101))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"questId\":1}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("bad_request"));
+    }
+
+    @Test
+    void recommendationsBatch_groupsByPath_andAggregatesOutcomesOnce() throws Exception {
+        Quest calm1 = quest(1L, "calm");
+        Quest calm2 = quest(2L, "calm");
+        Quest fit1 = quest(3L, "fitness");
+
+        when(questRepo.findAll()).thenReturn(List.of(calm1, calm2, fit1));
+        catalog.refresh();
+        when(outcomeRepo.getQuestScoresForUser(1L)).thenReturn(List.of());
+
+        mvc.perform(get("/quests/recommendations/batch")
+                        .param("paths", "calm,fitness,study,calm")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.calm.length()").value(2))
+                .andExpect(jsonPath("$.fitness.length()").value(1))
+                .andExpect(jsonPath("$.fitness[0].id").value(3))
+                .andExpect(jsonPath("$.study.length()").value(0));
+
+        verify(outcomeRepo, times(1)).getQuestScoresForUser(1L);
+    }
+
+    @Test
+    void recommendationsBatch_tooManyPaths_returns400() throws Exception {
+        mvc.perform(get("/quests/recommendations/batch")
+                        .param("paths", "a,b,c,d,e,f,g,h,i,j,k")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("bad_request"));
+    }
+
+    @Test
+    void recommendations_durationRange_onlyReturnsQuestsThatFit() throws Exception {
+        Quest short1 = quest(11L, "focus");
+        short1.setDurationSec(60);
+        Quest mid = quest(12L, "focus");
+        mid.setDurationSec(300);
+        Quest long1 = quest(13L, "focus");
+        long1.setDurationSec(900);
+
+        when(questRepo.findAll()).thenReturn(List.of(long1, short1, mid));
+        catalog.refresh();
+        when(outcomeRepo.getQuestScoresForUser(1L)).thenReturn(List.of());
+
+        mvc.perform(get("/quests/recommendations")
+                        .param("path", "focus")
+                        .param("minSeconds", "60")
+                        .param("maxSeconds", "300")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[?(@.id == 13)]").isEmpty());
+    }
+
+    @Test
+    void recommendations_invertedDurationRange_returns400() throws Exception {
+        mvc.perform(get("/quests/recommendations")
+                        .param("path", "focus")
+                        .param("minSeconds", "600")
+                        .param("maxSeconds", "60")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("bad_request"));
+    }
+
+    @Test
+    void snooze_persistsDeadline_andHidesQuestFromRecommendations() throws Exception {
+        Quest calm1 = quest(1L, "calm");
+        Quest calm2 = quest(2L, "calm");
+
+        // Separate user: the registry bean is shared across tests in this context.
+        when(questRepo.findById(1L)).thenReturn(Optional.of(calm1));
+        when(questRepo.findAll()).thenReturn(List.of(calm1, calm2));
+        catalog.refresh();
+        when(outcomeRepo.getQuestScoresForUser(7L)).thenReturn(List.of());
+
+        mvc.perform(post("/quests/snooze")
+                        .cookie(TestAuth.authCookie(7L, "snoozer@example.com"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"questId\":1,\"minutes\":30}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.snoozedUntil").exists());
+
+        ArgumentCaptor<QuestOutcome> captor = ArgumentCaptor.forClass(QuestOutcome.class);
+        verify(outcomeRepo).save(captor.capture());
+        org.junit.jupiter.api.Assertions.assertEquals("snoozed", captor.getValue().getOutcome());
+        org.junit.jupiter.api.Assertions.assertNotNull(captor.getValue().getSnoozedUntil());
+
+        mvc.perform(get("/quests/recommendations")
+                        .param("path", "calm")
+                        .cookie(TestAuth.authCookie(7L, "snoozer@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(2));
+    }
+
+    @Test
+    void snooze_invalidMinutes_returns400() throws Exception {
+        mvc.perform(post("/quests/snooze")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"questId\":1,\"minutes\":0}"))
+                .andExpect(status().isBadRequest());
+
+        verify(outcomeRepo, never()).save(ArgumentMatchers.any());
+    }
+
+    private void stubQuest() {
+        Quest q = quest(1L, "calm");
+        q.setDurationSec(300);
+        when(questRepo.findAll()).thenReturn(List.of(q));
+        catalog.refresh();
+    }
+
+    private void stubCompletion(QuestCompletionService.Progress progress) {
+        when(jdbc.queryForObject(eq(QuestCompletionService.COMPLETE_SQL),
+                ArgumentMatchers.<RowMapper<Object>>any(), ArgumentMatchers.any(Object[].class)))
+                .thenReturn(progress);
+    }
+
+    /** Fails the completion statement with a foreign key violation on {@code constraint}. */
+    private void stubCompletionFailure(String constraint) {
+        // Fields as sent by the server: severity, SQLState, message, constraint name.
+        ServerErrorMessage error = new ServerErrorMessage("SERROR\0C23503\0Mviolates foreign key constraint\0n"
+                + constraint + "\0");
+        when(jdbc.queryForObject(eq(QuestCompletionService.COMPLETE_SQL),
+                ArgumentMatchers.<RowMapper<Object>>any(), ArgumentMatchers.any(Object[].class)))
+                .thenThrow(new DataIntegrityViolationException("complete", new PSQLException(error)));
+    }
+
+    private Object[] captureCompletionArgs() {
+        ArgumentCaptor<Object[]> captor = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbc).queryForObject(eq(QuestCompletionService.COMPLETE_SQL),
+                ArgumentMatchers.<RowMapper<Object>>any(), captor.capture());
+        return captor.getValue();
+    }
+
+    private static Quest quest(Long id, String category) {
+        Quest q = new Quest();
+        q.setId(id);
+        q.setCategory(category);
+        q.setTitle("t" + id);
+        q.setDurationSec(120);
+        q.setPrompt("p");
+        return q;
     }
 }
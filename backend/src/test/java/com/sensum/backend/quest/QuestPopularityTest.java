@@ -0,0 +1,104 @@
+package com.sensum.backend.quest;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QuestPopularityTest {
+
+    @Test
+    void prior_prefersQuestsThatGetCompleted() {
+        QuestPopularity popularity = new QuestPopularity(mock(JdbcTemplate.class));
+        Quest liked = quest(1L, "calm");
+        Quest skipped = quest(2L, "calm");
+        Quest unseen = quest(3L, "calm");
+
+        for (int i = 0; i < 20; i++) {
+            popularity.recordCompletion(liked);
+            popularity.recordSkip(skipped);
+        }
+
+        assertTrue(popularity.prior(liked) > popularity.prior(unseen));
+        assertTrue(popularity.prior(unseen) > popularity.prior(skipped));
+        // Unseen quests fall back to the category rate (20 completed / 40 total).
+        assertEquals(0.5, popularity.prior(unseen), 1e-9);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_writesDeltasOnce() {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        QuestPopularity popularity = new QuestPopularity(jdbc);
+        Quest q = quest(1L, "calm");
+
+        popularity.recordCompletion(q);
+        popularity.recordCompletion(q);
+        popularity.recordSkip(q);
+        popularity.flush();
+        popularity.flush();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbc, times(1)).batchUpdate(anyString(), rows.capture());
+        assertArrayEquals(new Object[]{1L, 2L, 1L}, rows.getValue().get(0));
+    }
+
+    @Test
+    void flush_failure_keepsDeltasForRetry() {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        when(jdbc.batchUpdate(anyString(), anyList())).thenThrow(new RuntimeException("db down"));
+        QuestPopularity popularity = new QuestPopularity(jdbc);
+
+        popularity.recordCompletion(quest(1L, "calm"));
+        popularity.flush();
+        popularity.flush();
+
+        verify(jdbc, times(2)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void insideTransaction_countsOnlyAfterCommit() {
+        QuestPopularity popularity = new QuestPopularity(mock(JdbcTemplate.class));
+        Quest q = quest(1L, "calm");
+        double before = popularity.prior(q);
+
+        // Rolled back: the synchronization never runs, so nothing is counted.
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            popularity.recordSkip(q);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(before, popularity.prior(q));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            popularity.recordSkip(q);
+            assertEquals(before, popularity.prior(q));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(popularity.prior(q) < before);
+    }
+
+    private static Quest quest(Long id, String category) {
+        Quest q = new Quest();
+        q.setId(id);
+        q.setCategory(category);
+        return q;
+    }
+}
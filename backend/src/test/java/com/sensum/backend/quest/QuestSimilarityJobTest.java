@@ -0,0 +1,46 @@
+package com.sensum.backend.quest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuestSimilarityJobTest {
+
+    @Test
+    void coOccurrenceTask_countsPairsAcrossForkedRanges() {
+        // 3 quests; users alternate between {0,1} and {0,1,2}. Enough users to force several forks.
+        QuestSimilarityJob.UserQuestSets.Builder b = new QuestSimilarityJob.UserQuestSets.Builder();
+        int users = QuestSimilarityJob.USERS_PER_TASK * 4 + 3;
+        for (int u = 0; u < users; u++) {
+            b.add(u, 0);
+            b.add(u, 1);
+            if (u % 2 == 1) b.add(u, 2);
+        }
+        QuestSimilarityJob.UserQuestSets sets = b.build();
+
+        int[][] counts = new ForkJoinPool(4).invoke(
+                new QuestSimilarityJob.CoOccurrenceTask(3, sets, 0, sets.userCount()));
+
+        int odd = users / 2;
+        assertArrayEquals(new int[]{users, users, odd}, counts[0]);
+        // Upper triangle order: (0,1), (0,2), (1,2)
+        assertArrayEquals(new int[]{users, odd, odd}, counts[1]);
+    }
+
+    @Test
+    void model_computesCosineSimilarity() {
+        QuestSimilarityModel model = QuestSimilarityModel.fromCounts(
+                new long[]{10L, 20L, 30L},
+                new int[]{4, 4, 1},
+                new int[]{4, 1, 0});
+
+        assertEquals(1.0, model.similarity(10L, 20L), 1e-6);
+        assertEquals(1.0, model.similarity(20L, 10L), 1e-6);
+        assertEquals(0.5, model.similarity(10L, 30L), 1e-6);
+        assertEquals(0.0, model.similarity(20L, 30L), 1e-6);
+        assertEquals(0.0, model.similarity(10L, 99L), 1e-6);
+    }
+}
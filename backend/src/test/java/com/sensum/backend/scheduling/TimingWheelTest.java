@@ -0,0 +1,43 @@
+package com.sensum.backend.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    @Test
+    void advance_returnsOnlyExpiredItems() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+        wheel.schedule("a", 250);
+        wheel.schedule("b", 900);
+
+        assertTrue(wheel.advance(200).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(300));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("b"), wheel.advance(900));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_keepsDeadlinesBeyondOneRevolution() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 4, 0);
+        wheel.schedule("far", 1_050);
+
+        // Same bucket as tick 3, but several revolutions later.
+        assertTrue(wheel.advance(300).isEmpty());
+        assertTrue(wheel.advance(1_000).isEmpty());
+        assertEquals(List.of("far"), wheel.advance(1_100));
+    }
+
+    @Test
+    void schedule_pastDeadline_expiresOnNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 1_000);
+        wheel.schedule("late", 500);
+
+        assertEquals(List.of("late"), wheel.advance(1_100));
+    }
+}
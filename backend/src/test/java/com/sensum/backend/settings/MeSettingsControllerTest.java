@@ -3,6 +3,7 @@ package com.sensum.backend.settings;
 import com.sensum.backend.SecurityConfig;
 import com.sensum.backend.config.ApiExceptionHandler;
 import com.sensum.backend.config.RequestIdFilter;
+import com.sensum.backend.friends.FeedTimeline;
 import com.sensum.backend.security.JwtAuthenticationFilter;
 import com.sensum.backend.testutil.TestAuth;
 import org.junit.jupiter.api.Test;
@@ -16,6 +17,8 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Optional;
 
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
@@ -32,6 +35,9 @@ class MeSettingsControllerTest {
     @MockitoBean
     UserSettingsRepository settings;
 
+    @MockitoBean
+    FeedTimeline feedTimeline;
+
     @Test
     void getSettings_requiresAuth() throws Exception {
         mvc.perform(get("/me/settings"))
@@ -71,5 +77,24 @@ class MeSettingsControllerTest {
                 .andExpect(jsonPath("$.selectedPaths").value("[\"calm\"]"))
                 .andExpect(jsonPath("$.nudgeThresholdSec").value(120))
                 .andExpect(jsonPath("$.shareLevel").value(true));
+
+        verify(feedTimeline).sharingChanged(1L);
+    }
+
+    @Test
+    void putSettings_sharingUnchanged_doesNotRebuildFeed() throws Exception {
+        UserSettings s = new UserSettings();
+        s.userId = 1L;
+
+        when(settings.findById(1L)).thenReturn(Optional.of(s));
+        when(settings.save(ArgumentMatchers.any(UserSettings.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        mvc.perform(put("/me/settings")
+                        .cookie(TestAuth.authCookie(1L, "a@example.com"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nudgeThresholdSec\":120}"))
+                .andExpect(status().isOk());
+
+        verify(feedTimeline, never()).sharingChanged(ArgumentMatchers.anyLong());
     }
 }
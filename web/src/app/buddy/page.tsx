@@ -47,11 +47,39 @@ export default function BuddyPage() {
     return () => clearInterval(interval);
   }, [userId]);
 
+  // Live check-ins and status changes for the open session (Server-Sent Events).
+  // The browser reconnects on its own; details are reloaded on (re)connect to catch missed events.
+  useEffect(() => {
+    if (!selectedSession) return;
+    const source = new EventSource(`/api/buddy/session/${selectedSession}/events`, { withCredentials: true });
+    source.onopen = () => loadSessionDetails(selectedSession);
+    // Refused streams (e.g. 410 for a completed session) are not retried; load the details once instead.
+    source.onerror = () => {
+      if (source.readyState === EventSource.CLOSED) loadSessionDetails(selectedSession);
+    };
+    source.addEventListener('checkin', (e) => {
+      const checkin = JSON.parse((e as MessageEvent).data);
+      setSessionDetails((prev: any) => {
+        if (!prev || prev.id !== selectedSession) return prev;
+        const checkins = prev.checkins ?? [];
+        if (checkins.some((c: any) => c.id === checkin.id)) return prev;
+        return { ...prev, checkins: [...checkins, checkin] };
+      });
+    });
+    source.addEventListener('status', (e) => {
+      const update = JSON.parse((e as MessageEvent).data);
+      setSessionDetails((prev: any) => (prev && prev.id === update.id ? { ...prev, ...update } : prev));
+      loadSessions();
+      if (update.status === 'completed') source.close();
+    });
+    return () => source.close();
+  }, [selectedSession]);
+
   const loadFriends = async () => {
     try {
-      const res = await fetch(`/api/friends?userId=${userId}`, { credentials: "include" });
+      const res = await fetch(`/api/friends?userId=${userId}&status=accepted&limit=200`, { credentials: "include" });
       const data = await res.json();
-      setFriends(data);
+      setFriends(Array.isArray(data?.items) ? data.items : []);
     } catch (err) {
       console.error('Failed to load friends:', err);
     }
@@ -61,7 +89,7 @@ export default function BuddyPage() {
     try {
       const res = await fetch(`/api/buddy/list?userId=${userId}`, { credentials: "include" });
       const data = await res.json();
-      setSessions(data);
+      setSessions(Array.isArray(data?.items) ? data.items : []);
     } catch (err) {
       console.error('Failed to load sessions:', err);
     }
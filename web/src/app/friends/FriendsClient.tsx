@@ -34,7 +34,9 @@ export default function FriendsClient() {
   const [acceptCode, setAcceptCode] = useState("");
 
   const [friends, setFriends] = useState<FriendRow[]>([]);
+  const [friendsCursor, setFriendsCursor] = useState<string | null>(null);
   const [feed, setFeed] = useState<FeedItem[]>([]);
+  const [feedCursor, setFeedCursor] = useState<string | null>(null);
 
   async function logout() {
     try {
@@ -72,8 +74,12 @@ export default function FriendsClient() {
     await Promise.all([loadFriends(id), loadFeed(id)]);
   }
 
-  async function loadFriends(id: number) {
-    const res = await fetch(`/api/friends?userId=${encodeURIComponent(String(id))}`, {
+  // cursor == null loads the first page; otherwise the next page is appended.
+  async function loadFriends(id: number, cursor: string | null = null) {
+    const params = new URLSearchParams({ userId: String(id) });
+    if (cursor) params.set("cursor", cursor);
+
+    const res = await fetch(`/api/friends?${params}`, {
       cache: "no-store",
       credentials: "include",
     });
@@ -82,21 +88,32 @@ export default function FriendsClient() {
       setMsg("Failed to load friends");
       return;
     }
-    setFriends(await res.json());
+    const page: { items: FriendRow[]; nextCursor: string | null } = await res.json();
+    const items = Array.isArray(page?.items) ? page.items : [];
+    setFriends((prev) => (cursor ? [...prev, ...items] : items));
+    setFriendsCursor(page?.nextCursor ?? null);
   }
 
-  async function loadFeed(id: number) {
-    const res = await fetch(`/api/friends/feed?userId=${encodeURIComponent(String(id))}`, {
+  // cursor == null loads the first page; otherwise the next page is appended.
+  async function loadFeed(id: number, cursor: string | null = null) {
+    const params = new URLSearchParams({ userId: String(id) });
+    if (cursor) params.set("cursor", cursor);
+
+    const res = await fetch(`/api/friends/feed?${params}`, {
       cache: "no-store",
       credentials: "include",
     });
 
     if (!res.ok) {
       // Feed is optional; don't block the whole page on it
-      setFeed([]);
+      if (!cursor) setFeed([]);
+      setFeedCursor(null);
       return;
     }
-    setFeed(await res.json());
+    const page: { items: FeedItem[]; nextCursor: string | null } = await res.json();
+    const items = Array.isArray(page?.items) ? page.items : [];
+    setFeed((prev) => (cursor ? [...prev, ...items] : items));
+    setFeedCursor(page?.nextCursor ?? null);
   }
 
   async function generateInvite() {
@@ -302,6 +319,11 @@ export default function FriendsClient() {
                       )}
                     </div>
                   ))}
+                  {friendsCursor && userId != null ? (
+                    <button className="pill pill-ghost" onClick={() => void loadFriends(userId, friendsCursor)}>
+                      Load more
+                    </button>
+                  ) : null}
                 </div>
               )}
             </section>
@@ -357,6 +379,11 @@ export default function FriendsClient() {
                       </div>
                     </div>
                   ))}
+                  {feedCursor && userId != null ? (
+                    <button className="pill pill-ghost" onClick={() => void loadFeed(userId, feedCursor)}>
+                      Load more
+                    </button>
+                  ) : null}
                 </div>
               )}
             </section>
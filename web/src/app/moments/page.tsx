@@ -19,6 +19,14 @@ type QuestCompletion = {
   completedAt: string;
 };
 
+// Keyset-paginated list: pass nextCursor back as ?cursor= for the next page.
+type Page<T> = {
+  items: T[];
+  nextCursor: string | null;
+};
+
+const QUEST_PAGE_SIZE = 10;
+
 export default function MomentsPage() {
   const router = useRouter();
   const [moments, setMoments] = useState<Moment[]>([]);
@@ -27,8 +35,7 @@ export default function MomentsPage() {
   const [saving, setSaving] = useState(false);
   const [text, setText] = useState("");
   const [msg, setMsg] = useState("");
-  const [questLimit, setQuestLimit] = useState(10);
-  const [questHasMore, setQuestHasMore] = useState(true);
+  const [questCursor, setQuestCursor] = useState<string | null>(null);
 
   async function logout() {
     try {
@@ -87,16 +94,13 @@ export default function MomentsPage() {
     void load();
   }, [router]);
 
-  useEffect(() => {
-    const id = localStorage.getItem("userId");
-    if (!id) return;
-
-    void loadQuestCompletions(questLimit);
-  }, [questLimit]);
+  // cursor == null loads the first page; otherwise the next page is appended.
+  async function loadQuestCompletions(cursor: string | null) {
+    const params = new URLSearchParams({ limit: String(QUEST_PAGE_SIZE) });
+    if (cursor) params.set("cursor", cursor);
 
-  async function loadQuestCompletions(limit: number) {
     try {
-      const completionsRes = await fetch(`/api/me/quests/completions?limit=${limit}`, {
+      const completionsRes = await fetch(`/api/me/quests/completions?${params}`, {
         cache: "no-store",
         credentials: "include",
       });
@@ -108,20 +112,20 @@ export default function MomentsPage() {
 
       if (!completionsRes.ok) {
         setMsg("Failed to load quest history");
-        setQuestCompletions([]);
-        setQuestHasMore(false);
+        if (!cursor) setQuestCompletions([]);
+        setQuestCursor(null);
         return;
       }
 
-      const completionsData: QuestCompletion[] = await completionsRes.json();
-      const list = Array.isArray(completionsData) ? completionsData : [];
-      setQuestCompletions(list);
-      setQuestHasMore(list.length >= limit);
+      const page: Page<QuestCompletion> = await completionsRes.json();
+      const list = Array.isArray(page?.items) ? page.items : [];
+      setQuestCompletions((prev) => (cursor ? [...prev, ...list] : list));
+      setQuestCursor(page?.nextCursor ?? null);
     } catch (err) {
       console.error("Failed to load quest history:", err);
       setMsg("Failed to load quest history");
-      setQuestCompletions([]);
-      setQuestHasMore(false);
+      if (!cursor) setQuestCompletions([]);
+      setQuestCursor(null);
     }
   }
 
@@ -129,7 +133,7 @@ export default function MomentsPage() {
     setMsg("");
     setLoading(true);
     try {
-      await loadQuestCompletions(questLimit);
+      await loadQuestCompletions(null);
 
       const res = await fetch("/api/me/moments?limit=50", {
         cache: "no-store",
@@ -147,8 +151,8 @@ export default function MomentsPage() {
         return;
       }
 
-      const data: Moment[] = await res.json();
-      setMoments(Array.isArray(data) ? data : []);
+      const page: Page<Moment> = await res.json();
+      setMoments(Array.isArray(page?.items) ? page.items : []);
     } catch (err) {
       console.error("Failed to load moments:", err);
       setMsg("Failed to load moments");
@@ -251,10 +255,10 @@ export default function MomentsPage() {
                   <div className="card space-y-3">
                     <div className="flex items-center justify-between gap-3">
                       <p className="text-sm uppercase tracking-wide text-slate-500 dark:text-slate-400">Quests</p>
-                      {questHasMore ? (
+                      {questCursor ? (
                         <button
                           className="pill pill-ghost"
-                          onClick={() => setQuestLimit((n) => n + 10)}
+                          onClick={() => void loadQuestCompletions(questCursor)}
                         >
                           Load 10 more
                         </button>
@@ -1,6 +1,6 @@
 "use client";
 
-import { useEffect, useState } from "react";
+import { useEffect, useRef, useState } from "react";
 import { useRouter } from "next/navigation";
 import AchievementModal from './components/AchievementModal';
 
@@ -18,6 +18,7 @@ type ProgressResponse = {
   streak: number;
   gainedXp: number;
   newAchievements?: any[];
+  unlockedSince?: string;
 };
 
 type FriendRow = {
@@ -69,6 +70,8 @@ export default function TodayPage() {
   const [quickMomentMsg, setQuickMomentMsg] = useState("");
   const [progress, setProgress] = useState<ProgressResponse | null>(null);
   const [msg, setMsg] = useState("");
+  // One Idempotency-Key per quest action until the list reloads, so double-clicks and retries count once.
+  const actionKeys = useRef<Record<string, string>>({});
 
   const [friends, setFriends] = useState<FriendRow[]>([]);
   const [feed, setFeed] = useState<FeedItem[]>([]);
@@ -96,20 +99,29 @@ export default function TodayPage() {
     void loadFeed(id);
   }, [router]);
 
+  // Only accepted friends are used here (buddy picker); follows nextCursor so long lists are complete.
   async function loadFriends(id: number) {
     try {
-      const res = await fetch(`/api/friends?userId=${encodeURIComponent(String(id))}`, {
-        cache: "no-store",
-        credentials: "include",
-      });
-      if (!res.ok) {
-        setFriends([]);
-        return;
-      }
-      const rows: FriendRow[] = await res.json();
-      setFriends(Array.isArray(rows) ? rows : []);
-
-      const accepted = (Array.isArray(rows) ? rows : []).filter((f) => f.status === "accepted");
+      const rows: FriendRow[] = [];
+      let cursor: string | null = null;
+      do {
+        const params = new URLSearchParams({ userId: String(id), status: "accepted", limit: "200" });
+        if (cursor) params.set("cursor", cursor);
+        const res = await fetch(`/api/friends?${params}`, {
+          cache: "no-store",
+          credentials: "include",
+        });
+        if (!res.ok) {
+          setFriends([]);
+          return;
+        }
+        const page: { items: FriendRow[]; nextCursor: string | null } = await res.json();
+        if (Array.isArray(page?.items)) rows.push(...page.items);
+        cursor = page?.nextCursor ?? null;
+      } while (cursor);
+      setFriends(rows);
+
+      const accepted = rows.filter((f) => f.status === "accepted");
       if (accepted.length > 0 && buddyFriendId == null) {
         setBuddyFriendId(accepted[0].friendId);
       }
@@ -130,8 +142,8 @@ export default function TodayPage() {
         return;
       }
 
-      const items: FeedItem[] = await res.json();
-      setFeed(Array.isArray(items) ? items : []);
+      const page: { items: FeedItem[] } = await res.json();
+      setFeed(Array.isArray(page?.items) ? page.items : []);
     } catch {
       setFeed([]);
     }
@@ -170,9 +182,16 @@ export default function TodayPage() {
       return;
     }
     const data = await res.json();
+    actionKeys.current = {};
     setQuests(data);
   }
 
+  function actionKey(action: string, questId: number) {
+    const id = `${action}:${questId}`;
+    actionKeys.current[id] ??= crypto.randomUUID();
+    return actionKeys.current[id];
+  }
+
   async function completeQuest(q: Quest) {
     if (!userId) return;
 
@@ -180,7 +199,7 @@ export default function TodayPage() {
 
     const res = await fetch("/api/quests/complete", {
       method: "POST",
-      headers: { "Content-Type": "application/json" },
+      headers: { "Content-Type": "application/json", "Idempotency-Key": actionKey("complete", q.id) },
       credentials: "include",
       body: JSON.stringify({
         userId,
@@ -202,6 +221,9 @@ export default function TodayPage() {
     if (data.newAchievements && data.newAchievements.length > 0) {
       setShowAchievementModal(true);
       setNewAchievements(data.newAchievements);
+    } else if (data.unlockedSince) {
+      // Achievements are evaluated in the background; check shortly after the completion.
+      void pollNewAchievements(data.unlockedSince);
     }
     setProgress(data);
 
@@ -221,11 +243,33 @@ export default function TodayPage() {
     await loadQuests(path, { preserveMsg: true });
   }
 
+  async function pollNewAchievements(since: string) {
+    for (const delayMs of [1000, 3000]) {
+      await new Promise((resolve) => setTimeout(resolve, delayMs));
+      try {
+        const res = await fetch(`/api/achievements/recent?since=${encodeURIComponent(since)}`, {
+          cache: "no-store",
+          credentials: "include",
+        });
+        if (!res.ok) return;
+        const data = await res.json();
+        if (data?.achievements?.length > 0) {
+          setNewAchievements(data.achievements);
+          setShowAchievementModal(true);
+          return;
+        }
+      } catch (err) {
+        console.error("Error loading new achievements:", err);
+        return;
+      }
+    }
+  }
+
   async function handleSkip(questId: number) {
     try {
       const res = await fetch("/api/quests/skip", {
         method: "POST",
-        headers: { "Content-Type": "application/json" },
+        headers: { "Content-Type": "application/json", "Idempotency-Key": actionKey("skip", questId) },
         body: JSON.stringify({ questId }),
         credentials: "include",
       });